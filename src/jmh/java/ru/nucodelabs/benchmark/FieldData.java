@@ -0,0 +1,59 @@
+package ru.nucodelabs.benchmark;
+
+import ru.nucodelabs.gem.app.io.SonetImportManager;
+import ru.nucodelabs.geo.ves.ExperimentalData;
+import ru.nucodelabs.geo.ves.ModelLayer;
+import ru.nucodelabs.geo.ves.Picket;
+import ru.nucodelabs.geo.ves.calc.forward.ForwardSolver;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Входные данные бенчмарков: полевые файлы из {@code data/} и стартовые модели заданного числа слоев
+ */
+final class FieldData {
+
+    private FieldData() {
+    }
+
+    static Picket loadPicket(String dataset) throws Exception {
+        return SonetImportManager.create().fromEXPFile(new File("data/" + dataset + ".EXP"));
+    }
+
+    static ForwardSolver forwardSolver(String kind) {
+        return kind.equals("JVM") ? ForwardSolver.createJvm() : ForwardSolver.createDefault();
+    }
+
+    /**
+     * Модель из {@code layersCnt} слоев, границы равномерны в логарифмическом масштабе по AB/2,
+     * сопротивление слоя — кажущееся сопротивление на соответствующем разносе
+     */
+    static List<ModelLayer> layeredModel(List<ExperimentalData> experimentalData, int layersCnt) {
+        double logMin = Math.log(experimentalData.get(0).getAb2());
+        double logMax = Math.log(experimentalData.get(experimentalData.size() - 1).getAb2());
+        double step = (logMax - logMin) / layersCnt;
+
+        List<ModelLayer> model = new ArrayList<>(layersCnt);
+        double top = 0;
+        for (int i = 0; i < layersCnt; i++) {
+            double bottom = Math.exp(logMin + (i + 1) * step);
+            double resistance = apparentResistanceAt(experimentalData, Math.exp(logMin + (i + 0.5) * step));
+            double power = i == layersCnt - 1 ? 0.0 : bottom - top;
+            model.add(new ModelLayer(power, resistance, false, false));
+            top = bottom;
+        }
+        return model;
+    }
+
+    private static double apparentResistanceAt(List<ExperimentalData> experimentalData, double ab2) {
+        ExperimentalData nearest = experimentalData.get(0);
+        for (ExperimentalData data : experimentalData) {
+            if (Math.abs(Math.log(data.getAb2() / ab2)) < Math.abs(Math.log(nearest.getAb2() / ab2))) {
+                nearest = data;
+            }
+        }
+        return nearest.getResistanceApparent();
+    }
+}
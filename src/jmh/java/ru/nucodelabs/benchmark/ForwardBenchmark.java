@@ -0,0 +1,75 @@
+package ru.nucodelabs.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import ru.nucodelabs.geo.ves.ExperimentalData;
+import ru.nucodelabs.geo.ves.ModelLayer;
+import ru.nucodelabs.geo.ves.Picket;
+import ru.nucodelabs.geo.ves.calc.forward.ForwardSolver;
+import ru.nucodelabs.geo.ves.calc.graph.MisfitsFunction;
+import ru.nucodelabs.geo.ves.calc.inverse.inverse_functions.FunctionValue;
+import ru.nucodelabs.geo.ves.calc.inverse.inverse_functions.SquaresDiff;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Прямая задача, невязки и целевая функция обратной задачи на одной точке
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ForwardBenchmark {
+
+    @Param({"BURM1", "CHITA", "KAZAN", "SHIRA"})
+    public String dataset;
+
+    @Param({"3", "5", "10", "20", "40"})
+    public int layers;
+
+    @Param({"NATIVE", "JVM"})
+    public String solver;
+
+    private List<ExperimentalData> experimentalData;
+    private List<ModelLayer> modelData;
+    private ForwardSolver forwardSolver;
+    private MisfitsFunction misfitsFunction;
+    private FunctionValue functionValue;
+    private double[] variables;
+
+    @Setup
+    public void setup() throws Exception {
+        Picket picket = FieldData.loadPicket(dataset);
+        experimentalData = picket.getEffectiveExperimentalData();
+        modelData = FieldData.layeredModel(experimentalData, layers);
+        forwardSolver = FieldData.forwardSolver(solver);
+        misfitsFunction = MisfitsFunction.createDefault(forwardSolver);
+        functionValue = new FunctionValue(experimentalData, new SquaresDiff(), modelData, forwardSolver);
+
+        // res_1, ..., res_n, power_1, ..., power_n-1, как в InverseSolver
+        variables = new double[2 * layers - 1];
+        for (int i = 0; i < layers; i++) {
+            variables[i] = Math.log(modelData.get(i).getResistance());
+        }
+        for (int i = 0; i < layers - 1; i++) {
+            variables[layers + i] = Math.log(modelData.get(i).getPower());
+        }
+    }
+
+    @Benchmark
+    public List<Double> forwardSolve() {
+        return forwardSolver.invoke(experimentalData, modelData);
+    }
+
+    @Benchmark
+    public List<Double> misfits() {
+        return misfitsFunction.invoke(experimentalData, modelData);
+    }
+
+    @Benchmark
+    public double functionValue() {
+        return functionValue.value(variables);
+    }
+}
@@ -0,0 +1,54 @@
+package ru.nucodelabs.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import ru.nucodelabs.geo.ves.ModelLayer;
+import ru.nucodelabs.geo.ves.Picket;
+import ru.nucodelabs.geo.ves.calc.inverse.InverseSolver;
+import ru.nucodelabs.geo.ves.calc.inverse.InversionMode;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Полная инверсия пикета, одна операция длится от долей секунды до минут.
+ * <p>
+ * Симплекс, не сошедшийся за MaxEval, возвращает лучшую найденную точку
+ * ({@link ru.nucodelabs.geo.ves.calc.inverse.TerminationReason#MAX_EVALUATIONS}),
+ * такая операция измеряет время до лимита вычислений. Модели от 3 до 40 слоев, как в {@link ForwardBenchmark}
+ * и как допускает {@code Picket.modelData}; на 40 слоях (79 параметров) операция симплекса длится минуты.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(1)
+public class InverseBenchmark {
+
+    @Param({"BURM1", "CHITA", "KAZAN", "SHIRA"})
+    public String dataset;
+
+    @Param({"3", "10", "20", "40"})
+    public int layers;
+
+    @Param({"NATIVE", "JVM"})
+    public String solver;
+
+    @Param({"SIMPLEX", "LEVENBERG_MARQUARDT"})
+    public String mode;
+
+    private Picket picket;
+    private InverseSolver inverseSolver;
+
+    @Setup(Level.Iteration)
+    public void setup() throws Exception {
+        picket = FieldData.loadPicket(dataset);
+        picket.setModelData(FieldData.layeredModel(picket.getEffectiveExperimentalData(), layers));
+        inverseSolver = new InverseSolver(() -> FieldData.forwardSolver(solver), InversionMode.valueOf(mode), 1);
+    }
+
+    @Benchmark
+    public List<ModelLayer> getOptimizedModelData() {
+        return inverseSolver.getOptimizedModelData(picket);
+    }
+}
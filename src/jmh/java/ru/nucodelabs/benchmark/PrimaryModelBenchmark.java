@@ -0,0 +1,36 @@
+package ru.nucodelabs.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import ru.nucodelabs.geo.ves.ExperimentalData;
+import ru.nucodelabs.geo.ves.ModelLayer;
+import ru.nucodelabs.geo.ves.calc.primarymodel.PrimaryModel;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Построение стартовой трехслойной модели
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PrimaryModelBenchmark {
+
+    @Param({"BURM1", "CHITA", "KAZAN", "SHIRA"})
+    public String dataset;
+
+    private List<ExperimentalData> experimentalData;
+
+    @Setup
+    public void setup() throws Exception {
+        experimentalData = FieldData.loadPicket(dataset).getEffectiveExperimentalData();
+    }
+
+    @Benchmark
+    public List<ModelLayer> get3LayersPrimaryModel() {
+        return new PrimaryModel(experimentalData).get3LayersPrimaryModel();
+    }
+}
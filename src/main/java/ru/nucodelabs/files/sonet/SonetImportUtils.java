@@ -1,82 +1,69 @@
 package ru.nucodelabs.files.sonet;
 
 import java.io.File;
+import java.nio.charset.Charset;
 import java.util.ArrayList;
-import java.util.Locale;
-import java.util.Scanner;
+import java.util.NoSuchElementException;
 
 final class SonetImportUtils {
     private SonetImportUtils() {
     } // чтобы нельзя было создать экземпляр класса Sonet
 
+    private static final Charset CP866 = Charset.forName("Cp866");
+
     static STTFile readSTT(File file) throws Exception {
         STTFile res = new STTFile();
-        Scanner sc = new Scanner(file).useLocale(Locale.US);
+        SonetReader reader = SonetReader.of(file, Charset.defaultCharset());
 
-        ArrayList<ArrayList<Double>> numbers = columnReader(sc, new STTFile().getColumnCnt());
+        SonetReader.Columns numbers = reader.readColumns(res.getColumnCnt());
 
-        res.getAB_2().addAll(
-                numbers.stream().map(s -> s.get(0)).toList());
-        res.getMN_2().addAll(
-                numbers.stream().map(s -> s.get(1)).toList());
+        addColumn(res.getAB_2(), numbers, 0);
+        addColumn(res.getMN_2(), numbers, 1);
 
-        sc.close();
         res.setFile(file);
         return res;
     }
 
     static EXPFile readEXP(File file) throws Exception {
         EXPFile res = new EXPFile();
-        Scanner sc = new Scanner(file, "Cp866").useLocale(Locale.US);
-        res.setSTTFileName(sc.nextLine());
-        readPassport(sc, res);
-        ArrayList<ArrayList<Double>> numbers = null;
-        if (sc.hasNext("\\$")) {
-            sc.next();
-            numbers = columnReader(sc, new EXPFile().getColumnCnt());
+        SonetReader reader = SonetReader.of(file, CP866);
+        res.setSTTFileName(reader.nextLine());
+        readPassport(reader, res);
+        if (!reader.hasNextDollar()) {
+            throw new NoSuchElementException("Нет строки $ перед данными в " + file.getName());
         }
-        assert numbers != null;
-
-        res.getAmperage().addAll(
-                numbers.stream().map(s -> s.get(0)).toList());
-        res.getVoltage().addAll(
-                numbers.stream().map(s -> s.get(1)).toList());
-        res.getResistanceApparent().addAll(
-                numbers.stream().map(s -> s.get(2)).toList());
-        res.getErrorResistanceApparent().addAll(
-                numbers.stream().map(s -> s.get(3)).toList());
-        res.getPolarizationApparent().addAll(
-                numbers.stream().map(s -> s.get(4)).toList());
-        res.getErrorPolarizationApparent().addAll(
-                numbers.stream().map(s -> s.get(5)).toList());
-
-        sc.close();
+        reader.skipToken();
+        SonetReader.Columns numbers = reader.readColumns(res.getColumnCnt());
+
+        addColumn(res.getAmperage(), numbers, 0);
+        addColumn(res.getVoltage(), numbers, 1);
+        addColumn(res.getResistanceApparent(), numbers, 2);
+        addColumn(res.getErrorResistanceApparent(), numbers, 3);
+        addColumn(res.getPolarizationApparent(), numbers, 4);
+        addColumn(res.getErrorPolarizationApparent(), numbers, 5);
+
         res.setFile(file);
         return res;
     }
 
     static MODFile readMOD(File file) throws Exception {
         MODFile res = new MODFile();
-        Scanner sc = new Scanner(file).useLocale(Locale.US);
+        SonetReader reader = SonetReader.of(file, Charset.defaultCharset());
 
-        ArrayList<ArrayList<Double>> numbers = columnReader(sc, new MODFile().getColumnCnt());
+        SonetReader.Columns numbers = reader.readColumns(res.getColumnCnt());
 
-        res.getResistance().addAll(
-                numbers.stream().map(s -> s.get(0)).toList());
-        res.getPower().addAll(
-                numbers.stream().map(s -> s.get(1)).toList());
-        res.getPolarization().addAll(
-                numbers.stream().map(s -> s.get(2)).toList());
+        addColumn(res.getResistance(), numbers, 0);
+        addColumn(res.getPower(), numbers, 1);
+        addColumn(res.getPolarization(), numbers, 2);
 
-        sc.close();
         res.setFile(file);
         return res;
     }
 
-    private static void readPassport(Scanner sc, EXPFile res) {
+    private static void readPassport(SonetReader reader, EXPFile res) {
         ArrayList<String> strList = new ArrayList<>();
-        while (sc.hasNextLine() && !sc.hasNext("\\$") && strList.size() < 6) {
-            strList.add(sc.nextLine());
+        while (reader.hasNextLine() && !reader.hasNextDollar() && strList.size() < 6) {
+            strList.add(reader.nextLine());
         }
         if (strList.size() > 0) res.setNumber(strList.get(0));
         if (strList.size() > 1) res.setDate(strList.get(1));
@@ -86,25 +73,10 @@ final class SonetImportUtils {
         if (strList.size() > 5) res.setChecked(strList.get(5));
     }
 
-    private static ArrayList<ArrayList<Double>> columnReader(Scanner sc, int colCnt) {
-        ArrayList<ArrayList<Double>> res = new ArrayList<>();
-        while (sc.hasNextLine() && !sc.hasNext("\\$") && !sc.hasNext("-1.0")) {
-            String str = sc.nextLine();
-            if (str.isBlank()) {
-                continue;
-            }
-            Scanner strSc = new Scanner(str).useLocale(Locale.US);
-            ArrayList<Double> numList = new ArrayList<>();
-            for (int i = 0; i < colCnt; i++) {
-                if (strSc.hasNext()) {
-                    numList.add(strSc.nextDouble());
-                } else {
-                    numList.add(0d);
-                }
-            }
-            res.add(numList);
-            strSc.close();
+    private static void addColumn(ArrayList<Double> to, SonetReader.Columns numbers, int column) {
+        to.ensureCapacity(to.size() + numbers.size());
+        for (int row = 0; row < numbers.size(); row++) {
+            to.add(numbers.get(column, row));
         }
-        return res;
     }
 }
@@ -0,0 +1,266 @@
+package ru.nucodelabs.files.sonet;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.InputMismatchException;
+import java.util.NoSuchElementException;
+
+/**
+ * Разбор файлов Sonet по байтам файла без {@link java.util.Scanner} и регулярных выражений.
+ * <p>
+ * Повторяет поведение {@code Scanner} с разделителями по умолчанию: пробельные символы — как в
+ * {@link Character#isWhitespace(char)}, строки разделяются {@code \r\n}, {@code \n} или {@code \r}.
+ * Числа разбираются сразу в столбцы {@code double[]}.
+ */
+final class SonetReader {
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10,
+            1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    // Мантисса до 2^53 и степень до 22 переводятся в double точно, одним умножением или делением
+    private static final long MAX_EXACT_MANTISSA = 1L << 53;
+
+    private final byte[] bytes;
+    private final Charset charset;
+    private int pos = 0;
+
+    SonetReader(byte[] bytes, Charset charset) {
+        this.bytes = bytes;
+        this.charset = charset;
+    }
+
+    static SonetReader of(File file, Charset charset) throws IOException {
+        return new SonetReader(Files.readAllBytes(file.toPath()), charset);
+    }
+
+    /**
+     * Столбцы чисел, заполненные строки — {@code 0 until size}
+     */
+    static final class Columns {
+        private double[][] data;
+        private int size = 0;
+
+        private Columns(int columnCnt) {
+            data = new double[columnCnt][16];
+        }
+
+        int size() {
+            return size;
+        }
+
+        double get(int column, int row) {
+            return data[column][row];
+        }
+
+        private void grow() {
+            if (size == data[0].length) {
+                for (int i = 0; i < data.length; i++) {
+                    data[i] = Arrays.copyOf(data[i], size * 2);
+                }
+            }
+        }
+    }
+
+    boolean hasNextLine() {
+        return pos < bytes.length;
+    }
+
+    /**
+     * Остаток текущей строки без разделителя
+     */
+    String nextLine() {
+        if (!hasNextLine()) {
+            throw new NoSuchElementException("No line found");
+        }
+        int start = pos;
+        int end = skipLine();
+        return new String(bytes, start, end - start, charset);
+    }
+
+    /**
+     * Следующая лексема, возможно на одной из следующих строк, — {@code $}
+     */
+    boolean hasNextDollar() {
+        int start = nextTokenStart();
+        return start < bytes.length && bytes[start] == '$' && tokenEnd(start) == start + 1;
+    }
+
+    /**
+     * Пропускает следующую лексему
+     */
+    void skipToken() {
+        int start = nextTokenStart();
+        if (start == bytes.length) {
+            throw new NoSuchElementException();
+        }
+        pos = tokenEnd(start);
+    }
+
+    /**
+     * Строки чисел до {@code $} или {@code -1.0} в начале строки или до конца файла.
+     * Пустые строки пропускаются, недостающие в строке числа — нули, лишние отбрасываются.
+     */
+    Columns readColumns(int columnCnt) {
+        Columns res = new Columns(columnCnt);
+        while (hasNextLine() && !hasNextDollar() && !hasNextEndMark()) {
+            int lineEnd = lineEnd(pos);
+            int p = pos;
+            skipLine();
+            if (isBlank(p, lineEnd)) {
+                continue;
+            }
+            res.grow();
+            for (int column = 0; column < columnCnt; column++) {
+                while (p < lineEnd && isWhitespace(bytes[p])) {
+                    p++;
+                }
+                if (p < lineEnd) {
+                    int end = tokenEnd(p);
+                    res.data[column][res.size] = parseDouble(p, end);
+                    p = end;
+                } else {
+                    res.data[column][res.size] = 0d;
+                }
+            }
+            res.size++;
+        }
+        return res;
+    }
+
+    // Как Scanner.hasNext("-1.0"): точка в шаблоне — любой символ
+    private boolean hasNextEndMark() {
+        int start = nextTokenStart();
+        return start < bytes.length
+                && tokenEnd(start) == start + 4
+                && bytes[start] == '-'
+                && bytes[start + 1] == '1'
+                && bytes[start + 3] == '0';
+    }
+
+    private double parseDouble(int start, int end) {
+        int p = start;
+        boolean negative = false;
+        if (bytes[p] == '-' || bytes[p] == '+') {
+            negative = bytes[p] == '-';
+            p++;
+        }
+        long mantissa = 0;
+        int digits = 0;
+        int exponent = 0;
+        boolean pointSeen = false;
+        for (; p < end; p++) {
+            byte b = bytes[p];
+            if (isDigit(b)) {
+                if (mantissa > MAX_EXACT_MANTISSA) {
+                    return parseDoubleSlow(start, end);
+                }
+                mantissa = mantissa * 10 + (b - '0');
+                digits++;
+                if (pointSeen) {
+                    exponent--;
+                }
+            } else if (b == '.' && !pointSeen) {
+                pointSeen = true;
+            } else {
+                break;
+            }
+        }
+        if (digits > 0 && p < end && (bytes[p] == 'e' || bytes[p] == 'E')) {
+            p++;
+            boolean negativeExp = false;
+            if (p < end && (bytes[p] == '-' || bytes[p] == '+')) {
+                negativeExp = bytes[p] == '-';
+                p++;
+            }
+            int expStart = p;
+            int exp = 0;
+            while (p < end && isDigit(bytes[p]) && exp < POWERS_OF_TEN.length) {
+                exp = exp * 10 + (bytes[p] - '0');
+                p++;
+            }
+            if (p == expStart) {
+                return parseDoubleSlow(start, end);
+            }
+            exponent += negativeExp ? -exp : exp;
+        }
+
+        if (digits == 0 || p != end || mantissa > MAX_EXACT_MANTISSA || Math.abs(exponent) >= POWERS_OF_TEN.length) {
+            return parseDoubleSlow(start, end);
+        }
+        double value = exponent >= 0
+                ? mantissa * POWERS_OF_TEN[exponent]
+                : mantissa / POWERS_OF_TEN[-exponent];
+        return negative ? -value : value;
+    }
+
+    private double parseDoubleSlow(int start, int end) {
+        String token = new String(bytes, start, end - start, charset);
+        try {
+            // Scanner с Locale.US допускает разделители разрядов
+            return Double.parseDouble(token.replace(",", ""));
+        } catch (NumberFormatException e) {
+            throw new InputMismatchException("For input string: \"" + token + "\"");
+        }
+    }
+
+    private int nextTokenStart() {
+        int p = pos;
+        while (p < bytes.length && isWhitespace(bytes[p])) {
+            p++;
+        }
+        return p;
+    }
+
+    private int tokenEnd(int start) {
+        int p = start;
+        while (p < bytes.length && !isWhitespace(bytes[p])) {
+            p++;
+        }
+        return p;
+    }
+
+    private int lineEnd(int start) {
+        int p = start;
+        while (p < bytes.length && bytes[p] != '\n' && bytes[p] != '\r') {
+            p++;
+        }
+        return p;
+    }
+
+    /**
+     * Переходит на начало следующей строки, возвращает конец текущей
+     */
+    private int skipLine() {
+        int end = lineEnd(pos);
+        pos = end;
+        if (pos < bytes.length && bytes[pos] == '\r') {
+            pos++;
+        }
+        if (pos < bytes.length && bytes[pos] == '\n' && (pos == end || bytes[pos - 1] == '\r')) {
+            pos++;
+        }
+        return end;
+    }
+
+    private boolean isBlank(int start, int end) {
+        for (int p = start; p < end; p++) {
+            if (!isWhitespace(bytes[p])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isDigit(byte b) {
+        return b >= '0' && b <= '9';
+    }
+
+    // Character.isWhitespace для однобайтовых кодировок с ASCII в первой половине
+    private static boolean isWhitespace(byte b) {
+        return b == ' ' || (b >= 0x09 && b <= 0x0D) || (b >= 0x1C && b <= 0x1F);
+    }
+}
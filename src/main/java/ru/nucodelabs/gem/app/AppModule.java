@@ -13,8 +13,14 @@ import javafx.fxml.FXMLLoader;
 import javafx.stage.Stage;
 import javafx.util.StringConverter;
 import ru.nucodelabs.geo.ves.calc.forward.ForwardSolver;
+import ru.nucodelabs.geo.ves.calc.inverse.InverseSolver;
+import ru.nucodelabs.geo.ves.calc.inverse.InversionMode;
+import ru.nucodelabs.geo.ves.calc.inverse.MultiStartInverseSolver;
+import ru.nucodelabs.geo.ves.calc.inverse.SectionInverseSolver;
+import ru.nucodelabs.geo.ves.calc.interpolation.SpatialInterpolation;
 import ru.nucodelabs.files.clr.ClrParser;
 import ru.nucodelabs.files.clr.ColorNode;
+import ru.nucodelabs.gem.app.io.BinarySectionFileManager;
 import ru.nucodelabs.gem.app.io.JacksonJsonFileManager;
 import ru.nucodelabs.gem.app.io.JsonFileManager;
 import ru.nucodelabs.gem.app.io.SonetImportManager;
@@ -36,9 +42,15 @@ import java.text.ParseException;
 import java.util.List;
 import java.util.Locale;
 import java.util.ResourceBundle;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
 import java.util.prefs.Preferences;
 
 import static com.fasterxml.jackson.module.kotlin.ExtensionsKt.jacksonObjectMapper;
+import static ru.nucodelabs.gem.app.pref.AppPreferencesKt.FORWARD_SOLVER;
+import static ru.nucodelabs.gem.app.pref.AppPreferencesKt.INVERSION_MODE;
+import static ru.nucodelabs.gem.app.pref.AppPreferencesKt.SPATIAL_INTERPOLATION;
 
 /**
  * Зависимости приложения, которое, по сути, создает MainView
@@ -102,6 +114,12 @@ public class AppModule extends AbstractModule {
         return SonetImportManager.create();
     }
 
+    @Provides
+    @Singleton
+    private BinarySectionFileManager provideBinarySectionFileManager() {
+        return BinarySectionFileManager.create();
+    }
+
     @Provides
     private Preferences preferences() {
         return Preferences.userNodeForPackage(GemApplication.class);
@@ -190,10 +208,89 @@ public class AppModule extends AbstractModule {
         return new ColorPalette(valueColorList, 0, 1500, 15);
     }
 
+    /**
+     * Создает новые экземпляры прямой задачи, например по одному на поток.
+     * JVM-решатель проверен только аналитически на двух слоях, совпадение с MathVES не проверено
+     */
+    @Provides
+    @Singleton
+    Supplier<ForwardSolver> forwardSolverFactory(Preferences preferences) {
+        String kind = System.getProperty(
+                "gem.forwardSolver",
+                preferences.get(FORWARD_SOLVER.getKey(), FORWARD_SOLVER.getDef())
+        );
+        if (kind.equalsIgnoreCase("JVM")) {
+            return ForwardSolver::createJvm;
+        }
+        return ForwardSolver::createDefault;
+    }
+
+    /**
+     * Общий экземпляр для графиков, одна и та же модель пикета решается один раз
+     */
+    @Provides
+    @Singleton
+    ForwardSolver forwardSolver(Supplier<ForwardSolver> forwardSolverFactory) {
+        return ForwardSolver.createCaching(forwardSolverFactory.get());
+    }
+
+    @Provides
+    @Singleton
+    InversionMode inversionMode(Preferences preferences) {
+        String mode = System.getProperty(
+                "gem.inversionMode",
+                preferences.get(INVERSION_MODE.getKey(), INVERSION_MODE.getDef())
+        );
+        try {
+            return InversionMode.valueOf(mode.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return InversionMode.SIMPLEX;
+        }
+    }
+
+    @Provides
+    @Singleton
+    SpatialInterpolation spatialInterpolation(Preferences preferences) {
+        String kind = System.getProperty(
+                "gem.spatialInterpolation",
+                preferences.get(SPATIAL_INTERPOLATION.getKey(), SPATIAL_INTERPOLATION.getDef())
+        );
+        try {
+            return SpatialInterpolation.valueOf(kind.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return SpatialInterpolation.AUTO;
+        }
+    }
+
+    @Provides
+    InverseSolver inverseSolver(Supplier<ForwardSolver> forwardSolverFactory, InversionMode mode) {
+        return new InverseSolver(forwardSolverFactory, mode, Runtime.getRuntime().availableProcessors());
+    }
+
+    @Provides
+    @Singleton
+    SectionInverseSolver sectionInverseSolver(Supplier<ForwardSolver> forwardSolverFactory, InversionMode mode) {
+        return new SectionInverseSolver(forwardSolverFactory, Runtime.getRuntime().availableProcessors(), mode);
+    }
+
+    @Provides
+    @Singleton
+    MultiStartInverseSolver multiStartInverseSolver(Supplier<ForwardSolver> forwardSolverFactory, InversionMode mode) {
+        return new MultiStartInverseSolver(forwardSolverFactory, mode, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Один фоновый поток для пересчета всех графиков, общая прямая задача не вызывается параллельно
+     */
     @Provides
     @Singleton
-    ForwardSolver forwardSolver() {
-        return ForwardSolver.createDefault();
+    @Named("ChartUpdate")
+    Executor chartUpdateExecutor() {
+        return Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "chart-update");
+            thread.setDaemon(true);
+            return thread;
+        });
     }
 
     @Provides
@@ -10,6 +10,7 @@ import javafx.stage.Stage
 import javafx.stage.Window
 import javafx.stage.WindowEvent
 import javafx.stage.WindowEvent.WINDOW_CLOSE_REQUEST
+import ru.nucodelabs.gem.app.io.BinarySectionFileManager
 import ru.nucodelabs.gem.util.OS
 import ru.nucodelabs.gem.util.OS.macOS
 import ru.nucodelabs.gem.view.AlertsFactory
@@ -83,7 +84,9 @@ class GemApplication : Application() {
         val params: List<String> = parameters.raw + macOSHandledFiles
         if (
             params.any {
-                it.endsWith(".EXP", ignoreCase = true) || it.endsWith(".json", ignoreCase = true)
+                it.endsWith(".EXP", ignoreCase = true)
+                        || it.endsWith(".json", ignoreCase = true)
+                        || BinarySectionFileManager.isBinarySection(File(it))
             }
         ) {
             processParams(params)
@@ -104,7 +107,7 @@ class GemApplication : Application() {
         for (param in params) {
             if (param.endsWith(".EXP", ignoreCase = true)) {
                 expFiles += File(param)
-            } else if (param.endsWith(".json", ignoreCase = true)) {
+            } else if (param.endsWith(".json", ignoreCase = true) || BinarySectionFileManager.isBinarySection(File(param))) {
                 loadMainViewWithJsonFile(File(param))
                 return true
             }
@@ -126,8 +129,8 @@ class GemApplication : Application() {
         fxmlLoaderAfterShow().getController<MainViewController>().run {
             expFiles.forEach {
                 logger.info("Import EXP, file: ${it.absolutePath}")
-                importEXP(it)
             }
+            importEXP(expFiles)
         }
 
     private fun fxmlLoaderAfterShow(): FXMLLoader = mainViewFxmlLoader().also { it.load<Stage>().show() }
@@ -0,0 +1,111 @@
+package ru.nucodelabs.gem.app.batch
+
+import ru.nucodelabs.geo.ves.calc.inverse.InversionMode
+import java.io.File
+import java.util.*
+
+/**
+ * Параметры пакетной обработки каталога файлов Sonet
+ * @property inputDir каталог с файлами `.EXP`, `.STT`, `.MOD`
+ * @property primaryModel строить первичную модель для пикетов без `.MOD`
+ * @property invert решать обратную задачу для всех пикетов
+ * @property mode метод минимизации
+ * @property jvmForwardSolver прямая задача на JVM вместо нативной библиотеки
+ * @property threadsCnt число потоков для обратной задачи
+ * @property jsonFile куда сохранить разрез
+ * @property misfitsFile куда сохранить таблицу погрешностей
+ */
+class BatchOptions(
+    val inputDir: File,
+    val primaryModel: Boolean = false,
+    val invert: Boolean = false,
+    val mode: InversionMode = InversionMode.SIMPLEX,
+    val jvmForwardSolver: Boolean = true,
+    val threadsCnt: Int = Runtime.getRuntime().availableProcessors(),
+    val jsonFile: File = File(inputDir, "${inputDir.absoluteFile.name}.json"),
+    val misfitsFile: File = File(inputDir, "${inputDir.absoluteFile.name}-misfits.csv")
+) {
+    companion object {
+        const val USAGE = """Использование: gem-batch [параметры] <каталог>
+Импортирует все .EXP (с .STT и одноименными .MOD) из каталога в разрез,
+сохраняет разрез в JSON и таблицу погрешностей в CSV.
+
+Параметры:
+  --primary          первичная модель для пикетов без .MOD
+  --invert           решить обратную задачу для всех пикетов с моделью
+  --mode <режим>     SIMPLEX (по умолчанию) или LEVENBERG_MARQUARDT
+  --forward <тип>    JVM (по умолчанию) или NATIVE
+  --threads <n>      число потоков, по умолчанию число процессоров
+  --json <файл>      разрез, по умолчанию <каталог>/<имя каталога>.json
+  --misfits <файл>   погрешности, по умолчанию <каталог>/<имя каталога>-misfits.csv
+  -h, --help         эта справка"""
+
+        /**
+         * Разбирает аргументы командной строки
+         * @throws IllegalArgumentException если аргументы некорректны
+         */
+        @JvmStatic
+        fun parse(args: Array<String>): BatchOptions {
+            var inputDir: File? = null
+            var primaryModel = false
+            var invert = false
+            var mode = InversionMode.SIMPLEX
+            var jvmForwardSolver = true
+            var threadsCnt = Runtime.getRuntime().availableProcessors()
+            var jsonFile: File? = null
+            var misfitsFile: File? = null
+
+            var i = 0
+            fun value(option: String): String {
+                require(i + 1 < args.size) { "Не указано значение для $option" }
+                return args[++i]
+            }
+            while (i < args.size) {
+                when (val arg = args[i]) {
+                    "--primary" -> primaryModel = true
+                    "--invert" -> invert = true
+                    "--mode" -> {
+                        val value = value(arg)
+                        mode = InversionMode.values().find { it.name.equals(value, ignoreCase = true) }
+                            ?: throw IllegalArgumentException("Неизвестный режим: $value")
+                    }
+                    "--forward" -> jvmForwardSolver = when (val value = value(arg).uppercase(Locale.ROOT)) {
+                        "JVM" -> true
+                        "NATIVE" -> false
+                        else -> throw IllegalArgumentException("Неизвестная прямая задача: $value")
+                    }
+                    "--threads" -> {
+                        val value = value(arg)
+                        threadsCnt = value.toIntOrNull()?.takeIf { it > 0 }
+                            ?: throw IllegalArgumentException("Некорректное число потоков: $value")
+                    }
+                    "--json" -> jsonFile = File(value(arg))
+                    "--misfits" -> misfitsFile = File(value(arg))
+                    else -> {
+                        require(!arg.startsWith("-")) { "Неизвестный параметр: $arg" }
+                        require(inputDir == null) { "Каталог указан дважды: $inputDir, $arg" }
+                        inputDir = File(arg)
+                    }
+                }
+                i++
+            }
+
+            val dir = requireNotNull(inputDir) { "Не указан каталог" }
+            require(dir.isDirectory) { "Не является каталогом: $dir" }
+            val defaults = BatchOptions(dir)
+            return BatchOptions(
+                inputDir = dir,
+                primaryModel = primaryModel,
+                invert = invert,
+                mode = mode,
+                jvmForwardSolver = jvmForwardSolver,
+                threadsCnt = threadsCnt,
+                jsonFile = jsonFile ?: defaults.jsonFile,
+                misfitsFile = misfitsFile ?: defaults.misfitsFile
+            )
+        }
+
+        @JvmStatic
+        fun isHelp(args: Array<String>) = args.isEmpty() || args.any { it == "-h" || it == "--help" }
+    }
+}
@@ -0,0 +1,243 @@
+package ru.nucodelabs.gem.app.batch
+
+import com.fasterxml.jackson.databind.SerializationFeature
+import com.fasterxml.jackson.module.kotlin.jacksonObjectMapper
+import jakarta.validation.Validation
+import jakarta.validation.Validator
+import ru.nucodelabs.gem.app.io.JacksonJsonFileManager
+import ru.nucodelabs.gem.app.io.JsonFileManager
+import ru.nucodelabs.gem.app.io.SonetImportManager
+import ru.nucodelabs.geo.ves.Picket
+import ru.nucodelabs.geo.ves.Section
+import ru.nucodelabs.geo.ves.calc.forward.ForwardSolver
+import ru.nucodelabs.geo.ves.calc.graph.MisfitsFunction
+import ru.nucodelabs.geo.ves.calc.inverse.InversionResult
+import ru.nucodelabs.geo.ves.calc.inverse.InversionTelemetry
+import ru.nucodelabs.geo.ves.calc.inverse.SectionInverseSolver
+import ru.nucodelabs.geo.ves.calc.inverse.inverse_functions.SquaresDiff
+import ru.nucodelabs.geo.ves.calc.primarymodel.PrimaryModel
+import java.io.File
+import java.io.PrintStream
+import java.util.*
+import java.util.concurrent.atomic.AtomicInteger
+import java.util.function.Supplier
+import kotlin.math.abs
+
+/**
+ * Пакетная обработка каталога без JavaFX: импорт, первичная модель, обратная задача, сохранение.
+ * Ошибки отдельных пикетов пишутся в [log] и не прерывают обработку.
+ * [close] закрывает фабрику валидаторов, после него экземпляр не используется.
+ */
+class SectionBatch @JvmOverloads constructor(
+    private val options: BatchOptions,
+    private val log: PrintStream = System.err,
+    private val importManager: SonetImportManager = SonetImportManager.create(),
+    private val jsonFileManager: JsonFileManager = JacksonJsonFileManager(
+        jacksonObjectMapper().enable(SerializationFeature.INDENT_OUTPUT)
+    )
+) : AutoCloseable {
+    private val forwardSolverFactory: Supplier<ForwardSolver> =
+        if (options.jvmForwardSolver) Supplier { ForwardSolver.createJvm() } else Supplier { ForwardSolver.createDefault() }
+
+    // Валидатор работает, только пока фабрика открыта
+    private val validatorFactory = lazy { Validation.buildDefaultValidatorFactory() }
+
+    private val validator: Validator by lazy { validatorFactory.value.validator }
+
+    /**
+     * Число пикетов, пропущенных или не решенных из-за ошибок
+     */
+    var errorsCnt = 0
+        private set
+
+    private val telemetry = HashMap<UUID, InversionTelemetry>()
+
+    /**
+     * Выполняет все этапы, возвращает итоговый разрез
+     */
+    fun run(): Section {
+        var pickets = importPickets()
+        if (options.primaryModel) {
+            pickets = makePrimaryModels(pickets)
+        }
+        if (options.invert) {
+            pickets = invert(pickets)
+        }
+        val section = Section(pickets)
+        jsonFileManager.saveToJson(options.jsonFile, section)
+        log.println("Разрез сохранен: ${options.jsonFile}")
+        writeMisfits(pickets, options.misfitsFile)
+        log.println("Погрешности сохранены: ${options.misfitsFile}")
+        return section
+    }
+
+    override fun close() {
+        if (validatorFactory.isInitialized()) {
+            validatorFactory.value.close()
+        }
+    }
+
+    /**
+     * Пикеты из всех `.EXP` каталога по алфавиту, модель из одноименного `.MOD`, если есть
+     */
+    fun importPickets(): List<Picket> {
+        val files = options.inputDir.listFiles()?.filter { it.isFile }.orEmpty()
+        val modFiles = files.filter { it.extension.equals("mod", ignoreCase = true) }
+            .associateBy { it.nameWithoutExtension.lowercase(Locale.ROOT) }
+        val expFiles = files.filter { it.extension.equals("exp", ignoreCase = true) }
+            .sortedBy { it.name.lowercase(Locale.ROOT) }
+
+        val pickets = ArrayList<Picket>(expFiles.size)
+        for (expFile in expFiles) {
+            try {
+                var picket = importManager.fromEXPFile(expFile)
+                val modFile = modFiles[expFile.nameWithoutExtension.lowercase(Locale.ROOT)]
+                if (modFile != null) {
+                    picket = picket.copy(modelData = importManager.fromMODFile(modFile))
+                }
+                val violations = validator.validate(picket)
+                if (violations.isNotEmpty()) {
+                    reportError(expFile.name, violations.joinToString { "${it.propertyPath}: ${it.message}" })
+                    continue
+                }
+                pickets += picket
+            } catch (e: Exception) {
+                reportError(expFile.name, e)
+            }
+        }
+        log.println("Импортировано пикетов: ${pickets.size} из ${expFiles.size}")
+        return pickets
+    }
+
+    /**
+     * Трехслойная первичная модель для пикетов без модели
+     */
+    fun makePrimaryModels(pickets: List<Picket>): List<Picket> = pickets.map { picket ->
+        if (picket.modelData.isNotEmpty()) {
+            return@map picket
+        }
+        try {
+            picket.copy(modelData = PrimaryModel(picket.sortedExperimentalData).get3LayersPrimaryModel())
+        } catch (e: IllegalStateException) {
+            reportError(picket.name, e)
+            picket
+        }
+    }
+
+    /**
+     * Обратная задача для всех пикетов с моделью, параллельно на [BatchOptions.threadsCnt] потоках
+     */
+    fun invert(pickets: List<Picket>): List<Picket> {
+        val solver = SectionInverseSolver(forwardSolverFactory, options.threadsCnt, options.mode)
+        val solved = arrayOfNulls<InversionResult>(pickets.size)
+        val totalCnt = pickets.count { solver.isSolvable(it) }
+        val doneCnt = AtomicInteger(0)
+        val start = System.nanoTime()
+        val job = solver.solveAsync(pickets, object : SectionInverseSolver.Listener {
+            override fun onPicketSolved(index: Int, picket: Picket, result: InversionResult) {
+                synchronized(solved) { solved[index] = result }
+                progress(doneCnt.incrementAndGet())
+            }
+
+            override fun onPicketFailed(index: Int, picket: Picket, e: Exception) {
+                progress(doneCnt.incrementAndGet())
+            }
+
+            fun progress(done: Int) {
+                if (done % PROGRESS_STEP == 0) {
+                    log.println("Обратная задача: $done из $totalCnt")
+                }
+            }
+        })
+        val result = job.completion.get()
+        for ((index, e) in result.errors) {
+            reportError(pickets[index].name, e)
+        }
+        log.println(
+            "Обратная задача решена для ${result.solvedCnt} из ${job.totalCnt} пикетов " +
+                    "за ${(System.nanoTime() - start) / 1_000_000} мс"
+        )
+        return synchronized(solved) {
+            pickets.mapIndexed { i, picket ->
+                val inversion = solved[i] ?: return@mapIndexed picket
+                telemetry[picket.id] = inversion.telemetry
+                picket.copy(modelData = inversion.modelData)
+            }
+        }
+    }
+
+    /**
+     * CSV: имя, число слоев, целевая функция, отклонение и погрешность (средние и максимальные),
+     * данные об инверсии, если она выполнялась
+     */
+    fun writeMisfits(pickets: List<Picket>, file: File) {
+        val forwardSolver = forwardSolverFactory.get()
+        val misfitsFunction = MisfitsFunction.createDefault(forwardSolver)
+        var misfitsAvailable = true
+        file.printWriter().use { out ->
+            out.println(CSV_HEADER.joinToString(","))
+            for (picket in pickets) {
+                val row = ArrayList<String>()
+                row += csvQuoted(picket.name)
+                row += picket.offsetX.toString()
+                row += picket.modelData.size.toString()
+
+                val experimental = picket.effectiveExperimentalData
+                if (experimental.isEmpty() || picket.modelData.isEmpty()) {
+                    repeat(5) { row += "" }
+                } else {
+                    val theoretical = forwardSolver(experimental, picket.modelData)
+                    val measured = experimental.map { it.resistanceApparent }
+                    val deviations = measured.mapIndexed { i, resApp -> abs((resApp - theoretical[i]) / resApp) }
+                    row += SquaresDiff().apply(theoretical, measured).toString()
+                    row += deviations.average().toString()
+                    row += deviations.maxOf { it }.toString()
+                    val misfits = if (misfitsAvailable) {
+                        try {
+                            misfitsFunction(experimental, picket.modelData).map { abs(it) }
+                        } catch (e: UnsatisfiedLinkError) {
+                            log.println("Погрешность не вычисляется без нативной библиотеки: ${e.message}")
+                            misfitsAvailable = false
+                            null
+                        }
+                    } else {
+                        null
+                    }
+                    row += misfits?.average()?.toString() ?: ""
+                    row += misfits?.maxOf { it }?.toString() ?: ""
+                }
+
+                val inversion = telemetry[picket.id]
+                if (inversion == null) {
+                    repeat(4) { row += "" }
+                } else {
+                    row += inversion.iterations.toString()
+                    row += inversion.forwardCalls.toString()
+                    row += (inversion.wallTimeNanos / 1_000_000).toString()
+                    row += inversion.terminationReason.name
+                }
+                out.println(row.joinToString(","))
+            }
+        }
+    }
+
+    private fun reportError(name: String, e: Exception) = reportError(name, e.message ?: e.toString())
+
+    private fun reportError(name: String, message: String) {
+        errorsCnt++
+        log.println("$name: $message")
+    }
+
+    companion object {
+        private const val PROGRESS_STEP = 50
+
+        private val CSV_HEADER = listOf(
+            "name", "offsetX", "layers",
+            "targetFunction", "deviationAvg", "deviationMax", "errorAvgPercent", "errorMaxPercent",
+            "iterations", "forwardCalls", "inversionTimeMs", "termination"
+        )
+
+        private fun csvQuoted(value: String) =
+            if (value.any { it == ',' || it == '"' || it == '\n' }) "\"${value.replace("\"", "\"\"")}\"" else value
+    }
+}
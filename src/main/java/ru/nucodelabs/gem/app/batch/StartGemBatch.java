@@ -0,0 +1,36 @@
+package ru.nucodelabs.gem.app.batch;
+
+/**
+ * Main пакетной обработки (gem-batch), работает без JavaFX
+ */
+public class StartGemBatch {
+
+    public static void main(String[] args) {
+        if (BatchOptions.isHelp(args)) {
+            System.out.println(BatchOptions.USAGE);
+            return;
+        }
+        BatchOptions options;
+        try {
+            options = BatchOptions.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(BatchOptions.USAGE);
+            System.exit(2);
+            return;
+        }
+        //System.exit только после close(), иначе фабрика валидаторов не закроется
+        int exitCode;
+        try (SectionBatch batch = new SectionBatch(options)) {
+            if (batch.run().getPickets().isEmpty()) {
+                exitCode = 2;
+            } else {
+                exitCode = batch.getErrorsCnt() > 0 ? 1 : 0;
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+            exitCode = 2;
+        }
+        System.exit(exitCode);
+    }
+}
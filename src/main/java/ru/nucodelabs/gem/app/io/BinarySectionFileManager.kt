@@ -0,0 +1,26 @@
+package ru.nucodelabs.gem.app.io
+
+import ru.nucodelabs.geo.ves.Section
+import java.io.File
+
+/**
+ * Двоичный формат разреза: заголовок с индексом пикетов и столбцы чисел каждого пикета.
+ * Хранит то же, что и JSON, столбцы читаются и пишутся блоками без разбора текста.
+ */
+interface BinarySectionFileManager {
+    @Throws(Exception::class)
+    fun loadSection(file: File): Section
+
+    @Throws(Exception::class)
+    fun saveSection(file: File, section: Section)
+
+    companion object Factory {
+        const val EXTENSION = "bin"
+
+        @JvmStatic
+        fun create(): BinarySectionFileManager = ColumnarBinarySectionFileManager()
+
+        @JvmStatic
+        fun isBinarySection(file: File): Boolean = file.name.endsWith(".$EXTENSION", ignoreCase = true)
+    }
+}
@@ -0,0 +1,200 @@
+package ru.nucodelabs.gem.app.io
+
+import ru.nucodelabs.geo.ves.ExperimentalData
+import ru.nucodelabs.geo.ves.ModelLayer
+import ru.nucodelabs.geo.ves.Picket
+import ru.nucodelabs.geo.ves.Section
+import java.io.BufferedOutputStream
+import java.io.DataOutputStream
+import java.io.File
+import java.io.IOException
+import java.nio.BufferUnderflowException
+import java.nio.ByteBuffer
+import java.nio.file.AtomicMoveNotSupportedException
+import java.nio.file.Files
+import java.nio.file.StandardCopyOption
+
+/**
+ * Формат файла, все числа big-endian:
+ *
+ * - заголовок: `int` [MAGIC], `int` [FORMAT_VERSION], `int` число пикетов `n`, `int` 0;
+ * - `long[n + 1]` смещения блоков пикетов от начала файла, последнее — конец последнего блока;
+ * - блок пикета, длина кратна 8: `double` offsetX, `double` z, `int` число измерений `e`, `int` число слоев `m`,
+ * `int` длины имени и комментария в байтах UTF-8, затем столбцы `double[e]` AB/2, MN/2, ток, напряжение,
+ * кажущееся сопротивление, погрешность, `double[m]` мощности и сопротивления слоев,
+ * `byte[e]` отключенность измерений, `byte[m]` закрепленность слоев (бит 0 — мощность, бит 1 — сопротивление),
+ * имя, комментарий.
+ *
+ * Файл читается в память целиком одним вызовом, столбцы пикетов копируются из него блоками.
+ * Файл не остается открытым или отображенным после чтения, поэтому его можно сразу перезаписать.
+ * Запись идет во временный файл рядом, который затем заменяет [File] целиком.
+ */
+internal class ColumnarBinarySectionFileManager : BinarySectionFileManager {
+
+    override fun loadSection(file: File): Section {
+        if (file.length() > Int.MAX_VALUE) {
+            throw IOException("Файл разреза больше 2 ГБ: ${file.absolutePath}")
+        }
+        val buffer = ByteBuffer.wrap(file.readBytes())
+        if (buffer.limit() < HEADER_BYTES || buffer.getInt(0) != MAGIC) {
+            throw IOException("Не файл разреза: ${file.absolutePath}")
+        }
+        val version = buffer.getInt(4)
+        if (version != FORMAT_VERSION) {
+            throw IOException("Неподдерживаемая версия файла разреза: $version")
+        }
+        val picketsCnt = buffer.getInt(8)
+        if (picketsCnt < 0 || HEADER_BYTES + (picketsCnt + 1L) * Long.SIZE_BYTES > buffer.limit()) {
+            throw IOException("Поврежден индекс пикетов: ${file.absolutePath}")
+        }
+        val offsets = IntArray(picketsCnt + 1)
+        val indexEnd = HEADER_BYTES + (picketsCnt + 1) * Long.SIZE_BYTES
+        for (i in offsets.indices) {
+            val offset = buffer.getLong(HEADER_BYTES + i * Long.SIZE_BYTES)
+            if (offset < indexEnd || offset > buffer.limit() || (i > 0 && offset < offsets[i - 1])) {
+                throw IOException("Поврежден индекс пикетов: ${file.absolutePath}")
+            }
+            offsets[i] = offset.toInt()
+        }
+        try {
+            return Section(List(picketsCnt) { readPicket(buffer, offsets[it], offsets[it + 1]) })
+        } catch (e: BufferUnderflowException) {
+            throw IOException("Поврежден блок пикета: ${file.absolutePath}", e)
+        }
+    }
+
+    override fun saveSection(file: File, section: Section) {
+        val pickets = section.pickets.toList()
+        val names = pickets.map { it.name.toByteArray(Charsets.UTF_8) }
+        val comments = pickets.map { it.comment.toByteArray(Charsets.UTF_8) }
+        val offsets = LongArray(pickets.size + 1)
+        offsets[0] = HEADER_BYTES + (pickets.size + 1L) * Long.SIZE_BYTES
+        for (i in pickets.indices) {
+            offsets[i + 1] = offsets[i] + blockBytes(pickets[i], names[i].size + comments[i].size)
+        }
+
+        val target = file.absoluteFile.toPath()
+        val temp = Files.createTempFile(target.parent, file.name, ".tmp")
+        try {
+            DataOutputStream(BufferedOutputStream(Files.newOutputStream(temp), BUFFER_BYTES)).use { out ->
+                out.writeInt(MAGIC)
+                out.writeInt(FORMAT_VERSION)
+                out.writeInt(pickets.size)
+                out.writeInt(0)
+                offsets.forEach { out.writeLong(it) }
+                for (i in pickets.indices) {
+                    writePicket(out, pickets[i], names[i], comments[i], (offsets[i + 1] - offsets[i]).toInt())
+                }
+            }
+            try {
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING)
+            } catch (e: AtomicMoveNotSupportedException) {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING)
+            }
+        } finally {
+            Files.deleteIfExists(temp)
+        }
+    }
+
+    private fun blockBytes(picket: Picket, stringBytes: Int): Int {
+        val e = picket.sortedExperimentalData.size
+        val m = picket.modelData.size
+        val bytes = BLOCK_HEADER_BYTES + Double.SIZE_BYTES * (EXPERIMENTAL_COLUMNS * e + MODEL_COLUMNS * m) + e + m + stringBytes
+        return (bytes + 7) and 7.inv()
+    }
+
+    private fun writePicket(out: DataOutputStream, picket: Picket, name: ByteArray, comment: ByteArray, blockBytes: Int) {
+        val columns = picket.sortedColumns
+        val modelData = picket.modelData
+        out.writeDouble(picket.offsetX)
+        out.writeDouble(picket.z)
+        out.writeInt(columns.size)
+        out.writeInt(modelData.size)
+        out.writeInt(name.size)
+        out.writeInt(comment.size)
+        for (column in listOf(
+            columns.ab2, columns.mn2, columns.amperage, columns.voltage,
+            columns.resistanceApparent, columns.errorResistanceApparent
+        )) {
+            column.forEach { out.writeDouble(it) }
+        }
+        modelData.forEach { out.writeDouble(it.power) }
+        modelData.forEach { out.writeDouble(it.resistance) }
+        for (i in 0 until columns.size) {
+            out.writeByte(if (columns.isHidden(i)) 1 else 0)
+        }
+        modelData.forEach {
+            out.writeByte((if (it.isFixedPower) FIXED_POWER else 0) or (if (it.isFixedResistance) FIXED_RESISTANCE else 0))
+        }
+        out.write(name)
+        out.write(comment)
+        val written = BLOCK_HEADER_BYTES + Double.SIZE_BYTES * (EXPERIMENTAL_COLUMNS * columns.size + MODEL_COLUMNS * modelData.size) +
+                columns.size + modelData.size + name.size + comment.size
+        repeat(blockBytes - written) { out.writeByte(0) }
+    }
+
+    private fun readPicket(source: ByteBuffer, start: Int, end: Int): Picket {
+        val buffer = source.duplicate().limit(end).position(start)
+        val offsetX = buffer.double
+        val z = buffer.double
+        val e = buffer.int
+        val m = buffer.int
+        val nameBytes = buffer.int
+        val commentBytes = buffer.int
+        if (e < 0 || m < 0 || nameBytes < 0 || commentBytes < 0) {
+            throw IOException("Поврежден блок пикета по смещению $start")
+        }
+
+        val doubles = buffer.asDoubleBuffer()
+        val experimental = Array(EXPERIMENTAL_COLUMNS) { DoubleArray(e).also { doubles.get(it) } }
+        val power = DoubleArray(m).also { doubles.get(it) }
+        val resistance = DoubleArray(m).also { doubles.get(it) }
+        buffer.position(buffer.position() + Double.SIZE_BYTES * doubles.position())
+
+        val hidden = ByteArray(e).also { buffer.get(it) }
+        val fixed = ByteArray(m).also { buffer.get(it) }
+        val name = ByteArray(nameBytes).also { buffer.get(it) }
+        val comment = ByteArray(commentBytes).also { buffer.get(it) }
+
+        val (ab2, mn2, amperage, voltage, resistanceApparent) = experimental
+        val errorResistanceApparent = experimental[5]
+        return Picket(
+            name = String(name, Charsets.UTF_8),
+            experimentalData = List(e) {
+                ExperimentalData(
+                    ab2 = ab2[it],
+                    mn2 = mn2[it],
+                    amperage = amperage[it],
+                    voltage = voltage[it],
+                    resistanceApparent = resistanceApparent[it],
+                    errorResistanceApparent = errorResistanceApparent[it],
+                    isHidden = hidden[it].toInt() != 0
+                )
+            },
+            modelData = List(m) {
+                ModelLayer(
+                    power = power[it],
+                    resistance = resistance[it],
+                    isFixedPower = fixed[it].toInt() and FIXED_POWER != 0,
+                    isFixedResistance = fixed[it].toInt() and FIXED_RESISTANCE != 0
+                )
+            },
+            offsetX = offsetX,
+            z = z,
+            comment = String(comment, Charsets.UTF_8)
+        )
+    }
+
+    companion object {
+        // "GEMB"
+        private const val MAGIC = 0x47454D42
+        private const val FORMAT_VERSION = 1
+        private const val HEADER_BYTES = 16
+        private const val BLOCK_HEADER_BYTES = 32
+        private const val EXPERIMENTAL_COLUMNS = 6
+        private const val MODEL_COLUMNS = 2
+        private const val FIXED_POWER = 1
+        private const val FIXED_RESISTANCE = 2
+        private const val BUFFER_BYTES = 1 shl 16
+    }
+}
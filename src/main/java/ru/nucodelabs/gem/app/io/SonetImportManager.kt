@@ -17,6 +17,18 @@ interface SonetImportManager {
     @Throws(Exception::class)
     fun fromMODFile(modFile: File): List<ModelLayer>
 
+    /**
+     * Загружает пикеты из нескольких файлов параллельно, общие `.STT` разбираются один раз.
+     * Ошибка в одном файле не прерывает загрузку остальных.
+     */
+    fun fromEXPFiles(expFiles: List<File>): BulkImport
+
+    /**
+     * @property pickets пикеты загруженных файлов в порядке файлов
+     * @property errors ошибки по файлам, которые не удалось загрузить
+     */
+    class BulkImport(val pickets: List<Picket>, val errors: Map<File, Exception>)
+
     companion object Factory {
         @JvmStatic
         fun create(): SonetImportManager = SonetImportManagerImpl()
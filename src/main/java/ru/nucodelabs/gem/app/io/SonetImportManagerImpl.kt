@@ -5,15 +5,39 @@ import ru.nucodelabs.geo.ves.ExperimentalData
 import ru.nucodelabs.geo.ves.ModelLayer
 import ru.nucodelabs.geo.ves.Picket
 import java.io.File
+import java.util.concurrent.ConcurrentHashMap
 
 internal class SonetImportManagerImpl : SonetImportManager {
 
+    /**
+     * Разобранный `.STT` и время изменения файла, по которому он разобран
+     */
+    private class CachedSTT(val lastModified: Long, val stt: STTFile)
+
+    // По каноническому пути, разобранные файлы только читаются
+    private val sttCache = ConcurrentHashMap<String, CachedSTT>()
+
     private fun parseExpWithStt(expFile: File): Pair<EXPFile, STTFile> {
         val expParsed = EXPFileParser(expFile).parse()
         val expFilePath = expFile.toPath()
-        return expParsed to STTFileParser(
+        return expParsed to parseStt(
             File("${expFilePath.parent}${File.separator}${expParsed.sttFileName}")
-        ).parse()
+        )
+    }
+
+    /**
+     * Один `.STT` обычно общий для многих `.EXP`, поэтому заново разбирается только после изменения
+     */
+    private fun parseStt(sttFile: File): STTFile {
+        val path = sttFile.canonicalPath
+        val lastModified = sttFile.lastModified()
+        val cached = sttCache[path]
+        if (cached != null && cached.lastModified == lastModified) {
+            return cached.stt
+        }
+        val parsed = STTFileParser(sttFile).parse()
+        sttCache[path] = CachedSTT(lastModified, parsed)
+        return parsed
     }
 
     private fun parseExperimentalDataAndComment(expFile: File): Pair<List<ExperimentalData>, String> {
@@ -70,6 +94,28 @@ internal class SonetImportManagerImpl : SonetImportManager {
         )
     }
 
+    override fun fromEXPFiles(expFiles: List<File>): SonetImportManager.BulkImport {
+        val results: List<Any> = expFiles.parallelStream()
+            .map { file ->
+                try {
+                    fromEXPFile(file)
+                } catch (e: Exception) {
+                    e
+                }
+            }
+            .toList()
+
+        val pickets = ArrayList<Picket>(expFiles.size)
+        val errors = LinkedHashMap<File, Exception>()
+        for ((i, result) in results.withIndex()) {
+            when (result) {
+                is Picket -> pickets += result
+                is Exception -> errors[expFiles[i]] = result
+            }
+        }
+        return SonetImportManager.BulkImport(pickets, errors)
+    }
+
     override fun fromMODFile(modFile: File): List<ModelLayer> {
         val modParsed = MODFileParser(modFile).parse()
 
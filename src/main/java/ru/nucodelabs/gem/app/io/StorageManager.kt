@@ -8,6 +8,7 @@ import javax.inject.Inject
 class StorageManager @Inject constructor(
     private val jsonFileManager: JsonFileManager,
     private val sonetImportManager: SonetImportManager,
+    private val binarySectionFileManager: BinarySectionFileManager,
 ) : JsonFileManager by jsonFileManager, SonetImportManager by sonetImportManager {
     var savedSnapshot: Snapshot<Section> = Snapshot.of(Section())
         private set
@@ -35,4 +36,32 @@ class StorageManager @Inject constructor(
             savedSnapshotFile = jsonFile
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Загружает разрез из двоичного файла (расширение [BinarySectionFileManager.EXTENSION]) или из JSON
+     */
+    @Throws(Exception::class)
+    fun loadSection(file: File): Section {
+        if (!BinarySectionFileManager.isBinarySection(file)) {
+            return loadFromJson(file, Section::class.java)
+        }
+        val loaded = binarySectionFileManager.loadSection(file)
+        savedSnapshot = Snapshot.of(loaded)
+        savedSnapshotFile = file
+        return loaded
+    }
+
+    /**
+     * Сохраняет разрез в двоичный файл (расширение [BinarySectionFileManager.EXTENSION]) или в JSON
+     */
+    @Throws(Exception::class)
+    fun saveSection(file: File, section: Section) {
+        if (!BinarySectionFileManager.isBinarySection(file)) {
+            saveToJson(file, section)
+            return
+        }
+        binarySectionFileManager.saveSection(file, section)
+        savedSnapshot = Snapshot.of(section)
+        savedSnapshotFile = file
+    }
+}
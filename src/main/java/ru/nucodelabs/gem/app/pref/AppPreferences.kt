@@ -29,3 +29,32 @@ val MAIN_WINDOW_W = Preference("WINDOW_W", 1280.0)
 @JvmField
 val MAIN_WINDOW_H = Preference("WINDOW_H", 720.0)
 
+/**
+ * Реализация прямой задачи: `NATIVE` или `JVM`
+ */
+@JvmField
+val FORWARD_SOLVER = Preference("FORWARD_SOLVER", "NATIVE")
+
+/**
+ * Метод минимизации в обратной задаче, имя константы [ru.nucodelabs.geo.ves.calc.inverse.InversionMode]
+ */
+@JvmField
+val INVERSION_MODE = Preference("INVERSION_MODE", "SIMPLEX")
+
+/**
+ * Интерполяция пропущенных точек псевдоразреза, имя константы [ru.nucodelabs.geo.ves.calc.interpolation.SpatialInterpolation]
+ */
+@JvmField
+val SPATIAL_INTERPOLATION = Preference("SPATIAL_INTERPOLATION", "AUTO")
+
+/**
+ * Наибольшее число шагов отмены
+ */
+@JvmField
+val HISTORY_MAX_ENTRIES = Preference("HISTORY_MAX_ENTRIES", 500)
+
+/**
+ * Наибольший примерный объем истории отмены, МБ
+ */
+@JvmField
+val HISTORY_MAX_MEMORY_MB = Preference("HISTORY_MAX_MEMORY_MB", 256L)
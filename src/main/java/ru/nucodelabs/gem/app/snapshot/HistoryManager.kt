@@ -3,22 +3,81 @@ package ru.nucodelabs.gem.app.snapshot
 import ru.nucodelabs.gem.app.snapshot.Snapshot.Originator
 import javax.inject.Inject
 
-class HistoryManager<T> @Inject constructor(private val originator: Originator<T>) {
-    private var history: MutableList<Snapshot<T>> = mutableListOf()
+/**
+ * История снимков для отмены и повтора.
+ *
+ * Снимок делается, только если [Originator.version] изменилась с последнего снимка или восстановления,
+ * сами состояния не сравниваются. Старые снимки удаляются, если их больше [maxEntries]
+ * или их оценка памяти по [weigher] больше [maxWeight]; текущий снимок не удаляется никогда.
+ *
+ * @param maxEntries наибольшее число снимков
+ * @param maxWeight наибольший суммарный объем снимков, в единицах [weigher]
+ * @param weigher оценка объема снимка с учетом общих с предыдущим частей
+ */
+class HistoryManager<T>(
+    private val originator: Originator<T>,
+    private val maxEntries: Int,
+    private val maxWeight: Long,
+    private val weigher: Weigher<T>
+) {
+    @Inject
+    constructor(originator: Originator<T>) : this(originator, DEFAULT_MAX_ENTRIES, Long.MAX_VALUE, Weigher { _, _ -> 0L })
+
+    init {
+        require(maxEntries > 0) { "maxEntries должно быть положительным: $maxEntries" }
+    }
+
+    fun interface Weigher<T> {
+        /**
+         * Примерный объем [current] без частей, общих с [previous] (`null` — предыдущего снимка нет)
+         */
+        fun weigh(previous: T?, current: T): Long
+    }
+
+    /**
+     * @property version версия оригинатора, совпадающая по состоянию с этим снимком
+     */
+    private class Entry<T>(val snapshot: Snapshot<T>, var version: Long, var weight: Long)
+
+    private val history = ArrayDeque<Entry<T>>()
     private var position = 0
+    private var totalWeight = 0L
+
+    private var isGesture = false
+
+    // Снимок текущего жеста, следующие снимки жеста заменяют его
+    private var gestureEntry: Entry<T>? = null
+
+    val size: Int
+        get() = history.size
 
     /**
      * Makes a snapshot of originator
      */
     fun snapshot() {
-        val snapshot = originator.snapshot()
-        if (history.isEmpty() || history[position] != snapshot) {
-            if (position < history.lastIndex) {
-                history = history.subList(0, position + 1)
+        val version = originator.version
+        if (history.isNotEmpty() && history[position].version == version) {
+            return
+        }
+
+        val gesture = gestureEntry
+        if (gesture != null && history.isNotEmpty() && history[position] === gesture && position == history.lastIndex) {
+            removeLast()
+        } else {
+            while (history.isNotEmpty() && position < history.lastIndex) {
+                removeLast()
             }
-            history += snapshot
-            position = history.lastIndex
         }
+
+        val snapshot = originator.snapshot()
+        val entry = Entry(snapshot, version, weigher.weigh(history.lastOrNull()?.snapshot?.value, snapshot.value))
+        history += entry
+        totalWeight += entry.weight
+        position = history.lastIndex
+        if (isGesture) {
+            gestureEntry = entry
+        }
+        evict()
     }
 
     /**
@@ -30,20 +89,43 @@ class HistoryManager<T> @Inject constructor(private val originator: Originator<T
         snapshot()
     }
 
+    /**
+     * Начинает непрерывный жест (например, перетаскивание): все снимки до [endGesture] станут одним шагом отмены.
+     * Повторный вызов до [endGesture] продолжает тот же жест.
+     */
+    fun beginGesture() {
+        isGesture = true
+    }
+
+    /**
+     * Делает снимок и завершает жест
+     */
+    fun endGesture() {
+        snapshot()
+        isGesture = false
+        gestureEntry = null
+    }
+
     /**
      * Restores originator from next snapshot in history if it exists else do nothing
      */
-    fun redo() = snapshotToRedo()?.let { originator.restoreFromSnapshot(it) }
+    fun redo() = snapshotToRedo()?.let { restore(it) }
 
     /**
      * Restore originator from previous snapshot in history if it exists else do nothing
      */
-    fun undo() = snapshotToUndo()?.let { originator.restoreFromSnapshot(it) }
+    fun undo() = snapshotToUndo()?.let { restore(it) }
+
+    private fun restore(entry: Entry<T>) {
+        gestureEntry = null
+        originator.restoreFromSnapshot(entry.snapshot)
+        entry.version = originator.version
+    }
 
     /**
      * Returns previous snapshot if it exists and change position
      */
-    private fun snapshotToUndo(): Snapshot<T>? {
+    private fun snapshotToUndo(): Entry<T>? {
         if (history.isEmpty() || position == 0) {
             return null
         }
@@ -54,7 +136,7 @@ class HistoryManager<T> @Inject constructor(private val originator: Originator<T
     /**
      * Returns next snapshot if it exists and changes position
      */
-    private fun snapshotToRedo(): Snapshot<T>? {
+    private fun snapshotToRedo(): Entry<T>? {
         if (history.isEmpty() || position == history.lastIndex) {
             return null
         }
@@ -62,11 +144,33 @@ class HistoryManager<T> @Inject constructor(private val originator: Originator<T
         return history[position]
     }
 
+    private fun removeLast() {
+        totalWeight -= history.removeLast().weight
+    }
+
+    private fun evict() {
+        while (position > 0 && (history.size > maxEntries || totalWeight > maxWeight)) {
+            totalWeight -= history.removeFirst().weight
+            position--
+            // первый снимок больше не делит память с удаленным
+            val first = history.first()
+            totalWeight -= first.weight
+            first.weight = weigher.weigh(null, first.snapshot.value)
+            totalWeight += first.weight
+        }
+    }
+
     /**
      * Reset
      */
     fun clear() {
         history.clear()
         position = 0
+        totalWeight = 0
+        gestureEntry = null
+    }
+
+    companion object {
+        const val DEFAULT_MAX_ENTRIES = 500
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,36 @@
+package ru.nucodelabs.gem.app.snapshot
+
+import ru.nucodelabs.geo.ves.Picket
+import ru.nucodelabs.geo.ves.Section
+import java.util.*
+
+/**
+ * Примерный объем снимка разреза в байтах.
+ *
+ * Пикеты неизменяемы и переходят из снимка в снимок по ссылке,
+ * поэтому учитываются только пикеты, которых нет в предыдущем снимке.
+ */
+object SectionHistoryWeigher : HistoryManager.Weigher<Section> {
+    private const val SECTION_BYTES = 64L
+    private const val REFERENCE_BYTES = 8L
+    private const val PICKET_BYTES = 512L
+    private const val EXPERIMENTAL_DATA_BYTES = 176L
+    private const val MODEL_LAYER_BYTES = 48L
+
+    override fun weigh(previous: Section?, current: Section): Long {
+        val shared = Collections.newSetFromMap(IdentityHashMap<Picket, Boolean>())
+        previous?.pickets?.let { shared.addAll(it) }
+
+        var weight = SECTION_BYTES + REFERENCE_BYTES * current.pickets.size
+        for (picket in current.pickets) {
+            if (picket !in shared) {
+                weight += weigh(picket)
+            }
+        }
+        return weight
+    }
+
+    fun weigh(picket: Picket): Long = PICKET_BYTES +
+            EXPERIMENTAL_DATA_BYTES * picket.sortedExperimentalData.size +
+            MODEL_LAYER_BYTES * picket.modelData.size
+}
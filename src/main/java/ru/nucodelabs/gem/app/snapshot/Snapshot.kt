@@ -4,6 +4,11 @@ interface Snapshot<T> {
     val value: T
 
     interface Originator<T> {
+        /**
+         * Растет при каждом изменении состояния, одинаковая версия — то же состояние
+         */
+        val version: Long
+
         fun snapshot(): Snapshot<T>
         fun restoreFromSnapshot(snapshot: Snapshot<T>)
     }
@@ -1,5 +1,6 @@
 package ru.nucodelabs.gem.fxmodel
 
+import javafx.collections.ListChangeListener
 import javafx.collections.ObservableList
 import ru.nucodelabs.geo.ves.Picket
 import ru.nucodelabs.geo.ves.Section
@@ -14,11 +15,58 @@ class ObservableSection(
 
     val pickets: ObservableList<Picket> = pickets.toObservableList()
 
+    private var changesCnt = 0L
+
+    override val version: Long
+        get() = changesCnt
+
+    init {
+        this.pickets.addListener(ListChangeListener { changesCnt++ })
+    }
+
     private val sectionView by lazy { Section(this.pickets) }
 
+    /**
+     * Разрез над самим списком [pickets], видит все изменения. Только для потока FX
+     */
     fun asSection() = sectionView
+
+    /**
+     * Копия текущих пикетов, можно передавать в другие потоки
+     */
     fun toSection() = Section(pickets.toList())
 
+    private var comparedSection: Section? = null
+    private var comparedVersion = -1L
+    private var isSameAsCompared = false
+
+    /**
+     * Совпадают ли пикеты с пикетами [section].
+     *
+     * Пикеты неизменяемы, поэтому сначала сравниваются по ссылке, по содержимому — только несовпавшие.
+     * Результат запоминается до следующего изменения, повторная проверка с тем же [section] — O(1).
+     */
+    fun hasSamePickets(section: Section): Boolean {
+        if (comparedSection !== section || comparedVersion != version) {
+            isSameAsCompared = hasSamePickets(section.pickets)
+            comparedSection = section
+            comparedVersion = version
+        }
+        return isSameAsCompared
+    }
+
+    private fun hasSamePickets(other: List<Picket>): Boolean {
+        if (other.size != pickets.size) {
+            return false
+        }
+        for (i in pickets.indices) {
+            if (pickets[i] !== other[i] && pickets[i] != other[i]) {
+                return false
+            }
+        }
+        return true
+    }
+
     override fun snapshot(): Snapshot<Section> = snapshotOf(toSection())
     override fun restoreFromSnapshot(snapshot: Snapshot<Section>) {
         pickets.setAll(snapshot.value.pickets)
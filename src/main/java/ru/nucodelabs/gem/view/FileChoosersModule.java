@@ -38,9 +38,10 @@ public class FileChoosersModule extends AbstractModule {
     private FileChooser provideJSONFileChooser(ResourceBundle ui, Preferences preferences) {
         FileChooser chooser = new FileChooser();
         chooser.getExtensionFilters().addAll(
-                new FileChooser.ExtensionFilter(ui.getString("section") + "/" + ui.getString("picket"), "*.json"),
+                new FileChooser.ExtensionFilter(ui.getString("section") + "/" + ui.getString("picket"), "*.json", "*.bin"),
                 new FileChooser.ExtensionFilter(ui.getString("picket"), "*.point.json"),
                 new FileChooser.ExtensionFilter(ui.getString("section"), "*.section.json"),
+                new FileChooser.ExtensionFilter(ui.getString("section") + " (bin)", "*.section.bin"),
                 allFilesFilter
         );
         File initDir = new File(preferences.get(JSON_FILES_DIR.getKey(), JSON_FILES_DIR.getDef()));
@@ -8,17 +8,21 @@ import ru.nucodelabs.gem.fxmodel.ObservableSection
 import ru.nucodelabs.geo.ves.ExperimentalData
 import ru.nucodelabs.geo.ves.Picket
 import ru.nucodelabs.geo.ves.calc.picketsBounds
-import ru.nucodelabs.geo.ves.calc.xOfPicket
 import ru.nucodelabs.gem.view.AbstractController
 import ru.nucodelabs.gem.view.charts.AbstractPseudoSectionController.PicketDependencies.Factory.dependenciesOf
 import ru.nucodelabs.gem.view.control.chart.NucodeNumberAxis
 import ru.nucodelabs.gem.view.control.chart.log.LogarithmicAxis
 import java.net.URL
 import java.util.*
+import java.util.concurrent.Executor
 
+/**
+ * Псевдоразрез: оси пересчитываются сразу, точки графика — в фоне на [chartUpdateExecutor]
+ */
 abstract class AbstractPseudoSectionController constructor(
     protected val observableSection: ObservableSection,
-    protected val formatter: StringConverter<Number>
+    protected val formatter: StringConverter<Number>,
+    protected val chartUpdateExecutor: Executor
 ) : AbstractController() {
     /**
      * Used for comparing pickets only by data on which chart is dependent
@@ -74,10 +78,10 @@ abstract class AbstractPseudoSectionController constructor(
     abstract fun update()
 
     protected fun setupXAxisMarks() {
-        val section = observableSection.asSection()
+        val geometry = observableSection.asSection().geometry()
         xAxis.forceMarks.setAll(
-            section.picketsBounds().flatMap { listOf(it.leftX, it.rightX) }.distinct()
-                    + section.pickets.indices.map { section.xOfPicket(it) }.distinct()
+            geometry.bounds.flatMap { listOf(it.leftX, it.rightX) }.distinct()
+                    + (0 until geometry.size).map { geometry.xOfPicket(it) }.distinct()
         )
     }
 
@@ -0,0 +1,95 @@
+package ru.nucodelabs.gem.view.charts
+
+import javafx.application.Platform
+import java.util.concurrent.Executor
+import java.util.concurrent.atomic.AtomicBoolean
+import java.util.concurrent.atomic.AtomicLong
+import java.util.concurrent.atomic.AtomicReference
+
+/**
+ * Пересчет данных графика в фоне.
+ *
+ * Запросы, пришедшие пока идет вычисление, схлопываются: выполняется только последний из них.
+ * Результат устаревшего вычисления отбрасывается, само вычисление может прерваться раньше,
+ * проверяя переданный ему признак устаревания.
+ * Готовый результат передается в `publish` через [fxExecutor], по умолчанию в потоке FX.
+ *
+ * [submit] вызывается из потока FX, вычисление должно работать только со снимками данных
+ * (например [ru.nucodelabs.gem.fxmodel.ObservableSection.toSection], но не `asSection`)
+ * и возвращать неизменяемую модель для отрисовки.
+ *
+ * @param executor фоновый исполнитель вычислений
+ * @param publish применяет результат к графику
+ * @param onError обрабатывает исключение вычисления
+ */
+class ChartUpdatePipeline<R> @JvmOverloads constructor(
+    private val executor: Executor,
+    private val publish: (R) -> Unit,
+    private val onError: (Throwable) -> Unit = { throw it },
+    private val fxExecutor: Executor = Executor { Platform.runLater(it) }
+) {
+    private class Request<R>(val number: Long, val compute: (isStale: () -> Boolean) -> R)
+
+    private val latest = AtomicLong(0)
+    private val pending = AtomicReference<Request<R>?>(null)
+    private val isDraining = AtomicBoolean(false)
+
+    /**
+     * Ставит вычисление в очередь вместо еще не начатого, начатое считается устаревшим
+     */
+    fun submit(compute: (isStale: () -> Boolean) -> R) {
+        pending.set(Request(latest.incrementAndGet(), compute))
+        scheduleDrain()
+    }
+
+    /**
+     * Отменяет еще не начатое вычисление и публикацию начатого
+     */
+    fun cancel() {
+        latest.incrementAndGet()
+        pending.set(null)
+    }
+
+    private fun scheduleDrain() {
+        if (isDraining.compareAndSet(false, true)) {
+            executor.execute(::drain)
+        }
+    }
+
+    private fun drain() {
+        try {
+            while (true) {
+                val request = pending.getAndSet(null) ?: break
+                val isStale = { latest.get() != request.number }
+                val result = try {
+                    request.compute(isStale)
+                } catch (e: Exception) {
+                    fail(request, e)
+                    continue
+                } catch (e: LinkageError) {
+                    fail(request, e)
+                    continue
+                }
+                if (!isStale()) {
+                    fxExecutor.execute {
+                        if (!isStale()) {
+                            publish(result)
+                        }
+                    }
+                }
+            }
+        } finally {
+            isDraining.set(false)
+        }
+        // запрос мог прийти после последней проверки очереди, но до сброса флага
+        if (pending.get() != null) {
+            scheduleDrain()
+        }
+    }
+
+    private fun fail(request: Request<R>, e: Throwable) {
+        if (latest.get() == request.number) {
+            fxExecutor.execute { onError(e) }
+        }
+    }
+}
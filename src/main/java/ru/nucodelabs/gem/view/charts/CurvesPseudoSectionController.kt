@@ -1,5 +1,6 @@
 package ru.nucodelabs.gem.view.charts
 
+import com.google.inject.name.Named
 import javafx.fxml.FXML
 import javafx.scene.chart.LineChart
 import javafx.scene.chart.XYChart
@@ -17,13 +18,22 @@ import ru.nucodelabs.gem.view.control.chart.installTooltips
 import java.net.URL
 import java.text.DecimalFormat
 import java.util.*
+import java.util.concurrent.Executor
 import javax.inject.Inject
 
 class CurvesPseudoSectionController @Inject constructor(
     formatter: StringConverter<Number>,
     observableSection: ObservableSection,
-    private val decimalFormat: DecimalFormat
-) : AbstractPseudoSectionController(observableSection, formatter) {
+    private val decimalFormat: DecimalFormat,
+    @Named("ChartUpdate") chartUpdateExecutor: Executor
+) : AbstractPseudoSectionController(observableSection, formatter, chartUpdateExecutor) {
+
+    /**
+     * Точка кривой и соответствующее ей измерение с номером в отсортированных данных
+     */
+    private class CurvePoint(val x: Double, val y: Double, val sortedIndex: Int, val experimentalData: ExperimentalData)
+
+    private val curvesUpdate = ChartUpdatePipeline(chartUpdateExecutor, ::publish)
 
     @FXML
     lateinit var title: Label
@@ -39,21 +49,27 @@ class CurvesPseudoSectionController @Inject constructor(
     }
 
     override fun update() {
-        pointMap.clear()
-
-        chart.data.clear()
-        chart.data += CurvesChartParser(observableSection.asSection()).getPoints().mapIndexed { picketIndex, curve ->
-            val picket = observableSection.pickets[picketIndex]
-            val indexMapping = picket.effectiveToSortedIndicesMapping()
-            val sorted = picket.sortedExperimentalData
+        val section = observableSection.toSection()
+        curvesUpdate.submit {
+            CurvesChartParser(section).getPoints().mapIndexed { picketIndex, curve ->
+                val picket = section.pickets[picketIndex]
+                val indexMapping = picket.effectiveToSortedIndicesMapping()
+                val sorted = picket.sortedExperimentalData
+                curve.mapIndexed { dataIndex, p ->
+                    CurvePoint(p.x, p.y, indexMapping[dataIndex], sorted[indexMapping[dataIndex]])
+                }
+            }
+        }
+    }
 
-            XYChart.Series(curve.mapIndexed { dataIndex, p ->
-                Data(
-                    p.x as Number,
-                    p.y as Number
-                ).also { pointMap += it to (indexMapping[dataIndex] to sorted[indexMapping[dataIndex]]) }
+    private fun publish(curves: List<List<CurvePoint>>) {
+        pointMap.clear()
+        chart.data.setAll(curves.map { curve ->
+            XYChart.Series(curve.map { point ->
+                Data(point.x as Number, point.y as Number)
+                    .also { pointMap += it to (point.sortedIndex to point.experimentalData) }
             }.toObservableList())
-        }
+        })
     }
 
     private fun tooltipFactory(
@@ -1,5 +1,6 @@
 package ru.nucodelabs.gem.view.charts
 
+import com.google.inject.name.Named
 import javafx.fxml.FXML
 import javafx.scene.chart.XYChart
 import javafx.scene.chart.XYChart.Data
@@ -10,7 +11,7 @@ import javafx.stage.Stage
 import javafx.util.StringConverter
 import ru.nucodelabs.gem.fxmodel.ObservableSection
 import ru.nucodelabs.geo.ves.calc.effectiveToSortedIndicesMapping
-import ru.nucodelabs.geo.ves.calc.xOfPicket
+import ru.nucodelabs.geo.ves.calc.interpolation.SpatialInterpolation
 import ru.nucodelabs.gem.util.fx.forCharts
 import ru.nucodelabs.gem.util.fx.toObservableList
 import ru.nucodelabs.gem.view.color.ColorMapper
@@ -19,14 +20,24 @@ import ru.nucodelabs.gem.view.control.chart.installTooltips
 import java.net.URL
 import java.text.DecimalFormat
 import java.util.*
+import java.util.concurrent.Executor
 import javax.inject.Inject
 
 class MapPseudoSectionController @Inject constructor(
     private val colorMapper: ColorMapper,
     formatter: StringConverter<Number>,
     observableSection: ObservableSection,
-    private val decimalFormat: DecimalFormat
-) : AbstractPseudoSectionController(observableSection, formatter) {
+    private val decimalFormat: DecimalFormat,
+    private val spatialInterpolation: SpatialInterpolation,
+    @Named("ChartUpdate") chartUpdateExecutor: Executor
+) : AbstractPseudoSectionController(observableSection, formatter, chartUpdateExecutor) {
+
+    /**
+     * Точка карты: x пикета, AB/2, ρₐ и номер измерения в отсортированных данных
+     */
+    private class MapPoint(val x: Double, val ab2: Double, val resistanceApparent: Double, val sortedIndex: Int)
+
+    private val mapUpdate = ChartUpdatePipeline(chartUpdateExecutor, ::publish)
 
     @FXML
     lateinit var title: Label
@@ -42,29 +53,34 @@ class MapPseudoSectionController @Inject constructor(
     override fun initialize(location: URL, resources: ResourceBundle) {
         super.initialize(location, resources)
         chart.colorMapper = colorMapper
+        chart.spatialInterpolation = spatialInterpolation
         chart.installTooltips(::tooltipFactory)
         chart.canvasBlendMode = BlendMode.MULTIPLY
     }
 
     override fun update() {
-        pointMap.clear()
-
-        val section = observableSection.asSection()
-        val data: MutableList<Data<Number, Number>> = mutableListOf()
-
-        for (picket in section.pickets) {
-            val indexMapping = picket.effectiveToSortedIndicesMapping()
-            for ((index, expData) in picket.effectiveExperimentalData.withIndex()) {
-                data.add(
-                    Data(
-                        section.xOfPicket(picket) as Number,
-                        expData.ab2 as Number,
-                        expData.resistanceApparent
-                    ).also { pointMap += it to indexMapping[index] }
-                )
+        val section = observableSection.toSection()
+        mapUpdate.submit {
+            val points = mutableListOf<MapPoint>()
+            val geometry = section.geometry()
+            for ((picketIndex, picket) in section.pickets.withIndex()) {
+                val indexMapping = picket.effectiveToSortedIndicesMapping()
+                val x = geometry.xOfPicket(picketIndex)
+                val columns = picket.effectiveColumns
+                for (index in 0 until columns.size) {
+                    points += MapPoint(x, columns.ab2[index], columns.resistanceApparent[index], indexMapping[index])
+                }
             }
+            points
         }
+    }
 
+    private fun publish(points: List<MapPoint>) {
+        pointMap.clear()
+        val data = points.map { point ->
+            Data(point.x as Number, point.ab2 as Number, point.resistanceApparent as Any)
+                .also { pointMap += it to point.sortedIndex }
+        }
         chart.data.setAll(XYChart.Series(data.toObservableList()))
     }
 
@@ -1,8 +1,11 @@
 package ru.nucodelabs.gem.view.charts
 
+import com.google.inject.name.Named
 import javafx.beans.property.ObjectProperty
 import javafx.beans.value.ObservableObjectValue
+import javafx.collections.MapChangeListener
 import javafx.collections.ObservableList
+import javafx.collections.ObservableMap
 import javafx.fxml.FXML
 import javafx.scene.chart.LineChart
 import javafx.scene.chart.NumberAxis
@@ -21,11 +24,13 @@ import ru.nucodelabs.geo.ves.Picket
 import ru.nucodelabs.geo.ves.calc.forward.ForwardSolver
 import ru.nucodelabs.geo.ves.calc.graph.MisfitsFunction
 import ru.nucodelabs.geo.ves.calc.graph.vesCurvesContext
+import ru.nucodelabs.geo.ves.calc.inverse.InversionTelemetry
 import ru.nucodelabs.geo.ves.calc.inverse.inverse_functions.SquaresDiff
 import java.math.RoundingMode
 import java.net.URL
 import java.text.DecimalFormat
 import java.util.*
+import java.util.concurrent.Executor
 import javax.inject.Inject
 import kotlin.math.abs
 
@@ -36,8 +41,25 @@ class MisfitStacksController @Inject constructor(
     private val dataProperty: ObjectProperty<ObservableList<Series<Number, Number>>>,
     private val misfitsFunction: MisfitsFunction,
     private val decimalFormat: DecimalFormat,
-    private val forwardSolver: ForwardSolver
+    private val forwardSolver: ForwardSolver,
+    private val inversionTelemetry: ObservableMap<UUID, InversionTelemetry>,
+    @Named("ChartUpdate") chartUpdateExecutor: Executor
 ) : AbstractController() {
+
+    /**
+     * Столбики погрешностей и значения для подписей, посчитанные в фоне
+     */
+    private class MisfitsRender(
+        val stacks: List<Pair<Double, Double>>,
+        val targetFunction: Double,
+        val avgWithoutErr: Double,
+        val maxWithoutErr: Double,
+        val avg: Double,
+        val max: Double
+    )
+
+    private val misfitsUpdate = ChartUpdatePipeline(chartUpdateExecutor, ::publish, ::showError)
+
     @FXML
     private lateinit var  targetFunctionText: Label
 
@@ -47,6 +69,9 @@ class MisfitStacksController @Inject constructor(
     @FXML
     private lateinit var errorText: Label
 
+    @FXML
+    private lateinit var inversionText: Label
+
     @FXML
     private lateinit var lineChart: LineChart<Number, Number>
 
@@ -69,59 +94,97 @@ class MisfitStacksController @Inject constructor(
             }
         }
         lineChart.dataProperty().bind(dataProperty)
+        inversionTelemetry.addListener(MapChangeListener {
+            if (picketObservable.get() != null && it.key == picket.id) {
+                updateInversionText()
+            }
+        })
+        inversionText.managedProperty().bind(inversionText.visibleProperty())
+    }
+
+    private fun updateInversionText() {
+        val telemetry = inversionTelemetry[picket.id]
+        inversionText.isVisible = telemetry != null
+        if (telemetry == null) {
+            return
+        }
+        val forwardKind = if (telemetry.isNativeForward) "native" else "JVM"
+        inversionText.text =
+            "инверсия (${telemetry.mode}): итераций ${telemetry.iterations}, " +
+                    "вычислений ф-ции ${telemetry.objectiveEvaluations}, прямых задач ${telemetry.forwardCalls}, " +
+                    "время ${telemetry.wallTimeNanos / 1_000_000} мс " +
+                    "(прямая задача, $forwardKind: ${telemetry.forwardTimeNanos / 1_000_000} мс, " +
+                    "остальное JVM: ${telemetry.otherTimeNanos / 1_000_000} мс), " +
+                    "остановка: ${telemetry.terminationReason}"
+        val dfFour = DecimalFormat("#.####").apply { roundingMode = RoundingMode.HALF_UP }
+        // не более ~20 строк в подсказке
+        val traceStep = (telemetry.iterations / 20).coerceAtLeast(1)
+        Tooltip.install(
+            inversionText,
+            Tooltip(
+                "Целевая функция по итерациям:\n" + telemetry.objectivePerIteration
+                    .withIndex()
+                    .filter { (i, _) -> i % traceStep == 0 || i == telemetry.iterations - 1 }
+                    .joinToString("\n") { (i, value) -> "${i + 1}: ${dfFour.format(value)}" }
+            ).forCharts()
+        )
     }
 
     private fun update() {
-        var misfitStacksSeriesList: MutableList<Series<Number, Number>> = ArrayList()
-        try {
-            val misfits = picket.vesCurvesContext.misfitsBy(misfitsFunction)
-            val expPoints = picket.vesCurvesContext.experimentalCurve
-
-            misfitStacksSeriesList = observableListOf()
-
-            if (picket.effectiveExperimentalData.isNotEmpty() && picket.modelData.isNotEmpty()) {
-                check(misfits.size == expPoints.size)
-
-                for ((index, expPoint) in expPoints.withIndex()) {
-                    misfitStacksSeriesList += line(
-                        Point(expPoint.x as Number, 0.0 as Number),
-                        Point(expPoint.x as Number, misfits[index] as Number)
-                    )
-                }
-
-                val avg = misfits.map { abs(it) }.average()
-                val max = misfits.maxOfOrNull { abs(it) } ?: 0.0
-
-                val theorPoints = picket.vesCurvesContext.theoreticalCurveBy(forwardSolver)
-                val misfitsWithoutErr =
-                    expPoints.mapIndexed { idx, (_, resApp) -> (resApp - theorPoints[idx].y) / resApp }
-                val avgWithoutErr = misfitsWithoutErr.map { abs(it) }.average()
-                val maxWithoutErr = misfitsWithoutErr.maxOfOrNull { abs(it) } ?: 0.0
-                val dfTwo = DecimalFormat("#.##").apply { roundingMode = RoundingMode.HALF_UP }
-                val dfFour = DecimalFormat("#.####").apply { roundingMode = RoundingMode.HALF_UP }
-                val targetFun = SquaresDiff()
-                val targetFunValue = targetFun.apply(
-                    forwardSolver(picket.effectiveExperimentalData, picket.modelData),
-                    picket.effectiveExperimentalData.map { it.resistanceApparent }
+        updateInversionText()
+        val picket = picket
+        misfitsUpdate.submit { computeMisfits(picket) }
+    }
+
+    /**
+     * Выполняется в фоне, `null` если у пикета нет данных или модели
+     */
+    private fun computeMisfits(picket: Picket): MisfitsRender? {
+        if (picket.effectiveExperimentalData.isEmpty() || picket.modelData.isEmpty()) {
+            return null
+        }
+        val context = picket.vesCurvesContext
+        // та же кривая, что у графика кривых, прямая задача решается один раз на изменение пикета
+        val solvedResistance = context.effectiveSolvedResistance(context.theoreticalCurveBy(forwardSolver))
+        val misfits = misfitsFunction.misfits(picket.effectiveExperimentalData, solvedResistance)
+        val expPoints = context.experimentalCurve
+        check(misfits.size == expPoints.size)
+
+        val misfitsWithoutErr =
+            expPoints.mapIndexed { idx, (_, resApp) -> (resApp - solvedResistance[idx]) / resApp }
+        return MisfitsRender(
+            stacks = expPoints.mapIndexed { index, expPoint -> expPoint.x to misfits[index] },
+            targetFunction = SquaresDiff().apply(solvedResistance, picket.effectiveColumns.resistanceApparent),
+            avgWithoutErr = misfitsWithoutErr.map { abs(it) }.average(),
+            maxWithoutErr = misfitsWithoutErr.maxOfOrNull { abs(it) } ?: 0.0,
+            avg = misfits.map { abs(it) }.average(),
+            max = misfits.maxOfOrNull { abs(it) } ?: 0.0
+        )
+    }
+
+    private fun publish(render: MisfitsRender?) {
+        val misfitStacksSeriesList: MutableList<Series<Number, Number>> = observableListOf()
+        if (render != null) {
+            for ((x, misfit) in render.stacks) {
+                misfitStacksSeriesList += line(
+                    Point(x as Number, 0.0 as Number),
+                    Point(x as Number, misfit as Number)
                 )
-                targetFunctionText.text =
-                    "целевая функция: f = ${dfFour.format(targetFunValue)}" +
-                            " | "
-                misfitText.text =
-                    "отклонение: avg = ${dfFour.format(avgWithoutErr)}, max = ${
-                                dfFour.format(
-                                    maxWithoutErr
-                                )
-                            }" + " | "
-                errorText.text =
-                    "погрешность: avg = ${dfTwo.format(avg)}% , max = ${dfTwo.format(max)}%"
-                installTooltipsforTerms()
             }
-
-        } catch (e: UnsatisfiedLinkError) {
-            alertsFactory.unsatisfiedLinkErrorAlert(e, stage).show()
-        } catch (e: IllegalStateException) {
-            alertsFactory.simpleExceptionAlert(e, stage).show()
+            val dfTwo = DecimalFormat("#.##").apply { roundingMode = RoundingMode.HALF_UP }
+            val dfFour = DecimalFormat("#.####").apply { roundingMode = RoundingMode.HALF_UP }
+            targetFunctionText.text =
+                "целевая функция: f = ${dfFour.format(render.targetFunction)}" +
+                        " | "
+            misfitText.text =
+                "отклонение: avg = ${dfFour.format(render.avgWithoutErr)}, max = ${
+                            dfFour.format(
+                                render.maxWithoutErr
+                            )
+                        }" + " | "
+            errorText.text =
+                "погрешность: avg = ${dfTwo.format(render.avg)}% , max = ${dfTwo.format(render.max)}%"
+            installTooltipsforTerms()
         }
         dataProperty.get().clear()
         dataProperty.get() += misfitStacksSeriesList
@@ -129,6 +192,14 @@ class MisfitStacksController @Inject constructor(
         installTooltips()
     }
 
+    private fun showError(e: Throwable) {
+        dataProperty.get().clear()
+        when (e) {
+            is UnsatisfiedLinkError -> alertsFactory.unsatisfiedLinkErrorAlert(e, stage).show()
+            else -> alertsFactory.simpleExceptionAlert(e, stage).show()
+        }
+    }
+
     private fun installTooltips() {
         dataProperty.get().forEach {
             val text = "${decimalFormat.format(it.data[1].yValue)}%"
@@ -167,4 +238,4 @@ class MisfitStacksController @Inject constructor(
             }
         }
     }
-}
\ No newline at end of file
+}
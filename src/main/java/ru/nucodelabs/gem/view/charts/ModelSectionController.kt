@@ -1,32 +1,27 @@
 package ru.nucodelabs.gem.view.charts
 
-import javafx.beans.property.SimpleBooleanProperty
+import com.google.inject.name.Named
 import javafx.collections.ListChangeListener
 import javafx.fxml.FXML
-import javafx.scene.chart.XYChart.Data
-import javafx.scene.chart.XYChart.Series
 import javafx.scene.control.Label
 import javafx.stage.Stage
 import javafx.util.StringConverter
 import ru.nucodelabs.gem.fxmodel.ObservableSection
 import ru.nucodelabs.gem.util.fx.booleanProperty
-import ru.nucodelabs.gem.util.fx.observableListOf
 import ru.nucodelabs.gem.view.AbstractController
 import ru.nucodelabs.gem.view.charts.ModelSectionController.PicketDependencies.Factory.dependenciesOf
 import ru.nucodelabs.gem.view.color.ColorMapper
+import ru.nucodelabs.gem.view.control.chart.CanvasRectangleChart
 import ru.nucodelabs.gem.view.control.chart.InvertibleValueAxis
 import ru.nucodelabs.gem.view.control.chart.NucodeNumberAxis
-import ru.nucodelabs.gem.view.control.chart.PolygonChart
-import ru.nucodelabs.gem.view.control.chart.PolygonWithNamesChart
 import ru.nucodelabs.geo.ves.*
-import ru.nucodelabs.geo.ves.calc.picketsBounds
-import ru.nucodelabs.geo.ves.calc.xOfPicket
 import ru.nucodelabs.geo.ves.calc.zOfModelLayers
 import java.math.MathContext
 import java.math.RoundingMode
 import java.net.URL
 import java.text.DecimalFormat
 import java.util.*
+import java.util.concurrent.Executor
 import javax.inject.Inject
 import kotlin.math.abs
 
@@ -36,9 +31,30 @@ class ModelSectionController @Inject constructor(
     private val observableSection: ObservableSection,
     private val colorMapper: ColorMapper,
     private val formatter: StringConverter<Number>,
-    private val df: DecimalFormat
+    private val df: DecimalFormat,
+    @Named("ChartUpdate") chartUpdateExecutor: Executor
 ) : AbstractController() {
 
+    /**
+     * Прямоугольник слоя модели в координатах графика
+     */
+    private class LayerRect(val x: Double, val y: Double, val width: Double, val height: Double, val resistance: Double)
+
+    /**
+     * Границы осей и слои, посчитанные в фоне
+     */
+    private class ModelSectionRender(
+        val xLowerBound: Double,
+        val xUpperBound: Double,
+        val xMarks: List<Double>,
+        val yLowerBound: Double,
+        val yUpperBound: Double,
+        // Слои каждого пикета
+        val layers: List<List<LayerRect>>
+    )
+
+    private val modelSectionUpdate = ChartUpdatePipeline(chartUpdateExecutor, ::publish)
+
     /**
      * Used for comparing pickets only by data on which chart is dependent
      */
@@ -68,7 +84,9 @@ class ModelSectionController @Inject constructor(
     private lateinit var xAxis: NucodeNumberAxis
 
     @FXML
-    private lateinit var chart: PolygonWithNamesChart
+    private lateinit var chart: CanvasRectangleChart
+
+    private var shownLayers: List<List<LayerRect>> = emptyList()
 
     override val stage: Stage?
         get() = chart.scene.window as Stage?
@@ -76,6 +94,7 @@ class ModelSectionController @Inject constructor(
     override fun initialize(location: URL, resources: ResourceBundle) {
         yAxis.tickLabelFormatter = formatter
         xAxis.tickLabelFormatter = formatter
+        chart.tooltipFactory = ::tooltipText
 
         observableSection.pickets.addListener(ListChangeListener { c ->
             while (c.next()) {
@@ -98,30 +117,35 @@ class ModelSectionController @Inject constructor(
     }
 
     private fun update() {
-        setupXAxisBounds()
-        setupXAxisMarks()
-        setupYAxisBounds()
-
-        chart.data.clear()
-
-        if (observableSection.pickets.isEmpty()) {
-            return
-        }
-
-        val lowerBoundZ = zWithVirtualLastLayers().minOfOrNull { it.minOrNull() ?: 0.0 } ?: 0.0
+        val section = observableSection.toSection()
+        modelSectionUpdate.submit { isStale -> computeModelSection(section, isStale) }
+    }
 
-        for ((index, bounds) in observableSection.asSection().picketsBounds().withIndex()) {
-            val picket = observableSection.pickets[index]
+    /**
+     * Выполняется в фоне, `null` если вычисление устарело
+     */
+    private fun computeModelSection(section: Section, isStale: () -> Boolean): ModelSectionRender? {
+        val geometry = section.geometry()
+        val bounds = geometry.bounds
+        val zWithVirtualLastLayers = zWithVirtualLastLayers(section)
+        val lowerBoundZ = zWithVirtualLastLayers.minOfOrNull { it.minOrNull() ?: 0.0 } ?: 0.0
+
+        val layers = mutableListOf<List<LayerRect>>()
+        for ((index, picketBounds) in bounds.withIndex()) {
+            if (isStale()) {
+                return null
+            }
+            val picket = section.pickets[index]
+            val picketLayers = mutableListOf<LayerRect>()
+            layers += picketLayers
             if (picket.modelData.isEmpty()) {
                 continue
             }
 
-            val (leftX, rightX) = bounds
+            val (leftX, rightX) = picketBounds
             val zList = picket.zOfModelLayers()
             for (i in zList.indices) {
-                val x = leftX
                 val y = if (i == 0) picket.z else zList[i - 1]
-                val width = rightX - leftX
                 val height = if (i == zList.lastIndex) {
                     if (zList.size == 1) {
                         picket.z - lowerBoundZ
@@ -131,49 +155,67 @@ class ModelSectionController @Inject constructor(
                 } else {
                     picket.modelData[i].power
                 }
-
-                val series: Series<Number, Number> = Series(
-                    observableListOf(
-                        Data(x, y),
-                        Data(x + width, y),
-                        Data(x + width, y - height),
-                        Data(x, y - height)
-                    )
-                )
-
-                chart.data += series
-                series.name = df.format(picket.modelData[i].resistance)
-                chart.seriesPolygons[series]?.apply { fill = colorMapper.colorFor(picket.modelData[i].resistance) }
+                picketLayers += LayerRect(leftX, y, rightX - leftX, height, picket.modelData[i].resistance)
             }
         }
+
+        return ModelSectionRender(
+            xLowerBound = bounds.firstOrNull()?.leftX ?: 0.0,
+            xUpperBound = bounds.lastOrNull()?.rightX?.takeIf { it > 0.0 } ?: 100.0,
+            xMarks = bounds.flatMap { listOf(it.leftX, it.rightX) }.distinct()
+                    + (0 until geometry.size).map { geometry.xOfPicket(it) }.distinct(),
+            yLowerBound = lowerBoundZ,
+            yUpperBound = if (section.pickets.any { it.modelData.isNotEmpty() }) {
+                section.pickets.maxOfOrNull { it.z } ?: 100.0
+            } else {
+                100.0
+            },
+            layers = layers
+        )
     }
-     fun setupNames(boolean: Boolean){
-      chart.namesVisibleProperty().set(boolean)
-     }
-    private fun setupXAxisMarks() {
-        val section = observableSection.asSection()
-        xAxis.forceMarks.setAll(
-            section.picketsBounds().flatMap { listOf(it.leftX, it.rightX) }.distinct()
-                    + section.pickets.indices.map { section.xOfPicket(it) }.distinct()
+
+    private fun publish(render: ModelSectionRender?) {
+        if (render == null) {
+            return
+        }
+        xAxis.lowerBound = render.xLowerBound
+        xAxis.upperBound = render.xUpperBound
+        xAxis.forceMarks.setAll(render.xMarks)
+        yAxis.upperBound = render.yUpperBound
+        yAxis.lowerBound = render.yLowerBound
+
+        shownLayers = render.layers
+        // неизменившиеся пикеты дают равные группы и не перерисовываются
+        chart.setGroups(
+            render.layers.map { picketLayers ->
+                picketLayers.map { layer ->
+                    CanvasRectangleChart.Rect(
+                        layer.x,
+                        layer.y,
+                        layer.x + layer.width,
+                        layer.y - layer.height,
+                        colorMapper.colorFor(layer.resistance),
+                        df.format(layer.resistance)
+                    )
+                }
+            }
         )
     }
 
-    private fun setupXAxisBounds() {
-        val bounds = observableSection.asSection().picketsBounds()
-        xAxis.lowerBound = bounds.firstOrNull()?.leftX ?: 0.0
-        xAxis.upperBound = bounds.lastOrNull()?.rightX?.takeIf { it > 0.0 } ?: 100.0
+    private fun tooltipText(picketIndex: Int, layerIndex: Int): String? {
+        val layer = shownLayers.getOrNull(picketIndex)?.getOrNull(layerIndex) ?: return null
+        return """
+            №${picketIndex + 1}
+            Слой ${layerIndex + 1}
+            ρ = ${df.format(layer.resistance)} Ω‧m
+        """.trimIndent()
     }
 
-    private fun setupYAxisBounds() {
-        if (observableSection.pickets.any { it.modelData.isNotEmpty() }) {
-            yAxis.upperBound = observableSection.pickets.maxOfOrNull { it.z } ?: 100.0
-        } else {
-            yAxis.upperBound = 100.0
-        }
-        yAxis.lowerBound = zWithVirtualLastLayers().minOfOrNull { it.minOrNull() ?: 0.0 } ?: 0.0
+    fun setupNames(boolean: Boolean) {
+        chart.namesVisibleProperty().set(boolean)
     }
 
-    private fun zWithVirtualLastLayers(): List<List<Double>> = observableSection.pickets.map {
+    private fun zWithVirtualLastLayers(section: Section): List<List<Double>> = section.pickets.map {
         it.zOfModelLayers().toMutableList().also { zList ->
             if (zList.size >= 2) {
                 zList[zList.lastIndex] = zList[zList.lastIndex - 1]
@@ -38,6 +38,7 @@ import ru.nucodelabs.gem.view.control.chart.log.LogarithmicChartNavigationSuppor
 import ru.nucodelabs.geo.ves.*
 import ru.nucodelabs.geo.ves.calc.*
 import ru.nucodelabs.geo.ves.calc.forward.ForwardSolver
+import ru.nucodelabs.geo.ves.calc.graph.Point
 import ru.nucodelabs.geo.ves.calc.graph.VesCurvesContext
 import ru.nucodelabs.geo.ves.calc.graph.vesCurvesContext
 import java.lang.Double.max
@@ -45,6 +46,7 @@ import java.lang.Double.min
 import java.net.URL
 import java.text.DecimalFormat
 import java.util.*
+import java.util.concurrent.Executor
 import java.util.prefs.Preferences
 import javax.inject.Inject
 import kotlin.math.log10
@@ -73,7 +75,8 @@ class VesCurvesController @Inject constructor(
     private val formatter: StringConverter<Number>,
     private val forwardSolver: ForwardSolver,
     @Named("PNG") private val fc: FileChooser,
-    private val prefs: Preferences
+    private val prefs: Preferences,
+    @Named("ChartUpdate") chartUpdateExecutor: Executor
 ) : AbstractController() {
 
     // SERIES CSS STYLE CLASSES
@@ -113,6 +116,11 @@ class VesCurvesController @Inject constructor(
     private val isModelVisible = SimpleBooleanProperty(true)
 
     private lateinit var vesCurvesContext: VesCurvesContext
+
+    // Последняя опубликованная теоретическая кривая, прямая задача решается в фоне
+    private var theoreticalCurve: List<Point> = listOf()
+    private val theoreticalCurveUpdate =
+        ChartUpdatePipeline(chartUpdateExecutor, ::publishTheoreticalCurve, ::showTheoreticalCurveError)
     private var effectiveToSortedMapping = intArrayOf()
 
     private lateinit var uiProperties: ResourceBundle
@@ -140,7 +148,6 @@ class VesCurvesController @Inject constructor(
                 vesCurvesContext = picket.vesCurvesContext
                 if (isDraggingModel) {
                     updateTheoreticalCurve()
-                    applyStyle()
                 } else {
                     update()
                     applyStyle()
@@ -285,16 +292,26 @@ class VesCurvesController @Inject constructor(
     }
 
     private fun updateTheoreticalCurve() {
+        val context = vesCurvesContext
+        theoreticalCurveUpdate.submit { context.theoreticalCurveBy(forwardSolver) }
+    }
+
+    private fun publishTheoreticalCurve(points: List<Point>) {
+        theoreticalCurve = points
         val theorCurveSeries = Series<Number, Number>()
-        try {
-            theorCurveSeries.data.addAll(
-                vesCurvesContext.theoreticalCurveBy(forwardSolver).map { (x, y) -> Data(x as Number, y as Number) }
-            )
-        } catch (e: UnsatisfiedLinkError) {
-            alertsFactory.unsatisfiedLinkErrorAlert(e, stage)
-        }
+        theorCurveSeries.data.addAll(points.map { (x, y) -> Data(x as Number, y as Number) })
         theorCurveSeries.name = uiProperties["theorCurve"]
         dataProperty.get()[THEOR_CURVE_SERIES_INDEX] = theorCurveSeries
+        applyStyle()
+    }
+
+    private fun showTheoreticalCurveError(e: Throwable) {
+        if (e is UnsatisfiedLinkError) {
+            alertsFactory.unsatisfiedLinkErrorAlert(e, stage).show()
+            publishTheoreticalCurve(listOf())
+        } else {
+            alertsFactory.simpleExceptionAlert(e, stage).show()
+        }
     }
 
     private fun updateModelCurve() {
@@ -320,6 +337,7 @@ class VesCurvesController @Inject constructor(
         modelCurveSeries.node.onMousePressed = EventHandler { e: MouseEvent ->
             modelCurveSeries.node.requestFocus()
             isDraggingModel = true
+            historyManager.beginGesture()
 //            lineChart.animated = false
 //            lineChartYAxis.isAutoRanging = false
             modelCurveDragger.detectPoints(e)
@@ -331,7 +349,7 @@ class VesCurvesController @Inject constructor(
                 picket.copy(modelData = modelCurveDragger.handleMouseDragged(e, picket.modelData.toMutableList()))
         }
         modelCurveSeries.node.onMouseReleased = EventHandler {
-            historyManager.snapshot()
+            historyManager.endGesture()
             modelCurveDragger.resetStyle()
             isDraggingModel = false
             update()
@@ -413,7 +431,7 @@ class VesCurvesController @Inject constructor(
                     picket.sortedExperimentalData[pointIndex].resistanceApparentUpperBoundByError
                 )
                 val y = decimalFormat.format(picket.sortedExperimentalData[pointIndex].resistanceApparent)
-                val theorRes = picket.vesCurvesContext.theoreticalCurveBy(forwardSolver).getOrNull(pointIndex)?.y
+                val theorRes = theoreticalCurve.getOrNull(pointIndex)?.y
                 Tooltip(
                     """
                     №${pointIndex + 1}
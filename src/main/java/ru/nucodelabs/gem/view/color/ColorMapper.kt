@@ -7,6 +7,12 @@ import javafx.scene.paint.Color
 
 interface ColorMapper {
     fun colorFor(value: Double): Color
+
+    /**
+     * Цвет для значения в формате ARGB, по одному байту на компонент
+     */
+    fun argbFor(value: Double): Int
+
     var minValue: Double
     var maxValue: Double
     var numberOfSegments: Int
@@ -7,10 +7,14 @@ import ru.nucodelabs.files.clr.ColorNode;
 import ru.nucodelabs.gem.util.std.MathKt;
 
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.List;
 import java.util.stream.Collectors;
 
+/**
+ * Палитра из равных блоков между {@code minValue} и {@code maxValue}.
+ * Цвета блоков хранятся в неизменяемой таблице, которая пересоздается при изменении параметров,
+ * поэтому {@link #colorFor(double)} и {@link #argbFor(double)} не выделяют память и безопасны в любом потоке.
+ */
 public class ColorPalette implements ColorMapper {
 
     private final List<ColorNode> valueColorList;
@@ -24,35 +28,69 @@ public class ColorPalette implements ColorMapper {
 
     private final List<Segment> segmentList = new ArrayList<>();
 
+    private volatile Lut lut;
+
+    /**
+     * Таблица цветов блоков, индекс блока считается по значению за O(1)
+     */
+    private static final class Lut {
+        private final double minValue;
+        private final double maxValue;
+        private final boolean logScale;
+        private final Color[] colors;
+        private final int[] argb;
+
+        private Lut(double minValue, double maxValue, boolean logScale, List<Segment> segments) {
+            this.minValue = minValue;
+            this.maxValue = maxValue;
+            this.logScale = logScale;
+            this.colors = new Color[segments.size()];
+            this.argb = new int[segments.size()];
+            for (int i = 0; i < colors.length; i++) {
+                colors[i] = segments.get(i).getColor();
+                argb[i] = toArgb(colors[i]);
+            }
+        }
+
+        private int indexFor(double value) {
+            double scaled = logScale ? Math.log10(value) : value;
+            double percentage;
+            if (scaled < minValue) percentage = 0.0;
+            else if (scaled > maxValue) percentage = 1.0;
+            else percentage = (scaled - minValue) / (maxValue - minValue);
+            if (percentage == 1.0) return colors.length - 1;
+            return Math.min((int) Math.floor(percentage / (1.0 / colors.length)), colors.length - 1);
+        }
+    }
+
     public ColorPalette(List<ColorNode> valueColorList, double minValue, double maxValue, int blocksCount) {
         this.valueColorList = valueColorList;
         setMinValue(minValue);
         setMaxValue(maxValue);
         setNumberOfSegments(blocksCount);
         if (blocksCount < 2) throw new RuntimeException("Число блоков меньше 2");
-        checkLog();
-        blocksInit();
-        this.logScaleProperty.addListener((observable, oldValue, newValue) -> {
-            segmentList.clear();
-            checkLog();
-            blocksInit();
-        });
+        rebuild();
+        this.logScaleProperty.addListener((observable, oldValue, newValue) -> rebuild());
         this.blocksCount.addListener((observable, oldValue, newValue) -> {
             if (newValue.intValue() < 2) throw new RuntimeException("Число блоков меньше 2");
-            segmentList.clear();
-            checkLog();
-            blocksInit();
-        });
-        this.minValueProperty.addListener((observable, oldValue, newValue) -> {
-            segmentList.clear();
-            checkLog();
-            blocksInit();
-        });
-        this.maxValueProperty.addListener((observable, oldValue, newValue) -> {
-            segmentList.clear();
-            checkLog();
-            blocksInit();
+            rebuild();
         });
+        this.minValueProperty.addListener((observable, oldValue, newValue) -> rebuild());
+        this.maxValueProperty.addListener((observable, oldValue, newValue) -> rebuild());
+    }
+
+    private void rebuild() {
+        segmentList.clear();
+        checkLog();
+        blocksInit();
+        lut = new Lut(minValue, maxValue, logScaleProperty.get(), segmentList);
+    }
+
+    private static int toArgb(Color color) {
+        return ((int) Math.round(color.getOpacity() * 255) << 24)
+                | ((int) Math.round(color.getRed() * 255) << 16)
+                | ((int) Math.round(color.getGreen() * 255) << 8)
+                | (int) Math.round(color.getBlue() * 255);
     }
 
     /**
@@ -95,21 +133,24 @@ public class ColorPalette implements ColorMapper {
     }
 
     private Color blockColor(double from, double to) {
-        List<ColorNode> vcsFrom = findNearestVCs(from);
-        List<ColorNode> vcsTo = findNearestVCs(to);
+        int vcFrom = findNearestVC(from);
+        int vcTo = findNearestVC(to);
 
-        Color colorFrom = vcInterpolate(vcsFrom.get(0), vcsFrom.get(1), from);
-        Color colorTo = vcInterpolate(vcsTo.get(0), vcsTo.get(1), to);
+        Color colorFrom = vcInterpolate(valueColorList.get(vcFrom), valueColorList.get(vcFrom + 1), from);
+        Color colorTo = vcInterpolate(valueColorList.get(vcTo), valueColorList.get(vcTo + 1), to);
 
         return colorInterpolate(colorFrom, colorTo, 0.5);
     }
 
-    private List<ColorNode> findNearestVCs(double percentage) {
+    /**
+     * @return Индекс {@code i} такой, что percentage между позициями {@code i} и {@code i + 1}
+     */
+    private int findNearestVC(double percentage) {
         for (int i = 0; i < valueColorList.size() - 1; i++) {
             double vcPercentage1 = valueColorList.get(i).getPosition();
             double vcPercentage2 = valueColorList.get(i + 1).getPosition();
             if (vcPercentage1 <= percentage && vcPercentage2 >= percentage)
-                return new ArrayList<>(Arrays.asList(valueColorList.get(i), valueColorList.get(i + 1)));
+                return i;
         }
         throw new RuntimeException("Цвет не найден");
     }
@@ -137,17 +178,6 @@ public class ColorPalette implements ColorMapper {
         segmentList.add(new Segment(currentFrom, 1.0, lastColor));
     }
 
-    private Segment blockFor(double percentage) {
-        if (percentage == 1.0) return segmentList.get(segmentList.size() - 1);
-        return segmentList.get((int) Math.floor(percentage / (1.0 / segmentList.size())));
-    }
-
-    private double percentageFor(double resistance) {
-        if (resistance < minValue) return 0.0;
-        if (resistance > maxValue) return 1.0;
-        return (resistance - minValue) / (maxValue - minValue);
-    }
-
     private void checkLog() {
         if (minValueProperty.get() < 0.1) minValue = 0.1;
         if (logScaleProperty.get()) {
@@ -162,11 +192,14 @@ public class ColorPalette implements ColorMapper {
     @NotNull
     @Override
     public Color colorFor(double value) {
-        double percentage;
-        if (logScaleProperty.get()) percentage = percentageFor(Math.log10(value));
-        else percentage = percentageFor(value);
-        Segment block = blockFor(percentage);
-        return block.getColor();
+        Lut lut = this.lut;
+        return lut.colors[lut.indexFor(value)];
+    }
+
+    @Override
+    public int argbFor(double value) {
+        Lut lut = this.lut;
+        return lut.argb[lut.indexFor(value)];
     }
 
     @Override
@@ -0,0 +1,221 @@
+package ru.nucodelabs.gem.view.control.chart
+
+import javafx.beans.NamedArg
+import javafx.beans.property.BooleanProperty
+import javafx.beans.property.SimpleBooleanProperty
+import javafx.scene.chart.ValueAxis
+import javafx.scene.control.Tooltip
+import javafx.scene.effect.DropShadow
+import javafx.scene.paint.Color
+import javafx.scene.text.Font
+import ru.nucodelabs.gem.util.fx.getValue
+import ru.nucodelabs.gem.util.fx.setValue
+import java.util.*
+import kotlin.math.abs
+import kotlin.math.ceil
+import kotlin.math.floor
+import kotlin.math.max
+import kotlin.math.min
+
+/**
+ * Рисует закрашенные прямоугольники с подписями на одном Canvas
+ * вместо узлов Polygon и Text на каждый прямоугольник.
+ *
+ * Прямоугольники задаются группами через [setGroups], перерисовывается только область групп,
+ * изменившихся с прошлого раза, вся область — при изменении осей или размера.
+ * Прямоугольник под курсором для подсказки ищется по [RectIndex].
+ */
+class CanvasRectangleChart(
+    @NamedArg("xAxis") xAxis: ValueAxis<Number>,
+    @NamedArg("yAxis") yAxis: ValueAxis<Number>
+) : AbstractMap(xAxis, yAxis) {
+
+    /**
+     * Прямоугольник в координатах осей, подпись выводится у угла `(x1, y1)`
+     */
+    data class Rect(
+        val x1: Double,
+        val y1: Double,
+        val x2: Double,
+        val y2: Double,
+        val fill: Color,
+        val name: String
+    )
+
+    private val namesVisibleProperty = SimpleBooleanProperty(false)
+    var namesVisible by namesVisibleProperty
+    fun namesVisibleProperty(): BooleanProperty = namesVisibleProperty
+
+    /**
+     * Текст подсказки по индексу группы и индексу прямоугольника в ней, `null` — без подсказки
+     */
+    var tooltipFactory: ((groupIndex: Int, rectIndex: Int) -> String?)? = null
+
+    private var groups: List<List<Rect>> = emptyList()
+    private var rects: List<Rect> = emptyList()
+
+    // Индекс первого прямоугольника каждой группы в rects
+    private var groupStart = IntArray(0)
+    private var index = RectIndex(DoubleArray(0), DoubleArray(0), DoubleArray(0), DoubleArray(0))
+
+    private val tooltip = Tooltip()
+
+    init {
+        animated = false
+        namesVisibleProperty.addListener { _, _, _ -> redrawAll() }
+
+        canvas.setOnMouseMoved { e ->
+            val text = rectIndexAt(e.x, e.y)?.let { (group, rect) -> tooltipFactory?.invoke(group, rect) }
+            if (text == null) {
+                tooltip.hide()
+            } else {
+                tooltip.text = text
+                tooltip.show(canvas, e.screenX + TOOLTIP_OFFSET, e.screenY + TOOLTIP_OFFSET)
+            }
+        }
+        canvas.setOnMouseExited { tooltip.hide() }
+    }
+
+    /**
+     * Заменяет прямоугольники, группы сравниваются с прежними по порядку
+     */
+    fun setGroups(newGroups: List<List<Rect>>) {
+        val oldGroups = groups
+        groups = newGroups.toList()
+        rects = groups.flatten()
+        groupStart = IntArray(groups.size)
+        for (i in 1 until groups.size) {
+            groupStart[i] = groupStart[i - 1] + groups[i - 1].size
+        }
+        index = RectIndex(
+            DoubleArray(rects.size) { min(rects[it].x1, rects[it].x2) },
+            DoubleArray(rects.size) { min(rects[it].y1, rects[it].y2) },
+            DoubleArray(rects.size) { max(rects[it].x1, rects[it].x2) },
+            DoubleArray(rects.size) { max(rects[it].y1, rects[it].y2) }
+        )
+
+        if (isNeedsLayout) {
+            // после раскладки все перерисуется в layoutPlotChildren
+            return
+        }
+        val changed = if (oldGroups.size == groups.size) groups.indices.filter { oldGroups[it] != groups[it] } else null
+        if (changed == null || changed.size > groups.size / 2) {
+            redrawAll()
+            return
+        }
+        for (i in changed) {
+            redrawArea(oldGroups[i] + groups[i])
+        }
+    }
+
+    override fun layoutPlotChildren() {
+        super.layoutPlotChildren()
+        redrawAll()
+    }
+
+    private fun rectIndexAt(x: Double, y: Double): Pair<Int, Int>? {
+        val i = index.at(xAxis.getValueForDisplay(x).toDouble(), yAxis.getValueForDisplay(y).toDouble())
+        if (i < 0) {
+            return null
+        }
+        val group = Arrays.binarySearch(groupStart, i).let { if (it >= 0) lastGroupStartingAt(it) else -it - 2 }
+        return group to i - groupStart[group]
+    }
+
+    // У пустых групп то же начало, что у следующей
+    private fun lastGroupStartingAt(group: Int): Int {
+        var g = group
+        while (g + 1 < groupStart.size && groupStart[g + 1] == groupStart[group]) g++
+        return g
+    }
+
+    private fun redrawAll() {
+        val gc = canvas.graphicsContext2D
+        gc.clearRect(0.0, 0.0, canvas.width, canvas.height)
+        draw(BitSet(rects.size).apply { set(0, rects.size) })
+    }
+
+    /**
+     * Перерисовывает область, занятую прямоугольниками [area], вместе со всеми пересекающими ее
+     */
+    private fun redrawArea(area: List<Rect>) {
+        if (area.isEmpty()) {
+            return
+        }
+        val xs = area.flatMap { listOf(xAxis.getDisplayPosition(it.x1), xAxis.getDisplayPosition(it.x2)) }
+        val ys = area.flatMap { listOf(yAxis.getDisplayPosition(it.y1), yAxis.getDisplayPosition(it.y2)) }
+        val left = floor(xs.minOf { it }) - 1
+        val right = ceil(xs.maxOf { it }) + 1
+        val top = floor(ys.minOf { it }) - 1
+        val bottom = ceil(ys.maxOf { it }) + 1
+        if (left.isNaN() || top.isNaN() || right.isNaN() || bottom.isNaN()) {
+            redrawAll()
+            return
+        }
+
+        val valueX1 = xAxis.getValueForDisplay(left).toDouble()
+        val valueX2 = xAxis.getValueForDisplay(right).toDouble()
+        val valueY1 = yAxis.getValueForDisplay(top).toDouble()
+        val valueY2 = yAxis.getValueForDisplay(bottom).toDouble()
+        val visible = index.intersecting(
+            min(valueX1, valueX2), min(valueY1, valueY2),
+            max(valueX1, valueX2), max(valueY1, valueY2)
+        )
+
+        val gc = canvas.graphicsContext2D
+        gc.save()
+        gc.beginPath()
+        gc.rect(left, top, right - left, bottom - top)
+        gc.clip()
+        gc.clearRect(left, top, right - left, bottom - top)
+        draw(visible)
+        gc.restore()
+    }
+
+    private fun draw(indices: BitSet) {
+        val gc = canvas.graphicsContext2D
+        var i = indices.nextSetBit(0)
+        while (i >= 0) {
+            val rect = rects[i]
+            val x1 = xAxis.getDisplayPosition(rect.x1)
+            val x2 = xAxis.getDisplayPosition(rect.x2)
+            val y1 = yAxis.getDisplayPosition(rect.y1)
+            val y2 = yAxis.getDisplayPosition(rect.y2)
+            gc.fill = rect.fill
+            gc.fillRect(min(x1, x2), min(y1, y2), abs(x2 - x1), abs(y2 - y1))
+            i = indices.nextSetBit(i + 1)
+        }
+
+        if (!namesVisible) {
+            return
+        }
+        gc.save()
+        gc.font = NAME_FONT
+        gc.fill = Color.WHITE
+        gc.setEffect(DropShadow(2.0, Color.BLACK))
+        i = indices.nextSetBit(0)
+        while (i >= 0) {
+            val rect = rects[i]
+            val x1 = xAxis.getDisplayPosition(rect.x1)
+            val x2 = xAxis.getDisplayPosition(rect.x2)
+            val y1 = yAxis.getDisplayPosition(rect.y1)
+            val y2 = yAxis.getDisplayPosition(rect.y2)
+            // подпись не выходит за свой прямоугольник, иначе ее задело бы перерисовкой соседнего
+            gc.save()
+            gc.beginPath()
+            gc.rect(min(x1, x2), min(y1, y2), abs(x2 - x1), abs(y2 - y1))
+            gc.clip()
+            gc.fillText(rect.name, x1 + NAME_OFFSET_X, y1 + NAME_OFFSET_Y)
+            gc.restore()
+            i = indices.nextSetBit(i + 1)
+        }
+        gc.restore()
+    }
+
+    companion object {
+        private val NAME_FONT = Font(11.0)
+        private const val NAME_OFFSET_X = 3.0
+        private const val NAME_OFFSET_Y = 10.0
+        private const val TOOLTIP_OFFSET = 12.0
+    }
+}
@@ -1,21 +1,39 @@
 package ru.nucodelabs.gem.view.control.chart
 
+import javafx.application.Platform
 import javafx.beans.NamedArg
 import javafx.beans.property.SimpleIntegerProperty
 import javafx.beans.property.SimpleObjectProperty
 import javafx.scene.canvas.Canvas
 import javafx.scene.chart.ValueAxis
 import javafx.scene.effect.BlendMode
-import javafx.scene.paint.Color
+import javafx.scene.image.PixelFormat
 import ru.nucodelabs.gem.util.fx.clear
 import ru.nucodelabs.gem.util.fx.getValue
 import ru.nucodelabs.gem.util.fx.setValue
+import ru.nucodelabs.gem.util.std.exp10
+import ru.nucodelabs.gem.view.charts.ChartUpdatePipeline
 import ru.nucodelabs.gem.view.color.ColorMapper
-import ru.nucodelabs.geo.ves.calc.interpolation.InterpolationParser
+import ru.nucodelabs.geo.ves.calc.interpolation.InterpolationGrid
 import ru.nucodelabs.geo.ves.calc.interpolation.Interpolator
+import ru.nucodelabs.geo.ves.calc.interpolation.SpatialInterpolation
 import java.lang.Double.max
+import java.util.concurrent.ForkJoinPool
+import java.util.concurrent.atomic.AtomicLong
+import kotlin.math.ceil
 import kotlin.math.min
 
+/**
+ * Псевдоразрез с интерполяцией значений между точками.
+ *
+ * Интерполяция считается по тайлам на общем пуле потоков, результат выводится одним `setPixels`.
+ * Логарифмы значений кешируются в [ValueRaster] для текущих значений осей: при изменении шкалы цветов
+ * значения только раскрашиваются заново, при изменении осей (размер, масштаб, сдвиг) сначала выводится
+ * растр, пересчитанный из кеша, затем в фоне считается точный. Без кеша сначала выводится грубое изображение.
+ *
+ * Сетка и [Interpolator] строятся там же в фоне через [ChartUpdatePipeline] по снимку точек серии,
+ * в поток FX передается готовый неизменяемый интерполятор, после чего изображение перерисовывается.
+ */
 class InterpolationMap @JvmOverloads constructor(
         @NamedArg("xAxis") xAxis: ValueAxis<Number>,
         @NamedArg("yAxis") yAxis: ValueAxis<Number>,
@@ -24,11 +42,19 @@ class InterpolationMap @JvmOverloads constructor(
 
     var canvasBlendMode: BlendMode by canvas.blendModeProperty()
 
-    private val _interpolateSeriesIndex = SimpleIntegerProperty(0)
+    /**
+     * Построенная интерполяция серии, [interpolator] `null` если разносов меньше двух
+     */
+    private class Interpolation(
+        val grid: InterpolationGrid,
+        val interpolator: Interpolator?,
+        val seriesIndex: Int,
+        val spatialInterpolation: SpatialInterpolation
+    )
 
-    private lateinit var interpolationParser: InterpolationParser
+    private val _interpolateSeriesIndex = SimpleIntegerProperty(0)
 
-    private var canBeInterpolated = true
+    private var interpolation: Interpolation? = null
 
     private var interpolatorIsInitialized = false
 
@@ -38,10 +64,17 @@ class InterpolationMap @JvmOverloads constructor(
         set(value) = _interpolateSeriesIndex.set(value)
 
     init {
-        interpolateSeriesIndexProperty().addListener { _, _, _ ->
-            initInterpolator()
-            draw(canvas)
-        }
+        interpolateSeriesIndexProperty().addListener { _, _, _ -> initInterpolator() }
+    }
+
+    private val _spatialInterpolation = SimpleObjectProperty(SpatialInterpolation.AUTO)
+    fun spatialInterpolationProperty() = _spatialInterpolation
+    var spatialInterpolation: SpatialInterpolation
+        get() = _spatialInterpolation.get()
+        set(value) = _spatialInterpolation.set(value)
+
+    init {
+        spatialInterpolationProperty().addListener { _, _, _ -> initInterpolator() }
     }
 
     private val _colorMapper = SimpleObjectProperty<ColorMapper?>(colorMapper)
@@ -65,10 +98,30 @@ class InterpolationMap @JvmOverloads constructor(
         colorMapper?.logScaleProperty()?.addListener { _, _, _ -> draw(canvas) }
     }
 
-    private lateinit var interpolator: Interpolator
-    private var preparedData: List<List<Data<Double, Double>>> = mutableListOf()
+    private val tiledRaster = TiledRaster(RENDER_POOL)
+
+    private val interpolationUpdate = ChartUpdatePipeline(RENDER_POOL, ::publishInterpolation, ::interpolationFailed)
+
+    // Номер последней отрисовки, результаты предыдущих отбрасываются
+    private val renderGeneration = AtomicLong(0)
+
+    // Значения осей и интерполятор последней отрисовки
+    private var viewXValues = DoubleArray(0)
+    private var viewYValues = DoubleArray(0)
+    private var viewInterpolator: Interpolator? = null
+
+    // Последние выведенные значения, для раскрашивания без пересчета
+    private var shownValues: FloatArray? = null
+
+    // Последний полностью посчитанный растр и интерполятор, из которого он получен
+    private var raster: ValueRaster? = null
+    private var rasterInterpolator: Interpolator? = null
 
-    fun interpolatedValueAtPoint(x: Double, y: Double): Double = interpolator.getValue(x, y)
+    /**
+     * @return `NaN`, пока интерполяция не построена
+     */
+    fun interpolatedValueAtPoint(x: Double, y: Double): Double =
+        interpolation?.interpolator?.getValue(x, y) ?: Double.NaN
 
     override fun layoutPlotChildren() {
         super.layoutPlotChildren()
@@ -96,75 +149,217 @@ class InterpolationMap @JvmOverloads constructor(
 
     private fun draw(canvas: Canvas) {
         if (data.isEmpty() || data[interpolateSeriesIndex].data.isEmpty()) {
+            resetView()
             canvas.clear()
             return
         }
 
-        if (!canBeInterpolated) {
+        val colorMapper = colorMapper
+        val interpolation = interpolation
+        val interpolator = interpolation?.interpolator
+        if (interpolator == null || colorMapper == null) {
+            resetView()
             canvas.clear()
             return
         }
 
-        val pw = canvas.graphicsContext2D.pixelWriter
-        val maxR = interpolationParser.maxResistance()
-        val minR = interpolationParser.minResistance()
-        for (x in 0..canvas.width.toInt()) {
-            for (y in 0..canvas.height.toInt()) {
-                val xValue = xAxis.getValueForDisplay(x.toDouble()).toDouble()
-                var yValue = yAxis.getValueForDisplay(y.toDouble()).toDouble()
-                yValue = min(max(yValue, minR), maxR)
-                if (xValue.isNaN() || yValue.isNaN()) {
-                    continue
+        val width = ceil(canvas.width).toInt()
+        val height = ceil(canvas.height).toInt()
+        if (width == 0 || height == 0) {
+            resetView()
+            return
+        }
+
+        // значения осей для каждого столбца и строки, чтобы не пересчитывать их для каждого пикселя
+        val xValues = DoubleArray(width) { xAxis.getValueForDisplay(it.toDouble()).toDouble() }
+        val yValues = DoubleArray(height) { yAxis.getValueForDisplay(it.toDouble()).toDouble() }
+
+        if (interpolator === viewInterpolator && viewXValues.contentEquals(xValues) && viewYValues.contentEquals(yValues)) {
+            // изменились только цвета или отрисовка уже идет
+            shownValues?.let { publish(canvas, renderGeneration.get(), width, height, it) }
+            return
+        }
+
+        val generation = renderGeneration.incrementAndGet()
+        val sizeChanged = width != viewXValues.size || height != viewYValues.size
+        viewXValues = xValues
+        viewYValues = yValues
+        viewInterpolator = interpolator
+        shownValues = null
+
+        val cached = raster?.takeIf { rasterInterpolator === interpolator }
+        if (cached != null && cached.isSameView(xValues, yValues)) {
+            publish(canvas, generation, width, height, cached.values)
+            return
+        }
+
+        val interpolationGrid = interpolation.grid
+        val maxR = interpolationGrid.y.last()
+        val minR = interpolationGrid.y.first()
+        val is1D = interpolationGrid.columnsCnt == 1
+        val isStale = { renderGeneration.get() != generation }
+        val valueAt = { x: Int, y: Int ->
+            val xValue = xValues[x]
+            val yValue = min(max(yValues[y], minR), maxR)
+            ValueRaster.cellValue(
+                when {
+                    xValue.isNaN() || yValue.isNaN() -> Double.NaN
+                    is1D -> interpolator.getValue(yValue)
+                    else -> interpolator.getValue(xValue, yValue)
+                }
+            )
+        }
+
+        RENDER_POOL.execute {
+            try {
+                if (cached != null) {
+                    val resampled = cached.resample(xValues, yValues)
+                    Platform.runLater { publish(canvas, generation, width, height, resampled) }
+                } else if (sizeChanged && width * height >= PROGRESSIVE_MIN_PIXELS) {
+                    tiledRaster.compute(width, height, COARSE_STEP, isStale, valueAt)?.let { values ->
+                        Platform.runLater { publish(canvas, generation, width, height, values) }
+                    }
                 }
-                if (yValue > maxR) continue
-                val fValue = if (preparedData.size == 1) {
-                    interpolator.getValue(yValue)
-                } else {
-                    interpolator.getValue(xValue, yValue)
+                tiledRaster.compute(width, height, 1, isStale, valueAt)?.let { values ->
+                    Platform.runLater {
+                        if (renderGeneration.get() == generation) {
+                            raster = ValueRaster(xValues, yValues, values)
+                            rasterInterpolator = interpolator
+                            publish(canvas, generation, width, height, values)
+                        }
+                    }
                 }
-                var color = Color.WHITE
-                try {
-                    if (fValue != -1.0) color = colorMapper?.colorFor(fValue)
-                } catch (e: RuntimeException) {
-                    println(fValue)
+            } catch (e: RuntimeException) {
+                Platform.runLater {
+                    if (renderGeneration.get() == generation) {
+                        canvas.clear()
+                        // в обработчик необработанных исключений приложения, как ошибки ChartUpdatePipeline
+                        throw e
+                    }
                 }
-                pw.setColor(x, y, color)
             }
         }
     }
 
+    private fun resetView() {
+        renderGeneration.incrementAndGet()
+        viewXValues = DoubleArray(0)
+        viewYValues = DoubleArray(0)
+        viewInterpolator = null
+        shownValues = null
+    }
 
-    @Suppress("UNCHECKED_CAST")
-    private fun initInterpolator() {
-        if (data.isEmpty()) {
+    /**
+     * Раскрашивает значения и выводит их на [canvas], если отрисовка не устарела
+     */
+    private fun publish(canvas: Canvas, generation: Long, width: Int, height: Int, values: FloatArray) {
+        val colorMapper = colorMapper
+        if (renderGeneration.get() != generation || colorMapper == null) {
             return
         }
-        val series = data[interpolateSeriesIndex]
-        if (series.data.isEmpty()) {
-            return
-        }
-        val groupByX = series.data.sortedBy { it.xValue.toDouble() }.groupBy { it.xValue }.values.toMutableList()
-
-        try {
-            groupByX[0] = groupByX[0].map {
-                Data(
-                        0.0,
-                    it.yValue,
-                    it.extraValue
-                )
+        shownValues = values
+        val argb = IntArray(values.size)
+        var lastValue = Float.NaN
+        var lastArgb = TRANSPARENT_ARGB
+        for (i in values.indices) {
+            val value = values[i]
+            argb[i] = when {
+                value.isNaN() -> TRANSPARENT_ARGB
+                value == ValueRaster.UNDEFINED -> WHITE_ARGB
+                // соседние пиксели часто совпадают, особенно после грубого прохода
+                value == lastValue -> lastArgb
+                else -> colorMapper.argbFor(exp10(value.toDouble())).also {
+                    lastValue = value
+                    lastArgb = it
+                }
             }
-        } catch (e: Exception) {
-            e.printStackTrace()
         }
-        groupByX as List<List<Data<Double, Double>>>
-        preparedData = groupByX
-        interpolationParser = InterpolationParser(preparedData)
-        if (interpolationParser.getGrid()[0].size < 2) {
-            canBeInterpolated = false
+        canvas.graphicsContext2D.pixelWriter.setPixels(
+            0, 0, width, height,
+            PixelFormat.getIntArgbInstance(), argb, 0, width
+        )
+    }
+
+    /**
+     * Ставит в очередь построение интерполяции по текущим точкам серии.
+     * Если серия и способ интерполяции не изменились, интерполяция пересчитывается вокруг измененных пикетов
+     * через [Interpolator.update]
+     */
+    private fun initInterpolator() {
+        if (data.isEmpty() || data[interpolateSeriesIndex].data.isEmpty()) {
+            interpolationUpdate.cancel()
+            interpolation = null
+            draw(canvas)
             return
-        } else {
-            canBeInterpolated = true
         }
-        interpolator = Interpolator(interpolationParser)
+        val seriesIndex = interpolateSeriesIndex
+        val spatialInterpolation = spatialInterpolation
+        // точки графика читаются только в потоке FX
+        val points = data[seriesIndex].data
+        val x = DoubleArray(points.size) { points[it].xValue.toDouble() }
+        val y = DoubleArray(points.size) { points[it].yValue.toDouble() }
+        val values = DoubleArray(points.size) { points[it].extraValue as Double }
+        val previous = interpolation
+            ?.takeIf { it.seriesIndex == seriesIndex && it.spatialInterpolation == spatialInterpolation }
+            ?.interpolator
+
+        interpolationUpdate.submit {
+            buildInterpolation(x, y, values, seriesIndex, spatialInterpolation, previous)
+        }
+    }
+
+    private fun publishInterpolation(interpolation: Interpolation) {
+        this.interpolation = interpolation
+        draw(canvas)
+    }
+
+    private fun interpolationFailed(e: Throwable) {
+        interpolation = null
+        resetView()
+        canvas.clear()
+        throw e
+    }
+
+    companion object {
+        // Шаг грубого прохода в пикселях
+        private const val COARSE_STEP = 4
+
+        // Меньшие изображения сразу считаются полностью
+        private const val PROGRESSIVE_MIN_PIXELS = 64 * 64
+
+        private const val TRANSPARENT_ARGB = 0
+        private const val WHITE_ARGB = 0xFFFFFFFF.toInt()
+
+        /**
+         * Пикеты — точки с одинаковым x, первый пикет в нуле.
+         * Если [previous] построен для той же серии тем же способом, он пересчитывается через [Interpolator.update]
+         */
+        private fun buildInterpolation(
+            x: DoubleArray,
+            y: DoubleArray,
+            values: DoubleArray,
+            seriesIndex: Int,
+            spatialInterpolation: SpatialInterpolation,
+            previous: Interpolator?
+        ): Interpolation {
+            val pickets = x.indices.groupBy { x[it] }.toSortedMap().values.toList()
+            val grid = InterpolationGrid.of(
+                DoubleArray(pickets.size) { if (it == 0) 0.0 else x[pickets[it][0]] },
+                Array(pickets.size) { i -> DoubleArray(pickets[i].size) { y[pickets[i][it]] } },
+                Array(pickets.size) { i -> DoubleArray(pickets[i].size) { values[pickets[i][it]] } }
+            )
+            val interpolator = previous?.update(grid)
+                ?: if (grid.rowsCnt < 2) null else Interpolator(grid, spatialInterpolation)
+            return Interpolation(grid, interpolator, seriesIndex, spatialInterpolation)
+        }
+
+        private val RENDER_POOL: ForkJoinPool by lazy {
+            ForkJoinPool((Runtime.getRuntime().availableProcessors() - 1).coerceAtLeast(1), { pool ->
+                ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool).apply {
+                    name = "interpolation-map-render-$poolIndex"
+                    isDaemon = true
+                }
+            }, null, false)
+        }
     }
 }
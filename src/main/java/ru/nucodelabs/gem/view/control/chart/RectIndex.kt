@@ -0,0 +1,107 @@
+package ru.nucodelabs.gem.view.control.chart
+
+import java.util.*
+import kotlin.math.ceil
+import kotlin.math.sqrt
+
+/**
+ * Индекс прямоугольников на равномерной сетке ячеек для поиска по точке и по области без перебора всех.
+ * Прямоугольник записывается во все ячейки, которые пересекает, в ячейке индексы по возрастанию.
+ * Массивы границ не копируются и не должны меняться после построения.
+ */
+class RectIndex(
+    private val minX: DoubleArray,
+    private val minY: DoubleArray,
+    private val maxX: DoubleArray,
+    private val maxY: DoubleArray
+) {
+    init {
+        require(minX.size == minY.size && minX.size == maxX.size && minX.size == maxY.size) {
+            "Размеры массивов границ не совпадают"
+        }
+    }
+
+    val size: Int
+        get() = minX.size
+
+    private val originX = minX.minOrNull() ?: 0.0
+    private val originY = minY.minOrNull() ?: 0.0
+    private val endX = maxX.maxOrNull() ?: 0.0
+    private val endY = maxY.maxOrNull() ?: 0.0
+
+    private val cellsPerAxis = ceil(sqrt(size.toDouble())).toInt().coerceIn(1, MAX_CELLS_PER_AXIS)
+    private val cellWidth = cellSize(endX - originX)
+    private val cellHeight = cellSize(endY - originY)
+
+    // Прямоугольники ячейки — cellItems[cellStart[cell] until cellStart[cell + 1]]
+    private val cellStart = IntArray(cellsPerAxis * cellsPerAxis + 1)
+    private val cellItems: IntArray
+
+    init {
+        for (i in 0 until size) {
+            forEachCell(minX[i], minY[i], maxX[i], maxY[i]) { cellStart[it + 1]++ }
+        }
+        for (cell in 1 until cellStart.size) {
+            cellStart[cell] += cellStart[cell - 1]
+        }
+        cellItems = IntArray(cellStart.last())
+        val filled = cellStart.copyOf()
+        for (i in 0 until size) {
+            forEachCell(minX[i], minY[i], maxX[i], maxY[i]) { cellItems[filled[it]++] = i }
+        }
+    }
+
+    /**
+     * Индекс последнего из прямоугольников, содержащих точку (верхнего при отрисовке по порядку), `-1` если таких нет
+     */
+    fun at(x: Double, y: Double): Int {
+        if (size == 0 || !(x in originX..endX && y in originY..endY)) {
+            return -1
+        }
+        val cell = row(y) * cellsPerAxis + column(x)
+        for (k in cellStart[cell + 1] - 1 downTo cellStart[cell]) {
+            val i = cellItems[k]
+            if (x in minX[i]..maxX[i] && y in minY[i]..maxY[i]) {
+                return i
+            }
+        }
+        return -1
+    }
+
+    /**
+     * Индексы прямоугольников, пересекающих область, включая касание границ
+     */
+    fun intersecting(x1: Double, y1: Double, x2: Double, y2: Double): BitSet {
+        val result = BitSet(size)
+        if (size == 0 || x2 < originX || x1 > endX || y2 < originY || y1 > endY) {
+            return result
+        }
+        forEachCell(x1, y1, x2, y2) { cell ->
+            for (k in cellStart[cell] until cellStart[cell + 1]) {
+                val i = cellItems[k]
+                if (minX[i] <= x2 && maxX[i] >= x1 && minY[i] <= y2 && maxY[i] >= y1) {
+                    result.set(i)
+                }
+            }
+        }
+        return result
+    }
+
+    private fun cellSize(range: Double) = if (range > 0) range / cellsPerAxis else 1.0
+
+    private fun column(x: Double) = ((x - originX) / cellWidth).toInt().coerceIn(0, cellsPerAxis - 1)
+
+    private fun row(y: Double) = ((y - originY) / cellHeight).toInt().coerceIn(0, cellsPerAxis - 1)
+
+    private inline fun forEachCell(x1: Double, y1: Double, x2: Double, y2: Double, action: (Int) -> Unit) {
+        for (row in row(y1)..row(y2)) {
+            for (column in column(x1)..column(x2)) {
+                action(row * cellsPerAxis + column)
+            }
+        }
+    }
+
+    companion object {
+        private const val MAX_CELLS_PER_AXIS = 256
+    }
+}
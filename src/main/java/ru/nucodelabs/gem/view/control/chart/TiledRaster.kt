@@ -0,0 +1,93 @@
+package ru.nucodelabs.gem.view.control.chart
+
+import java.util.concurrent.ForkJoinPool
+import java.util.concurrent.ForkJoinTask
+import kotlin.math.min
+
+/**
+ * Параллельное вычисление значений растра по тайлам.
+ *
+ * Значение пикселя `(x, y)` хранится в `values[y * width + x]`.
+ * При `step > 1` функция вычисляется только в каждом `step`-м пикселе по обеим осям,
+ * значение заполняет блок `step × step` — грубый проход для быстрого первого изображения.
+ *
+ * @param pool пул, на котором считаются тайлы
+ * @param tileSize сторона тайла в пикселях
+ */
+class TiledRaster @JvmOverloads constructor(
+    private val pool: ForkJoinPool,
+    private val tileSize: Int = TILE_SIZE_DEFAULT
+) {
+    init {
+        require(tileSize > 0) { "tileSize должен быть положительным, было $tileSize" }
+    }
+
+    /**
+     * Вычисляет растер `width × height`, возвращает `null`, если вычисление стало ненужным
+     * @param step шаг грубого прохода, 1 для полного
+     * @param isStale проверяется перед каждой строкой тайла
+     * @param valueAt значение в пикселе, вызывается параллельно из нескольких потоков
+     */
+    fun compute(
+        width: Int,
+        height: Int,
+        step: Int,
+        isStale: () -> Boolean,
+        valueAt: (x: Int, y: Int) -> Float
+    ): FloatArray? {
+        require(width >= 0 && height >= 0) { "Некорректный размер растра: $width × $height" }
+        require(step > 0) { "step должен быть положительным, было $step" }
+        val values = FloatArray(width * height)
+        // тайл кратен шагу, чтобы блоки грубого прохода не делились между тайлами
+        val tile = (tileSize + step - 1) / step * step
+        val tasks = ArrayList<ForkJoinTask<*>>()
+        for (tileY in 0 until height step tile) {
+            for (tileX in 0 until width step tile) {
+                tasks += ForkJoinTask.adapt(Runnable {
+                    fillTile(values, width, height, tileX, tileY, tile, step, isStale, valueAt)
+                })
+            }
+        }
+        if (ForkJoinTask.getPool() === pool) {
+            ForkJoinTask.invokeAll(tasks)
+        } else {
+            pool.submit(Runnable { ForkJoinTask.invokeAll(tasks) }).join()
+        }
+        return if (isStale()) null else values
+    }
+
+    private fun fillTile(
+        values: FloatArray,
+        width: Int,
+        height: Int,
+        tileX: Int,
+        tileY: Int,
+        tile: Int,
+        step: Int,
+        isStale: () -> Boolean,
+        valueAt: (x: Int, y: Int) -> Float
+    ) {
+        val endX = min(tileX + tile, width)
+        val endY = min(tileY + tile, height)
+        for (y in tileY until endY step step) {
+            if (isStale()) {
+                return
+            }
+            val blockEndY = min(y + step, endY)
+            for (x in tileX until endX step step) {
+                val value = valueAt(x, y)
+                val blockEndX = min(x + step, endX)
+                for (blockY in y until blockEndY) {
+                    val row = blockY * width
+                    for (blockX in x until blockEndX) {
+                        values[row + blockX] = value
+                    }
+                }
+            }
+        }
+    }
+
+    companion object {
+        const val TILE_SIZE_DEFAULT = 64
+    }
+}
@@ -0,0 +1,134 @@
+package ru.nucodelabs.gem.view.control.chart
+
+import java.util.*
+import kotlin.math.log10
+
+/**
+ * Растр десятичных логарифмов интерполированных значений в координатах данных.
+ *
+ * Столбец `x` растра соответствует значению [xValues]`[x]` по оси X, строка `y` — [yValues]`[y]` по оси Y,
+ * значение хранится в `values[y * width + x]`. Значения осей монотонны, но могут убывать.
+ * [Float.NaN] — значение не определено (пиксель прозрачный), [UNDEFINED] — интерполяция невозможна.
+ */
+class ValueRaster(
+    val xValues: DoubleArray,
+    val yValues: DoubleArray,
+    val values: FloatArray
+) {
+    init {
+        require(values.size == xValues.size * yValues.size) {
+            "Размер растра ${values.size} не равен ${xValues.size} × ${yValues.size}"
+        }
+    }
+
+    val width: Int
+        get() = xValues.size
+
+    val height: Int
+        get() = yValues.size
+
+    /**
+     * Растр построен для тех же значений осей
+     */
+    fun isSameView(xValues: DoubleArray, yValues: DoubleArray): Boolean =
+        Arrays.equals(this.xValues, xValues) && Arrays.equals(this.yValues, yValues)
+
+    /**
+     * Значения для других значений осей, билинейная интерполяция между соседними ячейками.
+     * Рядом с [UNDEFINED] берется ближайшая ячейка, вне растра — [Float.NaN].
+     */
+    fun resample(xValues: DoubleArray, yValues: DoubleArray): FloatArray {
+        val columns = Positions(this.xValues, xValues)
+        val rows = Positions(this.yValues, yValues)
+        val result = FloatArray(xValues.size * yValues.size)
+        for (y in yValues.indices) {
+            val row = rows.index[y]
+            val rowOffset = y * xValues.size
+            if (row < 0) {
+                Arrays.fill(result, rowOffset, rowOffset + xValues.size, Float.NaN)
+                continue
+            }
+            val nextRow = if (row + 1 < height) row + 1 else row
+            val fy = rows.fraction[y]
+            for (x in xValues.indices) {
+                val column = columns.index[x]
+                if (column < 0) {
+                    result[rowOffset + x] = Float.NaN
+                    continue
+                }
+                val nextColumn = if (column + 1 < width) column + 1 else column
+                val fx = columns.fraction[x]
+                val v00 = values[row * width + column]
+                val v01 = values[row * width + nextColumn]
+                val v10 = values[nextRow * width + column]
+                val v11 = values[nextRow * width + nextColumn]
+                result[rowOffset + x] = if (v00.isFinite() && v01.isFinite() && v10.isFinite() && v11.isFinite()) {
+                    val top = v00 + (v01 - v00) * fx
+                    val bottom = v10 + (v11 - v10) * fx
+                    top + (bottom - top) * fy
+                } else {
+                    // ближайшая ячейка
+                    val nearestRow = if (fy < 0.5f) row else nextRow
+                    val nearestColumn = if (fx < 0.5f) column else nextColumn
+                    values[nearestRow * width + nearestColumn]
+                }
+            }
+        }
+        return result
+    }
+
+    /**
+     * Для каждого значения `target` — ячейка `index` исходных значений `source` и доля пути до следующей,
+     * `index = -1` вне исходного диапазона
+     */
+    private class Positions(source: DoubleArray, target: DoubleArray) {
+        val index = IntArray(target.size)
+        val fraction = FloatArray(target.size)
+
+        init {
+            val sign = if (source.isNotEmpty() && source.last() < source.first()) -1.0 else 1.0
+            for ((i, value) in target.withIndex()) {
+                index[i] = -1
+                if (value.isNaN() || source.isEmpty()) {
+                    continue
+                }
+                val key = sign * value
+                if (key < sign * source.first() || key > sign * source.last()) {
+                    continue
+                }
+                // последняя ячейка, значение которой не больше key
+                var low = 0
+                var high = source.size - 1
+                while (low < high) {
+                    val mid = (low + high + 1) ushr 1
+                    if (sign * source[mid] <= key) low = mid else high = mid - 1
+                }
+                index[i] = low
+                fraction[i] = if (low + 1 < source.size) {
+                    val from = sign * source[low]
+                    val to = sign * source[low + 1]
+                    if (to > from) ((key - from) / (to - from)).toFloat() else 0f
+                } else {
+                    0f
+                }
+            }
+        }
+    }
+
+    companion object {
+        /**
+         * Значение ячейки, для которой интерполяция невозможна
+         */
+        const val UNDEFINED = Float.NEGATIVE_INFINITY
+
+        /**
+         * Значение ячейки для результата интерполятора, `-1` означает невозможность интерполяции
+         */
+        @JvmStatic
+        fun cellValue(interpolated: Double): Float = when {
+            interpolated.isNaN() -> Float.NaN
+            interpolated == -1.0 -> UNDEFINED
+            else -> log10(interpolated).toFloat()
+        }
+    }
+}
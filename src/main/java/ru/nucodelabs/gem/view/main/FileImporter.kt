@@ -5,6 +5,7 @@ import java.io.File
 interface FileImporter {
     fun importEXP()
     fun importEXP(file: File)
+    fun importEXP(files: List<File>)
     fun importMOD()
     fun importMOD(file: File)
     fun importJsonPicket()
@@ -8,23 +8,31 @@ import javafx.beans.property.*
 import javafx.beans.value.ObservableObjectValue
 import javafx.beans.value.ObservableValue
 import javafx.collections.ListChangeListener
+import javafx.collections.ObservableMap
 import javafx.event.Event
 import javafx.event.EventHandler
 import javafx.fxml.FXML
+import javafx.scene.Cursor
 import javafx.scene.Scene
 import javafx.scene.control.*
 import javafx.scene.input.KeyCode
 import javafx.scene.input.KeyCodeCombination
 import javafx.scene.layout.HBox
 import javafx.scene.layout.VBox
+import javafx.stage.Modality
 import javafx.stage.FileChooser
 import javafx.stage.Screen
 import javafx.stage.Stage
+import ru.nucodelabs.geo.ves.calc.inverse.InversionResult
+import ru.nucodelabs.geo.ves.calc.inverse.InversionTelemetry
 import ru.nucodelabs.geo.ves.calc.inverse.InverseSolver
+import ru.nucodelabs.geo.ves.calc.inverse.MultiStartInverseSolver
+import ru.nucodelabs.geo.ves.calc.inverse.SectionInverseSolver
 import ru.nucodelabs.gem.fxmodel.ObservableSection
 import ru.nucodelabs.geo.ves.Picket
 import ru.nucodelabs.geo.ves.Section
 import ru.nucodelabs.geo.ves.calc.xOfPicket
+import ru.nucodelabs.gem.app.io.SonetImportManager
 import ru.nucodelabs.gem.app.io.StorageManager
 import ru.nucodelabs.gem.app.pref.*
 import ru.nucodelabs.gem.app.snapshot.HistoryManager
@@ -45,6 +53,7 @@ import java.net.URL
 import java.text.DecimalFormat
 import java.text.ParseException
 import java.util.*
+import java.util.concurrent.CompletableFuture
 import java.util.prefs.PreferenceChangeEvent
 import java.util.prefs.Preferences
 import javax.inject.Inject
@@ -67,7 +76,11 @@ class MainViewController @Inject constructor(
     private val preferences: Preferences,
     private val decimalFormat: DecimalFormat,
     @FXML private val fxPreferences: FXPreferences,
-    private val inverseSolver: InverseSolver
+    private val inverseSolver: InverseSolver,
+    private val sectionInverseSolver: SectionInverseSolver,
+    private val multiStartInverseSolver: MultiStartInverseSolver,
+    private val uiProperties: ResourceBundle,
+    private val inversionTelemetry: ObservableMap<UUID, InversionTelemetry>
 ) : AbstractController(), FileImporter, FileOpener {
 
     private val windowTitle: StringProperty = SimpleStringProperty("GEM")
@@ -291,13 +304,7 @@ class MainViewController @Inject constructor(
             )
         )
         observableSection.pickets.addListener(ListChangeListener {
-            while (it.next()) {
-                if (storageManager.savedSnapshot != observableSection.snapshot()) {
-                    dirtyAsterisk.set("*")
-                } else {
-                    dirtyAsterisk.set("")
-                }
-            }
+            dirtyAsterisk.set(if (isModified()) "*" else "")
         })
         stage.titleProperty().bind(Bindings.concat(dirtyAsterisk, windowTitle))
         picketObservable.addListener { _: ObservableValue<out Picket?>?, _: Picket?, newValue: Picket? ->
@@ -383,8 +390,13 @@ class MainViewController @Inject constructor(
         resetWindowTitle()
     }
 
+    /**
+     * Есть ли несохраненные изменения
+     */
+    private fun isModified() = !observableSection.hasSamePickets(storageManager.savedSnapshot.value)
+
     private fun askToSave(event: Event): Event {
-        if (storageManager.savedSnapshot != observableSection.snapshot()) {
+        if (isModified()) {
             val saveDialog = saveDialogProvider.get()
             saveDialog.initOwner(stage)
             val answer = saveDialog.showAndWait()
@@ -407,9 +419,45 @@ class MainViewController @Inject constructor(
                 expFileChooser.initialDirectory = files[files.size - 1].parentFile
                 preferences.put(EXP_FILES_DIR.key, files[files.size - 1].parentFile.absolutePath)
             }
-            for (file in files) {
-                importEXP(file)
+            importEXP(files)
+        }
+    }
+
+    /**
+     * Файлы разбираются в фоне параллельно, пикеты добавляются в разрез одним снимком истории
+     */
+    override fun importEXP(files: List<File>) {
+        if (files.isEmpty()) {
+            return
+        }
+        stage.scene.cursor = Cursor.WAIT
+        CompletableFuture.supplyAsync { storageManager.fromEXPFiles(files) }
+            .whenComplete { imported, e ->
+                Platform.runLater {
+                    stage.scene.cursor = Cursor.DEFAULT
+                    if (e != null) {
+                        alertsFactory.simpleExceptionAlert(e.cause ?: e, stage).show()
+                    } else {
+                        addImportedPickets(imported)
+                    }
+                }
+            }
+    }
+
+    private fun addImportedPickets(imported: SonetImportManager.BulkImport) {
+        for (e in imported.errors.values) {
+            alertsFactory.incorrectFileAlert(e, stage).show()
+        }
+        val validPickets = imported.pickets.filter { picket ->
+            val violations = validator.validate(picket)
+            if (violations.isNotEmpty()) {
+                alertsFactory.violationsAlert(violations, stage).show()
             }
+            violations.isEmpty()
+        }
+        if (validPickets.isNotEmpty()) {
+            historyManager.snapshotAfter { observableSection.pickets.addAll(validPickets) }
+            picketIndex = observableSection.pickets.lastIndex
         }
     }
 
@@ -445,7 +493,7 @@ class MainViewController @Inject constructor(
 
     override fun openJsonSection(file: File) {
         try {
-            val loadedSection = storageManager.loadFromJson(file, Section::class.java)
+            val loadedSection = storageManager.loadSection(file)
             val violations = validator.validate(loadedSection)
             if (violations.isNotEmpty()) {
                 alertsFactory.violationsAlert(violations, stage).show()
@@ -469,7 +517,7 @@ class MainViewController @Inject constructor(
 
     @FXML
     private fun saveSection() {
-        if (storageManager.savedSnapshot != observableSection.snapshot()) {
+        if (isModified()) {
             saveSection(
                 if (storageManager.savedSnapshotFile != null) {
                     storageManager.savedSnapshotFile
@@ -576,15 +624,134 @@ class MainViewController @Inject constructor(
     @FXML
     private fun inverseSolve() {
         try {
+            val result = inverseSolver.solve(picket)
+            inversionTelemetry[picket.id] = result.telemetry
             historyManager.snapshotAfter {
-                observableSection.pickets[picketIndex] =
-                    picket.copy(modelData = inverseSolver.getOptimizedModelData(picket))
+                observableSection.pickets[picketIndex] = picket.copy(modelData = result.modelData)
             }
         } catch (e: Exception) {
             alertsFactory.simpleExceptionAlert(e, stage).show()
         }
     }
 
+    /**
+     * Обратная задача для всех пикетов в фоне, результаты сразу попадают в разрез,
+     * снимок истории делается один раз после завершения
+     */
+    @FXML
+    private fun inverseSolveAll() {
+        val progressBar = ProgressBar(0.0).apply { maxWidth = Double.MAX_VALUE }
+        val progressLbl = Label()
+        val cancelBtn = Button(uiProperties["cancel"])
+        val progressStage = Stage().apply {
+            title = uiProperties["inverseAll"]
+            initOwner(this@MainViewController.stage)
+            initModality(Modality.WINDOW_MODAL)
+            isResizable = false
+            scene = Scene(VBox(8.0, progressLbl, progressBar, cancelBtn).apply {
+                style = "-fx-padding: 10;"
+                prefWidth = 320.0
+                stylesheets += stylesheet
+            })
+        }
+
+        val totalCnt = observableSection.pickets.count { sectionInverseSolver.isSolvable(it) }
+        var doneCnt = 0
+        fun onPicketDone() {
+            doneCnt++
+            progressLbl.text = "$doneCnt/$totalCnt"
+            progressBar.progress = doneCnt.toDouble() / totalCnt
+        }
+        progressLbl.text = "0/$totalCnt"
+
+        val job = sectionInverseSolver.solveAsync(
+            observableSection.pickets.toList(),
+            object : SectionInverseSolver.Listener {
+                override fun onPicketSolved(index: Int, picket: Picket, result: InversionResult) {
+                    Platform.runLater {
+                        // пикеты могли сдвинуться, ищем по идентификатору
+                        val currentIndex = observableSection.pickets.indexOfFirst { it.id == picket.id }
+                        if (currentIndex >= 0) {
+                            inversionTelemetry[picket.id] = result.telemetry
+                            observableSection.pickets[currentIndex] =
+                                observableSection.pickets[currentIndex].copy(modelData = result.modelData)
+                        }
+                        onPicketDone()
+                    }
+                }
+
+                override fun onPicketFailed(index: Int, picket: Picket, e: Exception) {
+                    Platform.runLater { onPicketDone() }
+                }
+            }
+        )
+
+        cancelBtn.onAction = EventHandler {
+            job.cancel()
+            cancelBtn.isDisable = true
+        }
+        progressStage.onCloseRequest = EventHandler { job.cancel() }
+
+        job.completion.whenComplete { result, e ->
+            Platform.runLater {
+                historyManager.snapshot()
+                progressStage.close()
+                when {
+                    e != null -> alertsFactory.simpleExceptionAlert(e, stage).show()
+                    result.errors.isNotEmpty() ->
+                        alertsFactory.simpleExceptionAlert(result.errors.values.first(), stage).show()
+                }
+            }
+        }
+        progressStage.show()
+    }
+
+    /**
+     * Обратная задача для текущего пикета из нескольких стартовых моделей в фоне,
+     * затем выбор одной из лучших моделей
+     */
+    @FXML
+    private fun inverseSolveMultiStart() {
+        val solvedPicket = picket
+        stage.scene.cursor = Cursor.WAIT
+        CompletableFuture.supplyAsync { multiStartInverseSolver.solve(solvedPicket) }
+            .whenComplete { alternatives, e ->
+                Platform.runLater {
+                    stage.scene.cursor = Cursor.DEFAULT
+                    if (e != null) {
+                        alertsFactory.simpleExceptionAlert(e.cause ?: e, stage).show()
+                    } else {
+                        chooseAlternative(solvedPicket, alternatives)
+                    }
+                }
+            }
+    }
+
+    private fun chooseAlternative(solvedPicket: Picket, alternatives: List<MultiStartInverseSolver.Alternative>) {
+        val choices = alternatives.mapIndexed { i, alternative ->
+            "${i + 1}. f = ${decimalFormat.format(alternative.misfit)}, " +
+                    "слоев: ${alternative.modelData.size} (${alternative.start})"
+        }
+        val dialog = ChoiceDialog(choices.first(), choices).apply {
+            initOwner(stage)
+            title = uiProperties["inverseMultiStart"]
+            headerText = uiProperties["chooseModel"]
+            dialogPane.stylesheets += stylesheet
+        }
+        dialog.showAndWait().ifPresent { choice ->
+            val alternative = alternatives[choices.indexOf(choice)]
+            // пикеты могли сдвинуться, пока шло решение
+            val index = observableSection.pickets.indexOfFirst { it.id == solvedPicket.id }
+            if (index >= 0) {
+                inversionTelemetry[solvedPicket.id] = alternative.telemetry
+                historyManager.snapshotAfter {
+                    observableSection.pickets[index] =
+                        observableSection.pickets[index].copy(modelData = alternative.modelData)
+                }
+            }
+        }
+    }
+
     private fun saveSection(file: File?) {
         if (file != null) {
             if (file.parentFile.isDirectory) {
@@ -597,7 +764,7 @@ class MainViewController @Inject constructor(
                 )
             }
             try {
-                storageManager.saveToJson(file, observableSection.snapshot().value)
+                storageManager.saveSection(file, observableSection.snapshot().value)
                 setWindowFileTitle(file)
                 dirtyAsterisk.set("")
             } catch (e: Exception) {
@@ -7,11 +7,16 @@ import ru.nucodelabs.gem.fxmodel.ObservableSection;
 import ru.nucodelabs.geo.ves.Section;
 import ru.nucodelabs.gem.app.io.StorageManager;
 import ru.nucodelabs.gem.app.snapshot.HistoryManager;
+import ru.nucodelabs.gem.app.snapshot.SectionHistoryWeigher;
 import ru.nucodelabs.gem.app.snapshot.Snapshot;
 import ru.nucodelabs.gem.view.DialogsModule;
 import ru.nucodelabs.gem.view.charts.ChartsModule;
 
+import java.util.prefs.Preferences;
+
 import static com.google.inject.Scopes.SINGLETON;
+import static ru.nucodelabs.gem.app.pref.AppPreferencesKt.HISTORY_MAX_ENTRIES;
+import static ru.nucodelabs.gem.app.pref.AppPreferencesKt.HISTORY_MAX_MEMORY_MB;
 
 /**
  * Зависимости в пределах одного главного окна
@@ -31,8 +36,18 @@ public class MainViewModule extends AbstractModule {
 
     @Provides
     @Singleton
-    private HistoryManager<Section> sectionHistoryManager(Snapshot.Originator<Section> sectionOriginator) {
-        return new HistoryManager<>(sectionOriginator);
+    private HistoryManager<Section> sectionHistoryManager(
+            Snapshot.Originator<Section> sectionOriginator,
+            Preferences preferences
+    ) {
+        int maxEntries = preferences.getInt(HISTORY_MAX_ENTRIES.getKey(), HISTORY_MAX_ENTRIES.getDef());
+        long maxMemoryMb = preferences.getLong(HISTORY_MAX_MEMORY_MB.getKey(), HISTORY_MAX_MEMORY_MB.getDef());
+        return new HistoryManager<>(
+                sectionOriginator,
+                Math.max(maxEntries, 1),
+                maxMemoryMb * 1024 * 1024,
+                SectionHistoryWeigher.INSTANCE
+        );
     }
 
     @Provides
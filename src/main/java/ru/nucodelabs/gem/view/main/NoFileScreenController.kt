@@ -10,6 +10,7 @@ import javafx.scene.input.MouseButton
 import javafx.scene.input.TransferMode
 import javafx.scene.layout.VBox
 import javafx.stage.Stage
+import ru.nucodelabs.gem.app.io.BinarySectionFileManager
 import ru.nucodelabs.gem.app.pref.RECENT_FILES
 import ru.nucodelabs.gem.util.fx.emptyBinding
 import ru.nucodelabs.gem.view.AbstractController
@@ -86,6 +87,7 @@ class NoFileScreenController @Inject constructor(
             for (file in files) {
                 if (file.name.endsWith(".EXP", ignoreCase = true)
                     || file.name.endsWith(".json", ignoreCase = true)
+                    || BinarySectionFileManager.isBinarySection(file)
                 ) {
                     dragEvent.acceptTransferModes(*TransferMode.COPY_OR_MOVE)
                 }
@@ -101,12 +103,12 @@ class NoFileScreenController @Inject constructor(
             dragEvent.isDropCompleted = true
             dragEvent.consume()
             for (file in files) {
-                if (file.name.endsWith(".exp", ignoreCase = true)) {
-                    importEXP(file)
-                } else if (file.name.endsWith(".json", ignoreCase = true)) {
+                if (file.name.endsWith(".json", ignoreCase = true) || BinarySectionFileManager.isBinarySection(file)) {
                     openJsonSection(file)
                 }
             }
+            // разрез открывается синхронно, импорт в фоне добавит пикеты уже в открытый разрез
+            importEXP(files.filter { it.name.endsWith(".exp", ignoreCase = true) })
         }
     }
 
@@ -8,8 +8,13 @@ import javafx.beans.property.ObjectProperty;
 import javafx.beans.property.SimpleIntegerProperty;
 import javafx.beans.property.SimpleObjectProperty;
 import javafx.beans.value.ObservableObjectValue;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableMap;
 import ru.nucodelabs.gem.fxmodel.ObservableSection;
 import ru.nucodelabs.geo.ves.Picket;
+import ru.nucodelabs.geo.ves.calc.inverse.InversionTelemetry;
+
+import java.util.UUID;
 
 import static javafx.beans.binding.Bindings.createObjectBinding;
 
@@ -51,4 +56,13 @@ public class ObservableDataModule extends AbstractModule {
         ));
         return picket;
     }
+
+    /**
+     * Сведения о последнем решении обратной задачи по идентификаторам пикетов
+     */
+    @Provides
+    @Singleton
+    private ObservableMap<UUID, InversionTelemetry> provideInversionTelemetry() {
+        return FXCollections.observableHashMap();
+    }
 }
@@ -11,8 +11,6 @@ import javafx.scene.layout.HBox
 import javafx.stage.Stage
 import ru.nucodelabs.gem.fxmodel.ObservableSection
 import ru.nucodelabs.geo.ves.Section
-import ru.nucodelabs.geo.ves.calc.length
-import ru.nucodelabs.geo.ves.calc.picketsBounds
 import ru.nucodelabs.gem.app.snapshot.HistoryManager
 import ru.nucodelabs.gem.util.std.swap
 import ru.nucodelabs.gem.view.AbstractController
@@ -48,7 +46,10 @@ class PicketsBarController @Inject constructor(
 
         val buttons = mutableListOf<Button>()
 
-        val widths = section.picketsBounds().map { it.rightX - it.leftX }
+        // геометрия над изменяемым списком проверяется за O(n) при каждом вызове, поэтому берется один раз
+        val geometry = section.geometry()
+        val length = if (geometry.size > 0) geometry.length() else 0.0
+        val widths = geometry.bounds.map { it.rightX - it.leftX }
         for ((index, picket) in pickets.withIndex()) {
             // TODO использовать UI Properties
             val contextMenu = ContextMenu(
@@ -93,8 +94,8 @@ class PicketsBarController @Inject constructor(
                 prefWidthProperty().bind(
                     container.widthProperty()
                         .multiply(
-                            if (section.length() > 0) {
-                                widths[index] / section.length()
+                            if (length > 0) {
+                                widths[index] / length
                             } else {
                                 1.0
                             }
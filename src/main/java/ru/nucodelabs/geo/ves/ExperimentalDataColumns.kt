@@ -0,0 +1,71 @@
+package ru.nucodelabs.geo.ves
+
+import java.util.*
+
+/**
+ * Полевые данные по столбцам, в том же порядке, что и список, из которого построены.
+ *
+ * Массивы не копируются при чтении и не должны меняться.
+ * @property ab2 AB/2, м
+ * @property mn2 MN/2, м
+ * @property amperage Ток, мА
+ * @property voltage Напряжение, мВ
+ * @property resistanceApparent Сопротивление кажущееся, Ом * м
+ * @property errorResistanceApparent Погрешность, %
+ */
+class ExperimentalDataColumns private constructor(
+    val ab2: DoubleArray,
+    val mn2: DoubleArray,
+    val amperage: DoubleArray,
+    val voltage: DoubleArray,
+    val resistanceApparent: DoubleArray,
+    val errorResistanceApparent: DoubleArray,
+    private val hidden: BitSet
+) {
+    val size: Int
+        get() = ab2.size
+
+    fun isHidden(index: Int): Boolean = hidden[index]
+
+    /**
+     * Строки с указанными индексами в указанном порядке
+     */
+    fun select(indices: IntArray): ExperimentalDataColumns {
+        val selectedHidden = BitSet(indices.size)
+        for (k in indices.indices) {
+            if (hidden[indices[k]]) {
+                selectedHidden.set(k)
+            }
+        }
+        return ExperimentalDataColumns(
+            DoubleArray(indices.size) { ab2[indices[it]] },
+            DoubleArray(indices.size) { mn2[indices[it]] },
+            DoubleArray(indices.size) { amperage[indices[it]] },
+            DoubleArray(indices.size) { voltage[indices[it]] },
+            DoubleArray(indices.size) { resistanceApparent[indices[it]] },
+            DoubleArray(indices.size) { errorResistanceApparent[indices[it]] },
+            selectedHidden
+        )
+    }
+
+    companion object Factory {
+        @JvmStatic
+        fun of(experimentalData: List<ExperimentalData>): ExperimentalDataColumns {
+            val hidden = BitSet(experimentalData.size)
+            for (i in experimentalData.indices) {
+                if (experimentalData[i].isHidden) {
+                    hidden.set(i)
+                }
+            }
+            return ExperimentalDataColumns(
+                DoubleArray(experimentalData.size) { experimentalData[it].ab2 },
+                DoubleArray(experimentalData.size) { experimentalData[it].mn2 },
+                DoubleArray(experimentalData.size) { experimentalData[it].amperage },
+                DoubleArray(experimentalData.size) { experimentalData[it].voltage },
+                DoubleArray(experimentalData.size) { experimentalData[it].resistanceApparent },
+                DoubleArray(experimentalData.size) { experimentalData[it].errorResistanceApparent },
+                hidden
+            )
+        }
+    }
+}
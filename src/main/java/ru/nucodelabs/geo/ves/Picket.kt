@@ -5,7 +5,6 @@ import com.fasterxml.jackson.annotation.JsonIgnore
 import jakarta.validation.Valid
 import jakarta.validation.constraints.Min
 import jakarta.validation.constraints.Size
-import ru.nucodelabs.geo.ves.calc.orderByDistances
 import java.util.*
 
 /**
@@ -42,41 +41,64 @@ data class Picket(
      * Полевые(экспериментальные) данные, отсортированы по AB/2 затем по MN/2
      */
     @get:JsonGetter("experimentalData")
-    val sortedExperimentalData: List<ExperimentalData> by lazy {
+    val sortedExperimentalData: List<ExperimentalData>
 
-        val acc = mutableListOf<ExperimentalData>()
+    /**
+     * Без отключенных и если одинаковые AB/2, то с наибольшим MN/2
+     */
+    @get:JsonIgnore
+    val effectiveExperimentalData: List<ExperimentalData>
 
-        // Группируем по AB
-        val dupGroups = experimentalData.groupBy { it.ab2 }
-        for ((_, group) in dupGroups) {
-            // Если больше одного не отключенного дубликата в группе
-            acc += if (group.filter { !it.isHidden }.size > 1) {
-                val sortedGroup = group.sortedWith(orderByDistances())
-                List(sortedGroup.size) {
-                    // Отключаем все кроме последнего (с наиб. MN)
-                    if (it < sortedGroup.lastIndex) {
-                        sortedGroup[it].copy(isHidden = true)
-                    } else {
-                        sortedGroup[it].copy(isHidden = false)
-                    }
+    /**
+     * [sortedExperimentalData] по столбцам
+     */
+    @get:JsonIgnore
+    val sortedColumns: ExperimentalDataColumns
+
+    /**
+     * [effectiveExperimentalData] по столбцам
+     */
+    @get:JsonIgnore
+    val effectiveColumns: ExperimentalDataColumns
+
+    /**
+     * `effectiveToSortedIndices[i] = j` `<=>` `effectiveExperimentalData[i] = sortedExperimentalData[j]`,
+     * массив не должен меняться
+     */
+    @get:JsonIgnore
+    val effectiveToSortedIndices: IntArray
+
+    init {
+        val data = experimentalData
+        val order = data.indices.sortedWith(compareBy({ data[it].ab2 }, { data[it].mn2 }))
+
+        // Если в группе с одинаковым AB/2 больше одного не отключенного,
+        // отключаем все кроме последнего (с наиб. MN)
+        val hidden = BooleanArray(order.size) { data[order[it]].isHidden }
+        var groupStart = 0
+        while (groupStart < order.size) {
+            val ab2 = data[order[groupStart]].ab2
+            var groupEnd = groupStart + 1
+            while (groupEnd < order.size && data[order[groupEnd]].ab2.compareTo(ab2) == 0) {
+                groupEnd++
+            }
+            if ((groupStart until groupEnd).count { !hidden[it] } > 1) {
+                for (k in groupStart until groupEnd) {
+                    hidden[k] = k != groupEnd - 1
                 }
-            } else {
-                group
             }
+            groupStart = groupEnd
         }
 
-        acc.sortedWith(orderByDistances())
-    }
-
-    init {
+        sortedExperimentalData = List(order.size) { k ->
+            val measurement = data[order[k]]
+            if (measurement.isHidden != hidden[k]) measurement.copy(isHidden = hidden[k]) else measurement
+        }
         experimentalData = sortedExperimentalData
-    }
 
-    /**
-     * Без отключенных и если одинаковые AB/2, то с наибольшим MN/2
-     */
-    @get:JsonIgnore
-    val effectiveExperimentalData: List<ExperimentalData> by lazy {
-        sortedExperimentalData.filter { !it.isHidden }
+        effectiveToSortedIndices = hidden.indices.filter { !hidden[it] }.toIntArray()
+        effectiveExperimentalData = effectiveToSortedIndices.map { sortedExperimentalData[it] }
+        sortedColumns = ExperimentalDataColumns.of(sortedExperimentalData)
+        effectiveColumns = sortedColumns.select(effectiveToSortedIndices)
     }
 }
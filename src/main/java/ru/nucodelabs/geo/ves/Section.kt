@@ -1,9 +1,29 @@
 package ru.nucodelabs.geo.ves
 
+import ru.nucodelabs.geo.ves.calc.SectionGeometry
+
 /**
  * Разрез
  * @property pickets Список пикетов для данного разреза
  */
 data class Section(
     val pickets: List<Picket> = listOf()
-)
+) {
+    @Volatile
+    private var geometryCache: SectionGeometry? = null
+
+    /**
+     * Геометрия разреза, пересчитывается только если пикеты заменены, добавлены, удалены или переставлены.
+     *
+     * Из нескольких потоков можно вызывать, только если [pickets] — неизменяемый список.
+     * Если [pickets] — представление изменяемого списка (как `ObservableSection.asSection`), он проверяется
+     * при каждом вызове за O(n), и вызывать можно только из потока, который меняет список.
+     */
+    fun geometry(): SectionGeometry {
+        val cached = geometryCache
+        if (cached != null && cached.isBuiltFor(pickets)) {
+            return cached
+        }
+        return SectionGeometry.of(pickets).also { geometryCache = it }
+    }
+}
@@ -19,9 +19,7 @@ fun Picket.zOfModelLayers(): List<Double> {
  * Тогда верно следующее:
  *
  * `a[i] = j` `<=>` `effectiveExperimentalData[i] = sortedExperimentalData[j]`
+ *
+ * Массив вычислен при создании пикета и не копируется, менять его нельзя.
  */
-fun Picket.effectiveToSortedIndicesMapping(): IntArray {
-    return IntArray(effectiveExperimentalData.size) { i ->
-        sortedExperimentalData.indexOf(effectiveExperimentalData[i])
-    }
-}
\ No newline at end of file
+fun Picket.effectiveToSortedIndicesMapping(): IntArray = effectiveToSortedIndices
\ No newline at end of file
@@ -0,0 +1,82 @@
+package ru.nucodelabs.geo.ves.calc
+
+import ru.nucodelabs.geo.ves.Picket
+
+/**
+ * Геометрия разреза: координаты пикетов (префиксные суммы `offsetX`), их границы и максимальные AB/2.
+ *
+ * Строится за один проход по пикетам и не меняется, все запросы — O(1).
+ * Запоминает, по каким пикетам построена, чтобы [Section.geometry][ru.nucodelabs.geo.ves.Section.geometry]
+ * могла переиспользовать ее, пока состав пикетов не поменялся.
+ */
+class SectionGeometry private constructor(
+    private val pickets: Array<Picket>,
+    private val x: DoubleArray,
+    private val maxAb2: DoubleArray,
+    private val rightX: DoubleArray
+) {
+    val size: Int
+        get() = pickets.size
+
+    /**
+     * Границы всех пикетов, соседние границы совпадают
+     */
+    val bounds: List<Bounds> by lazy {
+        List(size) { bounds(it) }
+    }
+
+    fun xOfPicket(index: Int): Double {
+        require(index >= 0)
+        return x[index]
+    }
+
+    fun bounds(index: Int): Bounds = Bounds(leftX(index), rightX[index])
+
+    fun leftX(index: Int): Double = if (index == 0) -maxAb2[0] else rightX[index - 1]
+
+    fun rightX(index: Int): Double = rightX[index]
+
+    /**
+     * Наибольший AB/2 пикета, `0` если данных нет
+     */
+    fun maxAb2(index: Int): Double = maxAb2[index]
+
+    fun length(): Double = rightX.last() - leftX(0)
+
+    /**
+     * Построена ли по тем же экземплярам пикетов в том же порядке
+     */
+    fun isBuiltFor(pickets: List<Picket>): Boolean {
+        if (pickets.size != size) {
+            return false
+        }
+        for (i in pickets.indices) {
+            if (pickets[i] !== this.pickets[i]) {
+                return false
+            }
+        }
+        return true
+    }
+
+    companion object Factory {
+        @JvmStatic
+        fun of(pickets: List<Picket>): SectionGeometry {
+            val array = pickets.toTypedArray()
+            val n = array.size
+
+            val x = DoubleArray(n)
+            for (i in 1 until n) {
+                x[i] = x[i - 1] + array[i].offsetX
+            }
+            val maxAb2 = DoubleArray(n) { i -> array[i].sortedExperimentalData.maxOfOrNull { it.ab2 } ?: 0.0 }
+            val rightX = DoubleArray(n) { i ->
+                if (i != n - 1) {
+                    x[i] + array[i + 1].offsetX / 2
+                } else {
+                    x[i] + maxAb2[i]
+                }
+            }
+            return SectionGeometry(array, x, maxAb2, rightX)
+        }
+    }
+}
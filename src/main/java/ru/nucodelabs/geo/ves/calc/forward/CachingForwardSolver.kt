@@ -0,0 +1,88 @@
+package ru.nucodelabs.geo.ves.calc.forward
+
+import java.util.concurrent.atomic.AtomicLong
+
+/**
+ * Запоминает решения прямой задачи для последних `capacity` пар (модель, разносы), вытесняет давно не использованные.
+ *
+ * Ключ — упакованные в один массив сопротивления, мощности, AB/2 и MN/2, сравнение побитовое.
+ * Потокобезопасен, если потокобезопасен `delegate`; сам `delegate` вызывается вне блокировки.
+ */
+class CachingForwardSolver(
+    private val delegate: ForwardSolver,
+    val capacity: Int = CAPACITY_DEFAULT
+) : ForwardSolver {
+
+    init {
+        require(capacity > 0) { "capacity должен быть положительным, было $capacity" }
+    }
+
+    private val cache = object : LinkedHashMap<Key, DoubleArray>(16, 0.75f, true) {
+        override fun removeEldestEntry(eldest: MutableMap.MutableEntry<Key, DoubleArray>?): Boolean = size > capacity
+    }
+
+    private val hits = AtomicLong(0)
+    private val misses = AtomicLong(0)
+
+    val hitsCnt: Long
+        get() = hits.get()
+
+    val missesCnt: Long
+        get() = misses.get()
+
+    val size: Int
+        get() = synchronized(cache) { cache.size }
+
+    override val isNative: Boolean
+        get() = delegate.isNative
+
+    override fun solveInto(
+        resistance: DoubleArray,
+        power: DoubleArray,
+        ab2: DoubleArray,
+        mn2: DoubleArray,
+        out: DoubleArray
+    ) {
+        val key = Key(resistance, power, ab2, mn2)
+        val cached = synchronized(cache) { cache[key] }
+        if (cached != null) {
+            hits.incrementAndGet()
+            System.arraycopy(cached, 0, out, 0, ab2.size)
+            return
+        }
+        misses.incrementAndGet()
+        delegate.solveInto(resistance, power, ab2, mn2, out)
+        val solved = out.copyOf(ab2.size)
+        synchronized(cache) { cache[key] = solved }
+    }
+
+    fun clear() = synchronized(cache) { cache.clear() }
+
+    override fun toString() = "CachingForwardSolver(size=$size/$capacity, hits=$hitsCnt, misses=$missesCnt)"
+
+    /**
+     * `[n, resistance(n), power(n), ab2(m), mn2(m)]`, хэш считается один раз
+     */
+    private class Key(resistance: DoubleArray, power: DoubleArray, ab2: DoubleArray, mn2: DoubleArray) {
+        private val packed = DoubleArray(1 + resistance.size + power.size + ab2.size + mn2.size)
+        private val hash: Int
+
+        init {
+            packed[0] = resistance.size.toDouble()
+            var pos = 1
+            for (array in arrayOf(resistance, power, ab2, mn2)) {
+                System.arraycopy(array, 0, packed, pos, array.size)
+                pos += array.size
+            }
+            hash = packed.contentHashCode()
+        }
+
+        override fun equals(other: Any?) = other is Key && hash == other.hash && packed.contentEquals(other.packed)
+
+        override fun hashCode() = hash
+    }
+
+    companion object {
+        const val CAPACITY_DEFAULT = 256
+    }
+}
@@ -0,0 +1,34 @@
+package ru.nucodelabs.geo.ves.calc.forward
+
+import ru.nucodelabs.geo.ves.ExperimentalData
+import ru.nucodelabs.geo.ves.ModelLayer
+
+/**
+ * Разносы установки для прямой задачи, собранные в массивы один раз на пикет
+ * @property ab2 AB/2, м
+ * @property mn2 MN/2, м
+ */
+class ForwardGeometry(val ab2: DoubleArray, val mn2: DoubleArray) {
+
+    constructor(experimentalData: List<ExperimentalData>) : this(
+        DoubleArray(experimentalData.size) { experimentalData[it].ab2 },
+        DoubleArray(experimentalData.size) { experimentalData[it].mn2 }
+    )
+
+    init {
+        require(ab2.size == mn2.size) { "AB/2 и MN/2 разного размера: ${ab2.size} != ${mn2.size}" }
+    }
+
+    val size: Int
+        get() = ab2.size
+}
+
+/**
+ * Сопротивления слоев модели
+ */
+fun List<ModelLayer>.resistanceArray() = DoubleArray(size) { this[it].resistance }
+
+/**
+ * Мощности слоев модели (последняя — `NaN`)
+ */
+fun List<ModelLayer>.powerArray() = DoubleArray(size) { this[it].power }
@@ -8,24 +8,73 @@ interface ForwardSolver {
     /**
      * Returns solved resistance values for `modelData` that match to distances of `experimentalData`
      */
-    operator fun invoke(experimentalData: List<ExperimentalData>, modelData: List<ModelLayer>): List<Double>
+    operator fun invoke(experimentalData: List<ExperimentalData>, modelData: List<ModelLayer>): List<Double> {
+        val out = DoubleArray(experimentalData.size)
+        solveInto(modelData.resistanceArray(), modelData.powerArray(), ForwardGeometry(experimentalData), out)
+        return out.asList()
+    }
+
+    /**
+     * Writes solved resistance values for model (`resistance`, `power`) into `out`,
+     * `out[i]` matches to distances `ab2[i]`, `mn2[i]`
+     */
+    fun solveInto(
+        resistance: DoubleArray,
+        power: DoubleArray,
+        ab2: DoubleArray,
+        mn2: DoubleArray,
+        out: DoubleArray
+    )
+
+    /**
+     * Same as `solveInto` with distances taken from `geometry`
+     */
+    fun solveInto(resistance: DoubleArray, power: DoubleArray, geometry: ForwardGeometry, out: DoubleArray) =
+        solveInto(resistance, power, geometry.ab2, geometry.mn2, out)
+
+    /**
+     * Решение выполняется нативной библиотекой
+     */
+    val isNative: Boolean
+        get() = false
 
     companion object Factory {
         @JvmStatic
         fun createDefault(): ForwardSolver = ForwardSolver()
+
+        /**
+         * Решатель на JVM, не требующий нативной библиотеки.
+         * Совпадение с [createDefault] на многослойных моделях не проверено
+         */
+        @JvmStatic
+        fun createJvm(): ForwardSolver = JvmForwardSolver()
+
+        /**
+         * Решатель, запоминающий последние решения `delegate`
+         */
+        @JvmStatic
+        @JvmOverloads
+        fun createCaching(
+            delegate: ForwardSolver,
+            capacity: Int = CachingForwardSolver.CAPACITY_DEFAULT
+        ): CachingForwardSolver = CachingForwardSolver(delegate, capacity)
     }
 }
 
 fun ForwardSolver(): ForwardSolver = object : ForwardSolver {
     private val delegate = SonetForwardSolver()
-    override fun invoke(experimentalData: List<ExperimentalData>, modelData: List<ModelLayer>): List<Double> {
-        return delegate.solve(
-            modelData.map { it.resistance }.toDoubleArray(),
-            modelData.map { it.power }.toDoubleArray(),
-            modelData.size,
-            experimentalData.map { it.ab2 }.toDoubleArray(),
-            experimentalData.map { it.mn2 }.toDoubleArray(),
-            experimentalData.size
-        ).toList()
+
+    override val isNative: Boolean
+        get() = true
+
+    override fun solveInto(
+        resistance: DoubleArray,
+        power: DoubleArray,
+        ab2: DoubleArray,
+        mn2: DoubleArray,
+        out: DoubleArray
+    ) {
+        val solved = delegate.solve(resistance, power, resistance.size, ab2, mn2, ab2.size)
+        System.arraycopy(solved, 0, out, 0, ab2.size)
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,141 @@
+package ru.nucodelabs.geo.ves.calc.forward
+
+import kotlin.math.exp
+
+/**
+ * Прямая задача ВЭЗ (установка Шлюмберже) без нативной библиотеки.
+ *
+ * Кажущееся сопротивление считается через трансформанту сопротивления Пекериса,
+ * интеграл Ханкеля с J0 — линейным цифровым фильтром,
+ * конечный MN учитывается как `(F(AB/2 - MN/2) - F(AB/2 + MN/2)) / (1/(AB/2 - MN/2) - 1/(AB/2 + MN/2))`.
+ *
+ * Коэффициенты фильтра получены методом наименьших квадратов по аналитическим парам
+ * преобразования Ханкеля, относительная погрешность на двухслойных моделях не более 1e-7.
+ * Совпадение с нативным решателем MathVES на многослойных моделях не проверено: сравнение
+ * (`JvmForwardSolverTest.jvmMatchesNative`) еще не запускалось там, где MathVES доступна (Windows, macOS).
+ *
+ * Не хранит состояния, безопасен для использования из нескольких потоков.
+ */
+internal class JvmForwardSolver : ForwardSolver {
+
+    override fun solveInto(
+        resistance: DoubleArray,
+        power: DoubleArray,
+        ab2: DoubleArray,
+        mn2: DoubleArray,
+        out: DoubleArray
+    ) {
+        for (i in ab2.indices) {
+            val mn = if (mn2[i] > 0.0) mn2[i] else ab2[i] * POINT_MN_RATIO
+            val am = ab2[i] - mn
+            val an = ab2[i] + mn
+            if (am <= 0.0) {
+                // приемный электрод совпадает с питающим, предел равен сопротивлению верхнего слоя
+                out[i] = resistance[0]
+                continue
+            }
+            out[i] = (potential(am, resistance, power) - potential(an, resistance, power)) / (1.0 / am - 1.0 / an)
+        }
+    }
+
+    /**
+     * Интеграл `∫ T(λ) J0(λr) dλ`
+     */
+    private fun potential(r: Double, resistance: DoubleArray, power: DoubleArray): Double {
+        var sum = 0.0
+        for (j in WEIGHTS.indices) {
+            sum += WEIGHTS[j] * transform(exp(X0 + j * STEP) / r, resistance, power)
+        }
+        return sum / r
+    }
+
+    /**
+     * Трансформанта сопротивления, рекуррентно от подстилающего слоя к верхнему
+     */
+    private fun transform(lambda: Double, resistance: DoubleArray, power: DoubleArray): Double {
+        val last = resistance.lastIndex
+        if (last == 0 || 2.0 * lambda * power[0] > SATURATION) {
+            return resistance[0]
+        }
+        var t = resistance[last]
+        for (i in last - 1 downTo 0) {
+            val x = 2.0 * lambda * power[i]
+            if (x > SATURATION) {
+                t = resistance[i]
+            } else {
+                val e = exp(-x)
+                val th = (1.0 - e) / (1.0 + e)
+                t = (t + resistance[i] * th) / (1.0 + t * th / resistance[i])
+            }
+        }
+        return t
+    }
+
+    private companion object {
+        /**
+         * При `2λh` больше этого значения `tanh(λh) == 1` в пределах точности double
+         */
+        const val SATURATION = 40.0
+
+        /**
+         * MN/2 относительно AB/2 для точек без MN
+         */
+        const val POINT_MN_RATIO = 1e-3
+
+        const val X0 = -8.0
+        const val STEP = 0.08
+
+        val WEIGHTS = doubleArrayOf(
+            8.744604630572319e+01, -8.100632103571132e+02, 3.152006745772551e+03, -6.467592937542428e+03,
+            6.720076362098599e+03, -1.108171797946243e+03, -5.741836465383275e+03, 7.250160811575362e+03,
+            -4.925114980188428e+03, 4.087183992026517e+03, -4.375319343379403e+03, 3.568850312289767e+03,
+            -3.175167190338171e+03, 3.594911238222093e+03, -2.856251176032216e+03, 2.449521035037902e+03,
+            -5.046004528902251e+03, 7.821304569288702e+03, -6.462508236474375e+03, 2.623857789776880e+03,
+            -9.722522998108933e+02, 2.386700898929752e+03, -4.362137333748933e+03, 4.908790382383637e+03,
+            -3.449947516588994e+03, 5.500307453519154e+02, 1.715972865086069e+03, -1.272425947836498e+03,
+            -1.139199729584783e+03, 2.376221368424156e+03, -8.219134611999989e+02, -1.558867503323360e+03,
+            1.888249940830984e+03, 1.215321436983823e+01, -1.712986439463470e+03, 1.325328232687246e+03,
+            5.230527523035231e+02, -1.887848364873674e+03, 1.822934916103072e+03, -1.020303687919973e+03,
+            5.597376407268148e+02, -6.543043391181743e+02, 7.278269247044135e+02, -3.308081683664611e+02,
+            -3.500617448230892e+02, 8.243910449521517e+02, -8.748577473342941e+02, 6.923310070904254e+02,
+            -5.517461453869835e+02, 5.058190304583883e+02, -4.185814104150481e+02, 2.021645590816223e+02,
+            6.706483180090935e+01, -2.552861055523019e+02, 3.201612279019284e+02, -3.163830832221573e+02,
+            2.924593437812262e+02, -2.398249319080503e+02, 1.462440140084867e+02, -4.800429864771917e+01,
+            -4.100044878025429e+00, 8.513106775557121e+00, -7.872374503626989e+00, 2.742100490824269e+01,
+            -5.009040488911807e+01, 5.576863469207668e+01, -5.230974399366460e+01, 5.155005719551261e+01,
+            -4.058655103923955e+01, 5.617645331069590e+00, 3.080446080342896e+01, -3.019189308719609e+01,
+            -3.764102061219791e+00, 2.171238803011019e+01, 4.892933654734700e+00, -4.117779876918683e+01,
+            3.643187514711713e+01, 5.112785839803093e+00, -2.924407116093576e+01, 3.403670717678950e+00,
+            4.521613006540949e+01, -6.726123527341000e+01, 4.728108008551290e+01, -9.760564801869863e+00,
+            -1.499299944518855e+01, 1.800569832823285e+01, -8.403057100906850e+00, -7.925022339470975e-01,
+            2.692594139122235e+00, 2.629681506227266e+00, -9.430057539895650e+00, 1.197105848364185e+01,
+            -8.222267692545959e+00, 1.816847238063394e+00, 2.775356549376756e+00, -2.980927018878821e+00,
+            3.987614569678378e-01, 2.654059002915996e+00, -3.826076681352112e+00, 3.230121247016227e+00,
+            -1.200609809280047e+00, -7.349250619446595e-01, 2.347250996808070e+00, -2.873888819136800e+00,
+            2.930638310361653e+00, -2.284203972020334e+00, 1.738898278844717e+00, -1.066668052174027e+00,
+            8.434267819546742e-01, -7.259313107886318e-01, 9.365625409125626e-01, -1.149035016886543e+00,
+            1.269737653687946e+00, -1.278134864875626e+00, 8.738109983757245e-01, -5.694816467945782e-01,
+            -1.524044388447160e-01, 3.411418712502975e-01, -8.255591470337497e-01, 5.979380711361553e-01,
+            -6.218821248343818e-01, 2.931387783030168e-01, -9.116779419740172e-02, 1.904713163895294e-01,
+            1.638331359763329e-02, 4.317358817284970e-01, -2.375307313621807e-01, 3.085129891944335e-01,
+            -2.828426035688715e-01, -2.825995985680020e-01, 1.403573370141665e-01, -3.622968880900095e-01,
+            5.790975177966069e-01, -4.371536002301609e-02, -2.100124606969975e-02, -1.086259973431534e-01,
+            -3.635413508853155e-01, 6.433548940079042e-01, -3.193641493556729e-01, 9.440909742301444e-02,
+            -3.048284280214818e-01, 5.820424989875502e-01, -6.124557421404598e-01, 4.398716238658971e-01,
+            -2.342591988716602e-01, 9.103856171194594e-02, -1.798073151040087e-02, -1.040159526708931e-02,
+            1.769185744018117e-02, -1.724645400611408e-02, 1.487819109823942e-02, -1.262682206063008e-02,
+            1.103468293358327e-02, -1.017386789816323e-02, 1.004312355009494e-02, -1.072318671942784e-02,
+            1.248116905436409e-02, -1.593487418223361e-02, 2.240386257887405e-02, -3.467766935485339e-02,
+            5.857605788825205e-02, -1.053085808071356e-01, 1.910841135207870e-01, -3.222184601100339e-01,
+            4.590777729813547e-01, -4.987108213410868e-01, 3.526267044415650e-01, -9.146695399084809e-02,
+            -5.238660884547809e-02, -6.126553866995517e-02, 2.601371895541482e-01, -2.451892234742699e-01,
+            -8.696563131255948e-03, 2.216679416067907e-01, -2.103364439388313e-01, 1.090570891755867e-01,
+            -9.654359981311311e-02, 1.097899675801511e-01, -1.623320404736900e-03, -1.641052693168684e-01,
+            1.872737883316176e-01, -4.173100165357412e-02, -8.532085506040403e-02, 6.586564661119866e-02,
+            1.895506724143921e-02, -3.980251651541666e-02, 5.010809734224856e-04, 1.187340989763200e-02,
+            2.503609409423966e-02, -5.251557151340499e-02, 2.894198989102161e-02, 2.102628385168899e-02,
+            -5.175127221958357e-02, 4.909994380036150e-02, -2.974219929395197e-02, 1.256132886419093e-02,
+            -3.729527425870500e-03, 7.492099427004134e-04, -9.194912848723430e-05, 5.221102647867162e-06
+        )
+    }
+}
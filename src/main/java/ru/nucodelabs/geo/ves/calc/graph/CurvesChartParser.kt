@@ -2,7 +2,6 @@ package ru.nucodelabs.geo.ves.calc.graph
 
 import ru.nucodelabs.geo.ves.calc.Bounds
 import ru.nucodelabs.geo.ves.Section
-import ru.nucodelabs.geo.ves.calc.picketsBounds
 import javax.inject.Inject
 import kotlin.math.min
 
@@ -42,9 +41,11 @@ class CurvesChartParser @Inject constructor(inputSection: Section) {
     }
 
     private fun addXValues() {
+        val geometry = section.geometry()
         for (picketIdx in resistances.indices) {
+            val leftX = geometry.leftX(picketIdx)
             resistances[picketIdx] =
-                resistances[picketIdx].map { e -> e + section.picketsBounds()[picketIdx].leftX } as MutableList<Double>
+                resistances[picketIdx].map { e -> e + leftX } as MutableList<Double>
         }
     }
 
@@ -78,10 +79,11 @@ class CurvesChartParser @Inject constructor(inputSection: Section) {
     }
 
     private fun setK() {
+        val geometry = section.geometry()
         for (picketIdx in resistances.indices) {
             if (resistances[picketIdx].isEmpty())
                 continue
-            resistanceK = min(resistanceK, getKFor(resistances[picketIdx], section.picketsBounds()[picketIdx]))
+            resistanceK = min(resistanceK, getKFor(resistances[picketIdx], geometry.bounds(picketIdx)))
         }
     }
 
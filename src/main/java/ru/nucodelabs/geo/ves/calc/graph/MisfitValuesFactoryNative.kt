@@ -1,8 +1,11 @@
 package ru.nucodelabs.geo.ves.calc.graph
 
-import ru.nucodelabs.geo.ves.calc.forward.ForwardSolver
 import ru.nucodelabs.geo.ves.ExperimentalData
 import ru.nucodelabs.geo.ves.ModelLayer
+import ru.nucodelabs.geo.ves.calc.forward.ForwardGeometry
+import ru.nucodelabs.geo.ves.calc.forward.ForwardSolver
+import ru.nucodelabs.geo.ves.calc.forward.powerArray
+import ru.nucodelabs.geo.ves.calc.forward.resistanceArray
 import kotlin.math.abs
 import kotlin.math.sign
 
@@ -13,22 +16,29 @@ internal class MisfitValuesFactoryNative(val forwardSolver: ForwardSolver) : Mis
             return listOf()
         }
 
-        val resistanceApparent = experimentalData.map { it.resistanceApparent }
-        val errorResistanceApparent = experimentalData.map { it.errorResistanceApparent }
+        val res = DoubleArray(experimentalData.size)
+        forwardSolver.solveInto(
+            modelData.resistanceArray(),
+            modelData.powerArray(),
+            ForwardGeometry(experimentalData),
+            res
+        )
+        return misfits(experimentalData, res)
+    }
 
-        val solvedResistance = forwardSolver(experimentalData, modelData)
-        val res = mutableListOf<Double>()
+    override fun misfits(experimentalData: List<ExperimentalData>, solvedResistance: DoubleArray): List<Double> {
+        require(solvedResistance.size == experimentalData.size) { "Размеры данных и теоретической кривой не совпадают" }
+        val res = DoubleArray(experimentalData.size)
         for (i in experimentalData.indices) {
-            val value = abs(
+            val resistanceApparent = experimentalData[i].resistanceApparent
+            res[i] = abs(
                 ru.nucodelabs.mathves.MisfitFunctions.calculateRelativeDeviationWithError(
-                    resistanceApparent[i],
-                    errorResistanceApparent[i] / 100f,
+                    resistanceApparent,
+                    experimentalData[i].errorResistanceApparent / 100f,
                     solvedResistance[i]
                 )
-            ) * sign(solvedResistance[i] - resistanceApparent[i]) * 100f
-
-            res.add(value)
+            ) * sign(solvedResistance[i] - resistanceApparent) * 100f
         }
-        return res
+        return res.asList()
     }
-}
\ No newline at end of file
+}
@@ -10,6 +10,11 @@ interface MisfitsFunction {
      */
     operator fun invoke(experimentalData: List<ExperimentalData>, modelData: List<ModelLayer>): List<Double>
 
+    /**
+     * Отклонения по уже посчитанной теоретической кривой, `solvedResistance[i]` — значение для `experimentalData[i]`
+     */
+    fun misfits(experimentalData: List<ExperimentalData>, solvedResistance: DoubleArray): List<Double>
+
     companion object Factory {
         @JvmStatic
         fun createDefault(forwardSolver: ForwardSolver): MisfitsFunction = MisfitsFunction(forwardSolver)
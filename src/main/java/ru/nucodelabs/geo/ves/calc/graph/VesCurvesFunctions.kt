@@ -1,13 +1,17 @@
 package ru.nucodelabs.geo.ves.calc.graph
 
+import ru.nucodelabs.geo.ves.calc.forward.ForwardGeometry
 import ru.nucodelabs.geo.ves.calc.forward.ForwardSolver
+import ru.nucodelabs.geo.ves.calc.forward.powerArray
+import ru.nucodelabs.geo.ves.calc.forward.resistanceArray
 import ru.nucodelabs.geo.ves.Picket
 import ru.nucodelabs.geo.ves.calc.resistanceApparentLowerBoundByError
 import ru.nucodelabs.geo.ves.calc.resistanceApparentUpperBoundByError
 
 class VesCurvesContext(val picket: Picket) {
     val experimentalCurve by lazy {
-        picket.effectiveExperimentalData.map { Point(it.ab2, it.resistanceApparent) }
+        val columns = picket.effectiveColumns
+        List(columns.size) { Point(columns.ab2[it], columns.resistanceApparent[it]) }
     }
 
     val experimentalCurveErrorUpperBound by lazy {
@@ -22,19 +26,38 @@ class VesCurvesContext(val picket: Picket) {
         picket.sortedExperimentalData.filter { it.isHidden }.map { Point(it.ab2, it.resistanceApparent) }
     }
 
+    private val sortedGeometry by lazy {
+        ForwardGeometry(picket.sortedColumns.ab2, picket.sortedColumns.mn2)
+    }
+
     fun theoreticalCurveBy(forwardSolver: ForwardSolver): List<Point> {
         if (picket.sortedExperimentalData.isEmpty() || picket.modelData.isEmpty()) {
             return listOf()
         }
-        val solvedResistance = forwardSolver(picket.sortedExperimentalData, picket.modelData)
-        return List(picket.sortedExperimentalData.size) { i ->
-            Point(picket.sortedExperimentalData[i].ab2, solvedResistance[i])
+        val solvedResistance = DoubleArray(sortedGeometry.size)
+        forwardSolver.solveInto(
+            picket.modelData.resistanceArray(),
+            picket.modelData.powerArray(),
+            sortedGeometry,
+            solvedResistance
+        )
+        return List(sortedGeometry.size) { i ->
+            Point(sortedGeometry.ab2[i], solvedResistance[i])
         }
     }
 
     fun misfitsBy(misfitsFunction: MisfitsFunction): List<Double> =
         misfitsFunction(picket.effectiveExperimentalData, picket.modelData)
 
+    /**
+     * Значения [theoreticalCurve] (результат [theoreticalCurveBy]) в точках [Picket.effectiveExperimentalData],
+     * без повторного решения прямой задачи
+     */
+    fun effectiveSolvedResistance(theoreticalCurve: List<Point>): DoubleArray {
+        val indices = picket.effectiveToSortedIndices
+        return DoubleArray(indices.size) { theoreticalCurve[indices[it]].y }
+    }
+
     fun modelStepGraph(beginX: Double = 1e-3, endX: Double = 1e100): List<Point> {
         val modelData = picket.modelData
 
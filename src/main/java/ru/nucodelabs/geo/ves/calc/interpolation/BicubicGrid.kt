@@ -0,0 +1,120 @@
+package ru.nucodelabs.geo.ves.calc.interpolation
+
+import java.util.*
+
+/**
+ * Бикубическая интерполяция Эрмита на прямоугольной сетке.
+ *
+ * Производные в узлах — центральные разности, на границе сетки нулевые, как у `BicubicInterpolator` из commons-math.
+ * Значения и производные хранятся по столбцам (`f[i][j]` — узел `(x[i], y[j])`), сетка неизменяема.
+ * [withColumns] пересчитывает производные только в соседних с измененными столбцах,
+ * остальные столбцы общие с исходной сеткой.
+ */
+class BicubicGrid private constructor(
+    private val x: DoubleArray,
+    private val y: DoubleArray,
+    private val f: Array<DoubleArray>,
+    private val dFdX: Array<DoubleArray>,
+    private val dFdY: Array<DoubleArray>,
+    private val d2FdXdY: Array<DoubleArray>
+) {
+    constructor(x: DoubleArray, y: DoubleArray, f: Array<DoubleArray>) : this(
+        x.copyOf(),
+        y.copyOf(),
+        f.copyOf(),
+        Array(x.size) { DoubleArray(0) },
+        Array(x.size) { DoubleArray(0) },
+        Array(x.size) { DoubleArray(0) }
+    ) {
+        computeDerivatives(0, x.lastIndex)
+    }
+
+    init {
+        require(x.size >= 2 && y.size >= 2) { "Сетка должна быть не меньше 2 × 2, было ${x.size} × ${y.size}" }
+        require(f.size == x.size && f.all { it.size == y.size }) { "Размер значений не совпадает с сеткой" }
+    }
+
+    /**
+     * Сетка с замененными столбцами `from..from + columns.size - 1`
+     */
+    fun withColumns(from: Int, columns: Array<DoubleArray>): BicubicGrid {
+        val to = from + columns.size - 1
+        require(from >= 0 && to <= x.lastIndex) { "Столбцы $from..$to вне сетки из ${x.size}" }
+        require(columns.all { it.size == y.size }) { "Размер столбца не совпадает с сеткой" }
+        val newF = f.copyOf()
+        for (i in columns.indices) {
+            newF[from + i] = columns[i]
+        }
+        val grid = BicubicGrid(x, y, newF, dFdX.copyOf(), dFdY.copyOf(), d2FdXdY.copyOf())
+        // производные в столбце зависят от соседних
+        grid.computeDerivatives(maxOf(from - 1, 0), minOf(to + 1, x.lastIndex))
+        return grid
+    }
+
+    /**
+     * Значение в точке, вне сетки берется ближайшая точка сетки
+     */
+    fun value(px: Double, py: Double): Double {
+        val i = cellIndex(px, x)
+        val j = cellIndex(py, y)
+        val xR = x[i + 1] - x[i]
+        val yR = y[j + 1] - y[j]
+        val t = ((px - x[i]) / xR).coerceIn(0.0, 1.0)
+        val u = ((py - y[j]) / yR).coerceIn(0.0, 1.0)
+
+        // базисные функции Эрмита: значение в 0, в 1, производная в 0, в 1
+        val t2 = t * t
+        val t3 = t2 * t
+        val ht0 = 2 * t3 - 3 * t2 + 1
+        val ht1 = 3 * t2 - 2 * t3
+        val gt0 = (t3 - 2 * t2 + t) * xR
+        val gt1 = (t3 - t2) * xR
+        val u2 = u * u
+        val u3 = u2 * u
+        val hu0 = 2 * u3 - 3 * u2 + 1
+        val hu1 = 3 * u2 - 2 * u3
+        val gu0 = (u3 - 2 * u2 + u) * yR
+        val gu1 = (u3 - u2) * yR
+
+        return corner(i, j, ht0, gt0, hu0, gu0) +
+                corner(i + 1, j, ht1, gt1, hu0, gu0) +
+                corner(i, j + 1, ht0, gt0, hu1, gu1) +
+                corner(i + 1, j + 1, ht1, gt1, hu1, gu1)
+    }
+
+    private fun corner(i: Int, j: Int, hx: Double, gx: Double, hy: Double, gy: Double): Double =
+        f[i][j] * hx * hy + dFdX[i][j] * gx * hy + dFdY[i][j] * hx * gy + d2FdXdY[i][j] * gx * gy
+
+    private fun computeDerivatives(fromColumn: Int, toColumn: Int) {
+        for (i in fromColumn..toColumn) {
+            val columnDx = DoubleArray(y.size)
+            val columnDy = DoubleArray(y.size)
+            val columnDxy = DoubleArray(y.size)
+            if (i > 0 && i < x.lastIndex) {
+                val deltaX = x[i + 1] - x[i - 1]
+                val next = f[i + 1]
+                val prev = f[i - 1]
+                for (j in 1 until y.lastIndex) {
+                    val deltaY = y[j + 1] - y[j - 1]
+                    columnDx[j] = (next[j] - prev[j]) / deltaX
+                    columnDy[j] = (f[i][j + 1] - f[i][j - 1]) / deltaY
+                    columnDxy[j] = (next[j + 1] - next[j - 1] - prev[j + 1] + prev[j - 1]) / (deltaX * deltaY)
+                }
+            }
+            dFdX[i] = columnDx
+            dFdY[i] = columnDy
+            d2FdXdY[i] = columnDxy
+        }
+    }
+
+    private companion object {
+        /**
+         * Индекс нижнего узла ячейки, содержащей `c`
+         */
+        fun cellIndex(c: Double, values: DoubleArray): Int {
+            val r = Arrays.binarySearch(values, c)
+            val index = if (r >= 0) r else -r - 2
+            return index.coerceIn(0, values.size - 2)
+        }
+    }
+}
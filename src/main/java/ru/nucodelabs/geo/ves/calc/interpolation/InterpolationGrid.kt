@@ -0,0 +1,106 @@
+package ru.nucodelabs.geo.ves.calc.interpolation
+
+import java.util.*
+import kotlin.math.log10
+
+/**
+ * Сетка псевдоразреза: столбцы — пикеты, строки — все встречающиеся разносы AB/2 по возрастанию.
+ *
+ * Значения хранятся по столбцам, логарифмы считаются один раз при построении.
+ * Разносы, которых нет на пикете, отмечены в битовом множестве, значение в них `NaN`.
+ * Массивы не копируются при чтении и не должны меняться. Не зависит от JavaFX.
+ */
+class InterpolationGrid private constructor(
+    /**
+     * Положения пикетов
+     */
+    val x: DoubleArray,
+    /**
+     * Разносы AB/2 по возрастанию
+     */
+    val y: DoubleArray,
+    private val values: Array<DoubleArray>,
+    private val logValues: Array<DoubleArray>,
+    // Индекс ячейки — column * y.size + row
+    private val missed: BitSet
+) {
+    val columnsCnt: Int
+        get() = x.size
+
+    val rowsCnt: Int
+        get() = y.size
+
+    val missedCnt: Int
+        get() = missed.cardinality()
+
+    /**
+     * Значения пикета, `NaN` для пропущенных разносов
+     */
+    fun values(column: Int): DoubleArray = values[column]
+
+    /**
+     * Десятичные логарифмы значений пикета, `NaN` для пропущенных разносов
+     */
+    fun logValues(column: Int): DoubleArray = logValues[column]
+
+    fun isMissed(column: Int, row: Int): Boolean = missed[column * y.size + row]
+
+    fun hasMissed(column: Int): Boolean {
+        val next = missed.nextSetBit(column * y.size)
+        return next >= 0 && next < (column + 1) * y.size
+    }
+
+    /**
+     * Совпадают ли положения пикетов и разносы
+     */
+    fun isSameStructure(other: InterpolationGrid): Boolean = x.contentEquals(other.x) && y.contentEquals(other.y)
+
+    companion object {
+        /**
+         * @param x положения пикетов по возрастанию
+         * @param ab2 разносы AB/2 каждого пикета, в любом порядке
+         * @param values значения каждого пикета, для повторяющихся разносов берется первое
+         */
+        @JvmStatic
+        fun of(x: DoubleArray, ab2: Array<DoubleArray>, values: Array<DoubleArray>): InterpolationGrid {
+            require(ab2.size == x.size && values.size == x.size) { "Число пикетов не совпадает" }
+            for (i in x.indices) {
+                require(ab2[i].isNotEmpty()) { "Пикет $i пустой" }
+                require(ab2[i].size == values[i].size) { "Размеры разносов и значений пикета $i не совпадают" }
+            }
+
+            val y = uniqueSorted(ab2)
+            val missed = BitSet(x.size * y.size)
+            missed.set(0, x.size * y.size)
+            val gridValues = Array(x.size) { DoubleArray(y.size) { Double.NaN } }
+            for (i in x.indices) {
+                for (k in ab2[i].indices) {
+                    val cell = i * y.size + Arrays.binarySearch(y, ab2[i][k])
+                    if (missed[cell]) {
+                        missed.clear(cell)
+                        gridValues[i][cell - i * y.size] = values[i][k]
+                    }
+                }
+            }
+            val logValues = Array(x.size) { i -> DoubleArray(y.size) { j -> log10(gridValues[i][j]) } }
+            return InterpolationGrid(x.copyOf(), y, gridValues, logValues, missed)
+        }
+
+        private fun uniqueSorted(columns: Array<DoubleArray>): DoubleArray {
+            val all = DoubleArray(columns.sumOf { it.size })
+            var cnt = 0
+            for (column in columns) {
+                column.copyInto(all, cnt)
+                cnt += column.size
+            }
+            all.sort()
+            var unique = 0
+            for (k in all.indices) {
+                if (k == 0 || all[k] != all[unique - 1]) {
+                    all[unique++] = all[k]
+                }
+            }
+            return all.copyOf(unique)
+        }
+    }
+}
@@ -1,43 +1,60 @@
 package ru.nucodelabs.geo.ves.calc.interpolation
 
-import javafx.scene.chart.XYChart
-import org.apache.commons.math3.analysis.interpolation.BicubicInterpolatingFunction
 import org.apache.commons.math3.analysis.polynomials.PolynomialSplineFunction
 import ru.nucodelabs.gem.util.std.exp10
 
-class Interpolator(
-    private var interpolationParser: InterpolationParser
+/**
+ * Интерполяция псевдоразреза: пропущенные точки сетки заполняются [SpatialInterpolator],
+ * между пикетами — бикубическая интерполяция, слева и справа от крайних пикетов — сплайны по крайним пикетам.
+ *
+ * Экземпляр неизменяем, [update] возвращает новый, пересчитывая только измененные пикеты и их окрестность.
+ */
+class Interpolator private constructor(
+    private val spatialInterpolation: SpatialInterpolation,
+    // Столбцы — пикеты, строки — разносы
+    private val grid: InterpolationGrid,
+    // Логарифмы значений с заполненными пропусками, столбцы без пропусков общие с сеткой
+    private val logF: Array<DoubleArray>,
+    private val bicubic: BicubicGrid?,
+    private val leftSideSplineFunction: PolynomialSplineFunction?,
+    private val rightSideSplineFunction: PolynomialSplineFunction?
 ) {
-    private lateinit var grid: MutableList<MutableList<XYChart.Data<Double, Double>>>
-
-    private lateinit var missedPoints: List<List<XYChart.Data<Double, Double>>>
-
-    private var adjustedGrid: MutableList<MutableList<XYChart.Data<Double, Double>>> = arrayListOf()
-
-    private lateinit var bicubicInterpolatingFunction: BicubicInterpolatingFunction
-
-    private lateinit var leftSideSplineFunction: PolynomialSplineFunction
-
-    private lateinit var rightSideSplineFunction: PolynomialSplineFunction
-
-    private var leftSideInterpolated = true
-
-    private var rightSideInterpolated = true
-
-    init {
-        initGrid()
-        interpolationParser.gridToLogValues(grid)
-        adjustGrid()
-        checkInterpolated()
-        if (leftSideInterpolated) leftSideSplineFunction = interpolateSide(adjustedGrid[0])
-        if (adjustedGrid.size != 1) {
-            interpolateGrid()
-            if (rightSideInterpolated) rightSideSplineFunction = interpolateSide(adjustedGrid.last())
-        }
-    }
+    private val gridX = grid.x
+
+    /**
+     * @param spatialInterpolation чем заполняются пропущенные точки сетки
+     */
+    @JvmOverloads
+    constructor(
+        grid: InterpolationGrid,
+        spatialInterpolation: SpatialInterpolation = SpatialInterpolation.AUTO
+    ) : this(
+        spatialInterpolation,
+        grid,
+        fillMissed(spatialInterpolation, grid, 0, grid.columnsCnt - 1, 0, grid.columnsCnt - 1)
+    )
+
+    @JvmOverloads
+    constructor(
+        interpolationParser: InterpolationParser,
+        spatialInterpolation: SpatialInterpolation = SpatialInterpolation.AUTO
+    ) : this(interpolationParser.grid, spatialInterpolation)
+
+    private constructor(
+        spatialInterpolation: SpatialInterpolation,
+        grid: InterpolationGrid,
+        logF: Array<DoubleArray>
+    ) : this(
+        spatialInterpolation,
+        grid,
+        logF,
+        if (grid.columnsCnt > 1) BicubicGrid(grid.x, grid.y, logF) else null,
+        sideSpline(grid.y, logF.first()),
+        if (grid.columnsCnt > 1) sideSpline(grid.y, logF.last()) else null
+    )
 
     fun getValue(y: Double): Double {
-        return if (leftSideInterpolated) {
+        return if (leftSideSplineFunction != null) {
             exp10(leftSideSplineFunction.value(y))
         } else {
             -1.0
@@ -45,84 +62,123 @@ class Interpolator(
     }
 
     fun getValue(x: Double, y: Double): Double {
-        return when (getRange(x)) {
-            Side.LEFT ->
-                if (leftSideInterpolated) {
-                    exp10(interpolateSidePoint(y, leftSideSplineFunction))
+        return when {
+            x < gridX.first() ->
+                if (leftSideSplineFunction != null) {
+                    exp10(leftSideSplineFunction.value(y))
                 } else {
                     -1.0
                 }
-            Side.MIDDLE -> exp10(bicubicInterpolatingFunction.value(x, y))
-            Side.RIGHT ->
-                if (rightSideInterpolated) {
-                exp10(interpolateSidePoint(y, rightSideSplineFunction))
-            } else {
-                -1.0
-            }
+            x > gridX.last() ->
+                if (rightSideSplineFunction != null) {
+                    exp10(rightSideSplineFunction.value(y))
+                } else {
+                    -1.0
+                }
+            bicubic != null -> exp10(bicubic.value(x, y))
+            else -> getValue(y)
         }
     }
 
-    private fun checkInterpolated() {
-        if (adjustedGrid[0].size < 3) leftSideInterpolated = false
-        if (adjustedGrid.last().size < 3) rightSideInterpolated = false
-    }
-
-    private fun initGrid() {
-        grid = interpolationParser.getGrid()
-        missedPoints = interpolationParser.getMissedPoints()
-    }
+    /**
+     * Интерполяция для новой сетки с теми же пикетами и разносами.
+     *
+     * Пропуски заполняются заново только в пределах [INFILL_RADIUS] пикетов от измененных по точкам соседних пикетов,
+     * бикубическая интерполяция и сплайны пересчитываются только там, где изменились значения.
+     *
+     * @return новый экземпляр, этот же, если значения не изменились,
+     * `null` если изменились положения пикетов или набор разносов, тогда нужен новый [Interpolator]
+     */
+    fun update(newGrid: InterpolationGrid): Interpolator? {
+        if (!grid.isSameStructure(newGrid)) {
+            return null
+        }
+        var firstChanged = -1
+        var lastChanged = -1
+        for (i in 0 until grid.columnsCnt) {
+            if (!newGrid.values(i).contentEquals(grid.values(i))) {
+                if (firstChanged < 0) firstChanged = i
+                lastChanged = i
+            }
+        }
+        if (firstChanged < 0) {
+            return this
+        }
 
-    private fun adjustGrid() {
-        val spatialInterpolator: SpatialInterpolator = RBFSpatialInterpolator(
-            interpolationParser.getX(),
-            interpolationParser.getY(),
-            interpolationParser.getF()
+        val from = maxOf(firstChanged - INFILL_RADIUS, 0)
+        val to = minOf(lastChanged + INFILL_RADIUS, gridX.lastIndex)
+        val newColumns = fillMissed(
+            spatialInterpolation, newGrid,
+            from, to,
+            maxOf(from - INFILL_RADIUS, 0), minOf(to + INFILL_RADIUS, gridX.lastIndex)
         )
-        interpolationParser.copyData(grid, adjustedGrid)
-
-        val missedPoints = interpolationParser.getMissedPositions()
-        for (point in missedPoints) {
-            val xyPoint = adjustedGrid[point.first][point.second]
-            if (xyPoint.extraValue != -1.0)
-                throw RuntimeException("Missed point value != -1")
-            val f = spatialInterpolator.interpolate(xyPoint.xValue, xyPoint.yValue)
-            adjustedGrid[point.first][point.second] = XYChart.Data(xyPoint.xValue, xyPoint.yValue, f)
+        val newLogF = logF.copyOf()
+        for (i in from..to) {
+            newLogF[i] = newColumns[i - from]
         }
-    }
 
-    private fun interpolateGrid() {
-        interpolationParser = InterpolationParser(adjustedGrid)
-        val regularGridInterpolator = ApacheInterpolator2D()
-        bicubicInterpolatingFunction = regularGridInterpolator.interpolate(
-            interpolationParser.getGridX(),
-            interpolationParser.getGridY(),
-            interpolationParser.getGridF()
+        return Interpolator(
+            spatialInterpolation,
+            newGrid,
+            newLogF,
+            bicubic?.withColumns(from, Array(to - from + 1) { newLogF[from + it] }),
+            if (from == 0) sideSpline(newGrid.y, newLogF.first()) else leftSideSplineFunction,
+            if (gridX.size > 1 && to == gridX.lastIndex) sideSpline(newGrid.y, newLogF.last()) else rightSideSplineFunction
         )
     }
 
-    private fun interpolateSide(picket: List<XYChart.Data<Double, Double>>): PolynomialSplineFunction {
-        val y: DoubleArray = picket.map { point -> point.yValue }.toDoubleArray()
-        val f: DoubleArray = picket.map { point -> point.extraValue as Double }.toDoubleArray()
-
-        val interpolator1D: Interpolator1D = ApacheInterpolator1D()
-        return interpolator1D.interpolate(y, f)
-    }
+    companion object {
+        /**
+         * На сколько пикетов от измененных заново заполняются пропуски в [update]
+         */
+        const val INFILL_RADIUS = 2
+
+        /**
+         * Логарифмы столбцов `from..to` с пропусками, заполненными по точкам столбцов `dataFrom..dataTo`
+         */
+        private fun fillMissed(
+            spatialInterpolation: SpatialInterpolation,
+            grid: InterpolationGrid,
+            from: Int,
+            to: Int,
+            dataFrom: Int,
+            dataTo: Int
+        ): Array<DoubleArray> {
+            val columns = Array(to - from + 1) { grid.logValues(from + it) }
+            if ((from..to).none { grid.hasMissed(it) }) {
+                return columns
+            }
 
-    private fun interpolateSidePoint(y: Double, function: PolynomialSplineFunction): Double {
-        return function.value(y)
-    }
+            val x = ArrayList<Double>()
+            val y = ArrayList<Double>()
+            val f = ArrayList<Double>()
+            for (i in dataFrom..dataTo) {
+                val logValues = grid.logValues(i)
+                for (j in 0 until grid.rowsCnt) {
+                    if (!grid.isMissed(i, j)) {
+                        x += grid.x[i]
+                        y += grid.y[j]
+                        f += logValues[j]
+                    }
+                }
+            }
+            val spatialInterpolator = spatialInterpolation.create(x.toDoubleArray(), y.toDoubleArray(), f.toDoubleArray())
+            for (k in columns.indices) {
+                val i = from + k
+                if (grid.hasMissed(i)) {
+                    val column = columns[k].copyOf()
+                    for (j in column.indices) {
+                        if (grid.isMissed(i, j)) {
+                            column[j] = spatialInterpolator.interpolate(grid.x[i], grid.y[j])
+                        }
+                    }
+                    columns[k] = column
+                }
+            }
+            return columns
+        }
 
-    private fun getRange(x: Double): Side {
-        if (x < adjustedGrid[0][0].xValue)
-            return Side.LEFT
-        if (x > adjustedGrid.last()[0].xValue)
-            return Side.RIGHT
-        return Side.MIDDLE
+        private fun sideSpline(gridY: DoubleArray, logF: DoubleArray): PolynomialSplineFunction? =
+            if (gridY.size < 3) null else ApacheInterpolator1D().interpolate(gridY, logF)
     }
 }
-
-private enum class Side {
-    LEFT,
-    MIDDLE,
-    RIGHT
-}
\ No newline at end of file
@@ -0,0 +1,112 @@
+package ru.nucodelabs.geo.ves.calc.interpolation
+
+/**
+ * Двумерное k-d дерево для поиска ближайших точек за O(log N).
+ * Массивы координат не копируются и не должны меняться после построения.
+ */
+class KdTree2D(private val x: DoubleArray, private val y: DoubleArray) {
+
+    init {
+        require(x.size == y.size) { "Размеры x и y не совпадают: ${x.size} и ${y.size}" }
+    }
+
+    val size: Int
+        get() = x.size
+
+    // Узел поддерева [lo, hi) — точка order[(lo + hi) / 2], разделение по X если splitByX
+    private val order = IntArray(x.size) { it }
+    private val splitByX = BooleanArray(x.size)
+
+    init {
+        build(0, x.size)
+    }
+
+    /**
+     * Ближайшие точки по возрастанию расстояния
+     */
+    class Neighbours(capacity: Int) {
+        val indices = IntArray(capacity)
+        val distancesSquared = DoubleArray(capacity)
+        var size = 0
+            private set
+
+        internal fun clear() {
+            size = 0
+        }
+
+        internal val worst: Double
+            get() = if (size < indices.size) Double.POSITIVE_INFINITY else distancesSquared[size - 1]
+
+        internal fun offer(index: Int, distanceSquared: Double) {
+            if (distanceSquared >= worst) {
+                return
+            }
+            var i = if (size < indices.size) size++ else size - 1
+            while (i > 0 && distancesSquared[i - 1] > distanceSquared) {
+                indices[i] = indices[i - 1]
+                distancesSquared[i] = distancesSquared[i - 1]
+                i--
+            }
+            indices[i] = index
+            distancesSquared[i] = distanceSquared
+        }
+    }
+
+    /**
+     * Заполняет [neighbours] ближайшими к `(qx, qy)` точками, не больше его емкости
+     */
+    fun nearest(qx: Double, qy: Double, neighbours: Neighbours) {
+        neighbours.clear()
+        search(0, x.size, qx, qy, neighbours)
+    }
+
+    private fun build(lo: Int, hi: Int) {
+        if (hi - lo <= 1) {
+            return
+        }
+        var minX = Double.POSITIVE_INFINITY
+        var maxX = Double.NEGATIVE_INFINITY
+        var minY = Double.POSITIVE_INFINITY
+        var maxY = Double.NEGATIVE_INFINITY
+        for (i in lo until hi) {
+            val p = order[i]
+            minX = minOf(minX, x[p])
+            maxX = maxOf(maxX, x[p])
+            minY = minOf(minY, y[p])
+            maxY = maxOf(maxY, y[p])
+        }
+        // делим по оси с большим разбросом, точки пикетов лежат на вертикалях
+        val byX = maxX - minX >= maxY - minY
+        val coordinate = if (byX) x else y
+        val sorted = order.copyOfRange(lo, hi).sortedBy { coordinate[it] }
+        for (i in sorted.indices) {
+            order[lo + i] = sorted[i]
+        }
+        val mid = (lo + hi) ushr 1
+        splitByX[mid] = byX
+        build(lo, mid)
+        build(mid + 1, hi)
+    }
+
+    private fun search(lo: Int, hi: Int, qx: Double, qy: Double, neighbours: Neighbours) {
+        if (lo >= hi) {
+            return
+        }
+        val mid = (lo + hi) ushr 1
+        val p = order[mid]
+        val dx = qx - x[p]
+        val dy = qy - y[p]
+        neighbours.offer(p, dx * dx + dy * dy)
+        if (hi - lo == 1) {
+            return
+        }
+        val diff = if (splitByX[mid]) dx else dy
+        if (diff < 0) {
+            search(lo, mid, qx, qy, neighbours)
+            if (diff * diff < neighbours.worst) search(mid + 1, hi, qx, qy, neighbours)
+        } else {
+            search(mid + 1, hi, qx, qy, neighbours)
+            if (diff * diff < neighbours.worst) search(lo, mid, qx, qy, neighbours)
+        }
+    }
+}
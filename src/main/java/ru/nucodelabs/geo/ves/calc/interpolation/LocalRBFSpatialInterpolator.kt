@@ -0,0 +1,188 @@
+package ru.nucodelabs.geo.ves.calc.interpolation
+
+import java.util.stream.IntStream
+import kotlin.math.abs
+import kotlin.math.sqrt
+
+/**
+ * Локальная RBF-интерполяция с разбиением единицы.
+ *
+ * Для каждой точки данных строится мультиквадрик-интерполяция с константой по [neighboursCnt] ближайшим точкам
+ * (система `k × k` вместо `N × N` у [RBFSpatialInterpolator]), системы решаются параллельно.
+ * Значение — взвешенное по обратному квадрату расстояния среднее интерполяций [patchesCnt] ближайших точек,
+ * ближайшие ищутся по [KdTree2D] за O(log N). В точках данных значение совпадает с исходным.
+ *
+ * Координаты приводятся к диапазону данных по каждой оси, иначе при расстоянии между пикетами
+ * много больше шага разносов все соседи оказываются на одном пикете.
+ * Точки с одинаковыми координатами заменяются одной со средним значением.
+ */
+class LocalRBFSpatialInterpolator @JvmOverloads constructor(
+    x: DoubleArray,
+    y: DoubleArray,
+    f: DoubleArray,
+    private val neighboursCnt: Int = NEIGHBOURS_CNT_DEFAULT,
+    private val patchesCnt: Int = PATCHES_CNT_DEFAULT
+) : SpatialInterpolator {
+
+    // Приведенные координаты
+    private val x: DoubleArray
+    private val y: DoubleArray
+    private val f: DoubleArray
+
+    private val minX = x.minOrNull() ?: 0.0
+    private val minY = y.minOrNull() ?: 0.0
+    private val scaleX = scaleOf(x)
+    private val scaleY = scaleOf(y)
+
+    private val tree: KdTree2D
+
+    // Для каждой точки: соседи, веса базисных функций и параметр формы, веса null если система вырождена
+    private val patchNeighbours: Array<IntArray>
+    private val patchWeights: Array<DoubleArray?>
+    private val patchShape: DoubleArray
+
+    init {
+        require(x.size == y.size && y.size == f.size) { "Размеры x, y и f не совпадают" }
+        require(neighboursCnt > 0) { "neighboursCnt должен быть положительным, было $neighboursCnt" }
+        require(patchesCnt > 0) { "patchesCnt должен быть положительным, было $patchesCnt" }
+
+        val unique = LinkedHashMap<Pair<Double, Double>, DoubleArray>()
+        for (i in x.indices) {
+            val sumAndCnt = unique.getOrPut((x[i] - minX) / scaleX to (y[i] - minY) / scaleY) { DoubleArray(2) }
+            sumAndCnt[0] += f[i]
+            sumAndCnt[1] += 1.0
+        }
+        this.x = unique.keys.map { it.first }.toDoubleArray()
+        this.y = unique.keys.map { it.second }.toDoubleArray()
+        this.f = unique.values.map { it[0] / it[1] }.toDoubleArray()
+
+        tree = KdTree2D(this.x, this.y)
+
+        val n = this.x.size
+        patchNeighbours = Array(n) { IntArray(0) }
+        patchWeights = arrayOfNulls(n)
+        patchShape = DoubleArray(n)
+        IntStream.range(0, n).parallel().forEach { buildPatch(it) }
+    }
+
+    private fun buildPatch(center: Int) {
+        val neighbours = KdTree2D.Neighbours(minOf(neighboursCnt, x.size))
+        tree.nearest(x[center], y[center], neighbours)
+        val indices = neighbours.indices.copyOf(neighbours.size)
+
+        var shape = 0.0
+        for (i in 1 until neighbours.size) {
+            shape += sqrt(neighbours.distancesSquared[i])
+        }
+        shape = if (neighbours.size > 1 && shape > 0) shape / (neighbours.size - 1) else 1.0
+
+        // последняя строка и столбец — константа и условие на сумму весов
+        val k = indices.size
+        val matrix = Array(k + 1) { a ->
+            DoubleArray(k + 1) { b ->
+                when {
+                    a == k && b == k -> 0.0
+                    a == k || b == k -> 1.0
+                    else -> basis(distanceSquared(indices[a], indices[b]), shape)
+                }
+            }
+        }
+        val values = DoubleArray(k + 1) { if (it < k) f[indices[it]] else 0.0 }
+
+        patchNeighbours[center] = indices
+        patchShape[center] = shape
+        patchWeights[center] = solve(matrix, values)
+    }
+
+    override fun interpolate(x: Double, y: Double): Double {
+        if (this.x.isEmpty()) {
+            return Double.NaN
+        }
+        val px = (x - minX) / scaleX
+        val py = (y - minY) / scaleY
+        val neighbours = KdTree2D.Neighbours(minOf(patchesCnt, this.x.size))
+        tree.nearest(px, py, neighbours)
+        if (neighbours.distancesSquared[0] == 0.0) {
+            return f[neighbours.indices[0]]
+        }
+        var sum = 0.0
+        var weightSum = 0.0
+        for (i in 0 until neighbours.size) {
+            val weight = 1.0 / neighbours.distancesSquared[i]
+            sum += weight * patchValue(neighbours.indices[i], px, py)
+            weightSum += weight
+        }
+        return sum / weightSum
+    }
+
+    private fun patchValue(center: Int, px: Double, py: Double): Double {
+        val weights = patchWeights[center] ?: return f[center]
+        val indices = patchNeighbours[center]
+        val shape = patchShape[center]
+        var value = weights[indices.size]
+        for (i in indices.indices) {
+            val dx = px - x[indices[i]]
+            val dy = py - y[indices[i]]
+            value += weights[i] * basis(dx * dx + dy * dy, shape)
+        }
+        return value
+    }
+
+    private fun distanceSquared(a: Int, b: Int): Double {
+        val dx = x[a] - x[b]
+        val dy = y[a] - y[b]
+        return dx * dx + dy * dy
+    }
+
+    companion object {
+        const val NEIGHBOURS_CNT_DEFAULT = 16
+        const val PATCHES_CNT_DEFAULT = 3
+
+        // Мультиквадрик: матрица невырождена для различных точек
+        private fun basis(distanceSquared: Double, shape: Double) = sqrt(distanceSquared + shape * shape)
+
+        private fun scaleOf(values: DoubleArray): Double {
+            val range = (values.maxOrNull() ?: 0.0) - (values.minOrNull() ?: 0.0)
+            return if (range > 0) range else 1.0
+        }
+
+        // Относительно наибольшего элемента матрицы
+        private const val SINGULAR_EPS = 1e-12
+
+        /**
+         * Метод Гаусса с выбором главного элемента, `null` если матрица вырождена. Портит аргументы.
+         */
+        private fun solve(matrix: Array<DoubleArray>, values: DoubleArray): DoubleArray? {
+            val n = values.size
+            val eps = SINGULAR_EPS * matrix.maxOf { row -> row.maxOf { abs(it) } }
+            for (col in 0 until n) {
+                var pivot = col
+                for (row in col + 1 until n) {
+                    if (abs(matrix[row][col]) > abs(matrix[pivot][col])) pivot = row
+                }
+                if (abs(matrix[pivot][col]) <= eps) {
+                    return null
+                }
+                matrix[col] = matrix[pivot].also { matrix[pivot] = matrix[col] }
+                values[col] = values[pivot].also { values[pivot] = values[col] }
+                for (row in col + 1 until n) {
+                    val factor = matrix[row][col] / matrix[col][col]
+                    if (factor == 0.0) continue
+                    for (c in col until n) {
+                        matrix[row][c] -= factor * matrix[col][c]
+                    }
+                    values[row] -= factor * values[col]
+                }
+            }
+            val solution = DoubleArray(n)
+            for (row in n - 1 downTo 0) {
+                var sum = values[row]
+                for (c in row + 1 until n) {
+                    sum -= matrix[row][c] * solution[c]
+                }
+                solution[row] = sum / matrix[row][row]
+            }
+            return solution
+        }
+    }
+}
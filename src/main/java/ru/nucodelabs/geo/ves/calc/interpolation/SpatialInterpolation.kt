@@ -0,0 +1,44 @@
+package ru.nucodelabs.geo.ves.calc.interpolation
+
+/**
+ * Способ интерполяции пропущенных точек псевдоразреза
+ */
+enum class SpatialInterpolation {
+    /**
+     * Линейная интерполяция по триангуляции
+     */
+    TIN {
+        override fun create(x: DoubleArray, y: DoubleArray, f: DoubleArray): SpatialInterpolator =
+            TinSpatialInterpolator(x, y, f)
+    },
+
+    /**
+     * Глобальная RBF, построение O(N³), значение O(N)
+     */
+    RBF {
+        override fun create(x: DoubleArray, y: DoubleArray, f: DoubleArray): SpatialInterpolator =
+            RBFSpatialInterpolator(x, y, f)
+    },
+
+    /**
+     * Локальная RBF по ближайшим точкам, построение O(N log N), значение O(log N)
+     */
+    LOCAL_RBF {
+        override fun create(x: DoubleArray, y: DoubleArray, f: DoubleArray): SpatialInterpolator =
+            LocalRBFSpatialInterpolator(x, y, f)
+    },
+
+    /**
+     * [RBF] при числе точек не больше [AUTO_RBF_MAX_POINTS], иначе [LOCAL_RBF]
+     */
+    AUTO {
+        override fun create(x: DoubleArray, y: DoubleArray, f: DoubleArray): SpatialInterpolator =
+            if (x.size <= AUTO_RBF_MAX_POINTS) RBF.create(x, y, f) else LOCAL_RBF.create(x, y, f)
+    };
+
+    abstract fun create(x: DoubleArray, y: DoubleArray, f: DoubleArray): SpatialInterpolator
+
+    companion object {
+        const val AUTO_RBF_MAX_POINTS = 500
+    }
+}
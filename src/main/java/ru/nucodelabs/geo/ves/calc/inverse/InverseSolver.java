@@ -1,9 +1,12 @@
 package ru.nucodelabs.geo.ves.calc.inverse;
 
 import org.apache.commons.math3.analysis.MultivariateFunction;
+import org.apache.commons.math3.exception.TooManyEvaluationsException;
+import org.apache.commons.math3.optim.ConvergenceChecker;
 import org.apache.commons.math3.optim.InitialGuess;
 import org.apache.commons.math3.optim.MaxEval;
 import org.apache.commons.math3.optim.PointValuePair;
+import org.apache.commons.math3.optim.SimpleValueChecker;
 import org.apache.commons.math3.optim.nonlinear.scalar.GoalType;
 import org.apache.commons.math3.optim.nonlinear.scalar.ObjectiveFunction;
 import org.apache.commons.math3.optim.nonlinear.scalar.noderiv.NelderMeadSimplex;
@@ -19,6 +22,7 @@ import javax.inject.Inject;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.NoSuchElementException;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 public class InverseSolver {
@@ -35,6 +39,8 @@ public class InverseSolver {
     private final double relativeThreshold;
     private final double absoluteThreshold;
     private final ForwardSolver forwardSolver;
+    //Используется вместо симплекса в режиме LEVENBERG_MARQUARDT
+    private final LevenbergMarquardtInverseSolver levenbergMarquardt;
 
     @Inject
     public InverseSolver(ForwardSolver forwardSolver) {
@@ -56,6 +62,32 @@ public class InverseSolver {
         this.relativeThreshold = relativeThreshold;
         this.absoluteThreshold = absoluteThreshold;
         this.forwardSolver = forwardSolver;
+        this.levenbergMarquardt = null;
+    }
+
+    /**
+     * @param forwardSolverFactory создает прямую задачу, для якобиана — по одной на поток
+     * @param mode                 метод минимизации
+     * @param parallelism          число потоков для якобиана в режиме LEVENBERG_MARQUARDT
+     */
+    public InverseSolver(Supplier<ForwardSolver> forwardSolverFactory, InversionMode mode, int parallelism) {
+        this.sideLength = SIDE_LENGTH_DEFAULT;
+        this.relativeThreshold = RELATIVE_THRESHOLD_DEFAULT;
+        this.absoluteThreshold = ABSOLUTE_THRESHOLD_DEFAULT;
+        if (mode == InversionMode.LEVENBERG_MARQUARDT) {
+            //Прямая задача симплекса не нужна, Левенберг-Марквардт создает свои по потокам
+            this.forwardSolver = null;
+            this.levenbergMarquardt = new LevenbergMarquardtInverseSolver(forwardSolverFactory, parallelism,
+                    LevenbergMarquardtInverseSolver.MAX_ITERATIONS_DEFAULT,
+                    LevenbergMarquardtInverseSolver.RELATIVE_THRESHOLD_DEFAULT);
+        } else {
+            this.forwardSolver = forwardSolverFactory.get();
+            this.levenbergMarquardt = null;
+        }
+    }
+
+    public InversionMode getMode() {
+        return levenbergMarquardt != null ? InversionMode.LEVENBERG_MARQUARDT : InversionMode.SIMPLEX;
     }
 
     private void setLimitValues(
@@ -77,7 +109,19 @@ public class InverseSolver {
     }
 
     public List<ModelLayer> getOptimizedModelData(Picket inputPicket) {
+        return solve(inputPicket).getModelData();
+    }
+
+    /**
+     * Решает обратную задачу и возвращает модель вместе со сведениями о решении
+     */
+    public InversionResult solve(Picket inputPicket) {
+        if (levenbergMarquardt != null) {
+            return levenbergMarquardt.solve(inputPicket);
+        }
+
         final int MAX_EVAL = 100000;
+        final long startTime = System.nanoTime();
         this.picket = inputPicket;
 
         List<ModelLayer> modelData = picket.getModelData();
@@ -111,14 +155,32 @@ public class InverseSolver {
         List<Double> fixedModelPower = modelData.stream()
                 .filter(ModelLayer::isFixedPower).map(ModelLayer::getPower).toList();
 
-        SimplexOptimizer optimizer = new SimplexOptimizer(relativeThreshold, absoluteThreshold);
+        //Тот же критерий, что SimplexOptimizer(relativeThreshold, absoluteThreshold), но с записью значений по итерациям.
+        //SimplexOptimizer всегда передает критерию iteration == 0, поэтому итерации считаются по getIterations()
+        List<Double> objectivePerIteration = new ArrayList<>();
+        ConvergenceChecker<PointValuePair> valueChecker = new SimpleValueChecker(relativeThreshold, absoluteThreshold);
+        SimplexOptimizer[] optimizerRef = new SimplexOptimizer[1];
+        int[] lastIteration = {0};
+        SimplexOptimizer optimizer = new SimplexOptimizer((iteration, previous, current) -> {
+            int iterations = optimizerRef[0].getIterations();
+            if (iterations != lastIteration[0]) {
+                //Первой после итерации проверяется лучшая вершина симплекса
+                lastIteration[0] = iterations;
+                objectivePerIteration.add(current.getValue());
+            }
+            return valueChecker.converged(iteration, previous, current);
+        });
+        optimizerRef[0] = optimizer;
 
+        TimedForwardSolver timedForwardSolver = new TimedForwardSolver(forwardSolver);
         MultivariateFunction multivariateFunction = new FunctionValue(
-                picket.getEffectiveExperimentalData(), new SquaresDiff(), modelData, forwardSolver
+                picket.getEffectiveExperimentalData(), new SquaresDiff(), modelData, timedForwardSolver
         );
 
         //anyArray = resistance.size...(model.size - 1)
-        int dimension = modelResistance.size() + modelPower.size() - 1; // -1 - мощность последнего слоя не передается как параметр
+        //Мощность последнего слоя не передается как параметр, даже если она закреплена
+        int dimension = modelResistance.size() + (int) modelData.subList(0, Math.max(modelData.size() - 1, 0)).stream()
+                .filter(modelLayer -> !modelLayer.isFixedPower()).count();
         NelderMeadSimplex nelderMeadSimplex = new NelderMeadSimplex(dimension, sideLength);
 
         double[] startPoint = new double[dimension]; //res_1, ..., res_n, power_1, ..., power_n-1
@@ -131,14 +193,35 @@ public class InverseSolver {
 
         InitialGuess initialGuess = new InitialGuess(startPoint);
 
+        //Лучшая из вычисленных точек, возвращается, если за MAX_EVAL вычислений решение не сошлось.
+        //Штраф за выход за ограничения больше лучшего значения внутри них, поэтому она внутри ограничений
+        double[] bestPoint = startPoint.clone();
+        double[] bestValue = {Double.POSITIVE_INFINITY};
+        MultivariateFunction trackingFunction = point -> {
+            double value = multivariateFunction.value(point);
+            if (value < bestValue[0]) {
+                bestValue[0] = value;
+                System.arraycopy(point, 0, bestPoint, 0, point.length);
+            }
+            return value;
+        };
+
         //Передавать только изменяемые параметры
-        PointValuePair pointValuePair = optimizer.optimize(
-                new MaxEval(MAX_EVAL),
-                new ObjectiveFunction(multivariateFunction),
-                GoalType.MINIMIZE,
-                initialGuess,
-                nelderMeadSimplex
-        );
+        PointValuePair pointValuePair;
+        TerminationReason terminationReason;
+        try {
+            pointValuePair = optimizer.optimize(
+                    new MaxEval(MAX_EVAL),
+                    new ObjectiveFunction(trackingFunction),
+                    GoalType.MINIMIZE,
+                    initialGuess,
+                    nelderMeadSimplex
+            );
+            terminationReason = TerminationReason.CONVERGED;
+        } catch (TooManyEvaluationsException e) {
+            pointValuePair = new PointValuePair(bestPoint, bestValue[0]);
+            terminationReason = TerminationReason.MAX_EVALUATIONS;
+        }
 
         double[] key = pointValuePair.getKey();
 
@@ -183,6 +266,17 @@ public class InverseSolver {
             );
         }
 
-        return resultModel;
+        InversionTelemetry telemetry = new InversionTelemetry(
+                InversionMode.SIMPLEX,
+                optimizer.getEvaluations(),
+                timedForwardSolver.getCallsCnt(),
+                timedForwardSolver.getTimeNanos(),
+                forwardSolver.isNative(),
+                System.nanoTime() - startTime,
+                objectivePerIteration,
+                terminationReason
+        );
+
+        return new InversionResult(resultModel, telemetry);
     }
 }
@@ -0,0 +1,16 @@
+package ru.nucodelabs.geo.ves.calc.inverse
+
+/**
+ * Метод минимизации в обратной задаче
+ */
+enum class InversionMode {
+    /**
+     * Симплекс Нелдера-Мида (commons-math)
+     */
+    SIMPLEX,
+
+    /**
+     * Левенберг-Марквардт по логарифмам параметров, якобиан конечными разностями
+     */
+    LEVENBERG_MARQUARDT
+}
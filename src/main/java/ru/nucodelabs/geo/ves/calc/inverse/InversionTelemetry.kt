@@ -0,0 +1,77 @@
+package ru.nucodelabs.geo.ves.calc.inverse
+
+import ru.nucodelabs.geo.ves.ModelLayer
+
+/**
+ * Причина остановки минимизации
+ */
+enum class TerminationReason {
+    /**
+     * Изменение целевой функции меньше порога
+     */
+    CONVERGED,
+
+    /**
+     * Шаг по параметрам меньше порога
+     */
+    STEP_TOO_SMALL,
+
+    /**
+     * Не удалось уменьшить целевую функцию ни при каком демпфировании
+     */
+    NO_IMPROVEMENT,
+
+    /**
+     * Достигнуто максимальное число итераций
+     */
+    MAX_ITERATIONS,
+
+    /**
+     * Достигнуто максимальное число вычислений целевой функции, возвращена лучшая найденная точка
+     */
+    MAX_EVALUATIONS
+}
+
+/**
+ * Сведения о ходе решения обратной задачи для одного пикета
+ * @property mode метод минимизации
+ * @property objectiveEvaluations число вычислений целевой функции
+ * @property forwardCalls число решений прямой задачи, для Левенберга-Марквардта включая столбцы якобиана
+ * @property forwardTimeNanos время в прямой задаче, суммарно по всем потокам
+ * @property isNativeForward прямая задача решалась нативной библиотекой
+ * @property wallTimeNanos общее время решения
+ * @property objectivePerIteration значение целевой функции ([ru.nucodelabs.geo.ves.calc.inverse.inverse_functions.SquaresDiff]) после каждой итерации
+ * @property terminationReason причина остановки
+ */
+class InversionTelemetry(
+    val mode: InversionMode,
+    val objectiveEvaluations: Int,
+    val forwardCalls: Int,
+    val forwardTimeNanos: Long,
+    val isNativeForward: Boolean,
+    val wallTimeNanos: Long,
+    val objectivePerIteration: List<Double>,
+    val terminationReason: TerminationReason
+) {
+    val iterations: Int
+        get() = objectivePerIteration.size
+
+    /**
+     * Время вне прямой задачи (минимизация, сборка модели), при параллельном якобиане может быть занижено
+     */
+    val otherTimeNanos: Long
+        get() = (wallTimeNanos - forwardTimeNanos).coerceAtLeast(0)
+
+    override fun toString(): String =
+        "InversionTelemetry(mode=$mode, objectiveEvaluations=$objectiveEvaluations, forwardCalls=$forwardCalls, " +
+                "forwardTimeNanos=$forwardTimeNanos, isNativeForward=$isNativeForward, wallTimeNanos=$wallTimeNanos, " +
+                "iterations=$iterations, terminationReason=$terminationReason)"
+}
+
+/**
+ * Модель, полученная решением обратной задачи, и сведения о решении
+ */
+class InversionResult(
+    val modelData: List<ModelLayer>,
+    val telemetry: InversionTelemetry
+)
@@ -0,0 +1,340 @@
+package ru.nucodelabs.geo.ves.calc.inverse
+
+import ru.nucodelabs.geo.ves.ExperimentalData
+import ru.nucodelabs.geo.ves.ModelLayer
+import ru.nucodelabs.geo.ves.Picket
+import ru.nucodelabs.geo.ves.calc.forward.ForwardGeometry
+import ru.nucodelabs.geo.ves.calc.forward.ForwardSolver
+import java.util.concurrent.Callable
+import java.util.concurrent.ForkJoinPool
+import java.util.concurrent.atomic.AtomicInteger
+import java.util.concurrent.atomic.AtomicLong
+import java.util.function.Supplier
+import kotlin.math.abs
+import kotlin.math.exp
+import kotlin.math.ln
+import kotlin.math.max
+import kotlin.math.min
+import kotlin.math.sqrt
+
+/**
+ * Обратная задача методом Левенберга-Марквардта.
+ *
+ * Параметры — логарифмы незакрепленных сопротивлений и мощностей (как в [InverseSolver]),
+ * минимизируется сумма квадратов разностей теоретической и экспериментальной кривых.
+ * Ограничения на сопротивление и мощность те же, что у симплекса, шаг проецируется на них.
+ * Столбцы якобиана считаются конечными разностями, при `parallelism > 1` — не более чем в `parallelism` потоках
+ * общего для всех экземпляров пула, у каждого потока свой экземпляр прямой задачи.
+ *
+ * Экземпляр не потокобезопасен.
+ */
+class LevenbergMarquardtInverseSolver(
+    private val forwardSolverFactory: Supplier<ForwardSolver>,
+    private val parallelism: Int = 1,
+    private val maxIterations: Int = MAX_ITERATIONS_DEFAULT,
+    private val relativeThreshold: Double = RELATIVE_THRESHOLD_DEFAULT
+) {
+
+    init {
+        require(parallelism > 0) { "parallelism должен быть положительным, было $parallelism" }
+    }
+
+    private val forwardSolver: ThreadLocal<ForwardSolver> = ThreadLocal.withInitial { forwardSolverFactory.get() }
+
+    fun getOptimizedModelData(picket: Picket): List<ModelLayer> = solve(picket).modelData
+
+    fun solve(picket: Picket): InversionResult {
+        val start = System.nanoTime()
+        val problem = Problem(picket.effectiveExperimentalData, picket.modelData)
+        val p = problem.startPoint()
+        val m = p.size
+        val n = problem.pointsCnt
+
+        var residual = DoubleArray(n)
+        var cost = problem.residual(p, residual)
+        var objectiveEvaluations = 1
+        val objectivePerIteration = ArrayList<Double>()
+        var terminationReason = TerminationReason.MAX_ITERATIONS
+        val jacobian = Array(m) { DoubleArray(n) }
+        val a = Array(m) { DoubleArray(m) }
+        val g = DoubleArray(m)
+        val step = DoubleArray(m)
+        val trial = DoubleArray(m)
+        var trialResidual = DoubleArray(n)
+
+        var lambda = LAMBDA_START
+        var iterations = 0
+        while (iterations < maxIterations && m > 0) {
+            iterations++
+            problem.jacobian(p, residual, jacobian)
+
+            for (i in 0 until m) {
+                var gi = 0.0
+                for (k in 0 until n) {
+                    gi += jacobian[i][k] * residual[k]
+                }
+                g[i] = gi
+                for (j in 0..i) {
+                    var aij = 0.0
+                    for (k in 0 until n) {
+                        aij += jacobian[i][k] * jacobian[j][k]
+                    }
+                    a[i][j] = aij
+                    a[j][i] = aij
+                }
+            }
+
+            var improved = false
+            while (lambda < LAMBDA_MAX) {
+                if (!solveDamped(a, g, lambda, step)) {
+                    lambda *= LAMBDA_UP
+                    continue
+                }
+                for (i in 0 until m) {
+                    trial[i] = problem.clamp(i, p[i] + step[i])
+                }
+                val trialCost = problem.residual(trial, trialResidual)
+                objectiveEvaluations++
+                if (trialCost < cost) {
+                    var maxStep = 0.0
+                    for (i in 0 until m) {
+                        maxStep = max(maxStep, abs(trial[i] - p[i]))
+                    }
+                    if (cost - trialCost <= relativeThreshold * cost) {
+                        terminationReason = TerminationReason.CONVERGED
+                    } else if (maxStep <= STEP_THRESHOLD) {
+                        terminationReason = TerminationReason.STEP_TOO_SMALL
+                    }
+                    System.arraycopy(trial, 0, p, 0, m)
+                    val tmp = residual
+                    residual = trialResidual
+                    trialResidual = tmp
+                    cost = trialCost
+                    lambda = max(lambda / LAMBDA_DOWN, LAMBDA_MIN)
+                    improved = true
+                    break
+                }
+                lambda *= LAMBDA_UP
+            }
+            objectivePerIteration += problem.objective(cost)
+            if (!improved) {
+                terminationReason = TerminationReason.NO_IMPROVEMENT
+                break
+            }
+            if (terminationReason != TerminationReason.MAX_ITERATIONS) {
+                break
+            }
+        }
+        if (m == 0) {
+            terminationReason = TerminationReason.CONVERGED
+        }
+
+        val telemetry = InversionTelemetry(
+            mode = InversionMode.LEVENBERG_MARQUARDT,
+            objectiveEvaluations = objectiveEvaluations,
+            forwardCalls = problem.forwardCalls.get(),
+            forwardTimeNanos = problem.forwardTimeNanos.get(),
+            isNativeForward = forwardSolver.get().isNative,
+            wallTimeNanos = System.nanoTime() - start,
+            objectivePerIteration = objectivePerIteration,
+            terminationReason = terminationReason
+        )
+        return InversionResult(problem.toModel(p), telemetry)
+    }
+
+    /**
+     * Решает `(A + λ diag(A)) step = -g` разложением Холецкого, false если матрица не положительно определена
+     */
+    private fun solveDamped(a: Array<DoubleArray>, g: DoubleArray, lambda: Double, step: DoubleArray): Boolean {
+        val m = g.size
+        val l = Array(m) { DoubleArray(m) }
+        for (i in 0 until m) {
+            for (j in 0..i) {
+                var sum = a[i][j]
+                if (i == j) {
+                    sum += lambda * max(a[i][i], DIAGONAL_MIN)
+                }
+                for (k in 0 until j) {
+                    sum -= l[i][k] * l[j][k]
+                }
+                if (i == j) {
+                    if (sum <= 0.0) {
+                        return false
+                    }
+                    l[i][i] = sqrt(sum)
+                } else {
+                    l[i][j] = sum / l[j][j]
+                }
+            }
+        }
+        for (i in 0 until m) {
+            var sum = -g[i]
+            for (k in 0 until i) {
+                sum -= l[i][k] * step[k]
+            }
+            step[i] = sum / l[i][i]
+        }
+        for (i in m - 1 downTo 0) {
+            var sum = step[i]
+            for (k in i + 1 until m) {
+                sum -= l[k][i] * step[k]
+            }
+            step[i] = sum / l[i][i]
+        }
+        return true
+    }
+
+    /**
+     * Отображение вектора параметров в модель, ограничения и вычисление невязок
+     */
+    private inner class Problem(experimentalData: List<ExperimentalData>, private val modelData: List<ModelLayer>) {
+        private val geometry = ForwardGeometry(experimentalData)
+        private val experimentalResistance = experimentalData.map { it.resistanceApparent }.toDoubleArray()
+        private val maxAb2 = experimentalData.maxOf { it.ab2 }
+
+        val pointsCnt = experimentalResistance.size
+        val forwardCalls = AtomicInteger(0)
+        val forwardTimeNanos = AtomicLong(0)
+
+        // Для i-го параметра: номер слоя и признак мощности, параметры: res_1..res_k, power_1..power_l
+        private val layerOf: IntArray
+        private val isPower: BooleanArray
+        private val lower: DoubleArray
+        private val upper: DoubleArray
+
+        init {
+            val layers = ArrayList<Int>()
+            val powers = ArrayList<Boolean>()
+            for (i in modelData.indices) {
+                if (!modelData[i].isFixedResistance) {
+                    layers += i
+                    powers += false
+                }
+            }
+            for (i in 0 until modelData.lastIndex) {
+                if (!modelData[i].isFixedPower) {
+                    layers += i
+                    powers += true
+                }
+            }
+            layerOf = layers.toIntArray()
+            isPower = powers.toBooleanArray()
+            lower = DoubleArray(layerOf.size) { ln(if (isPower[it]) MIN_POWER else MIN_RESISTANCE) }
+            upper = DoubleArray(layerOf.size) { ln(if (isPower[it]) max(maxAb2, MIN_POWER) else MAX_RESISTANCE) }
+        }
+
+        fun startPoint(): DoubleArray = DoubleArray(layerOf.size) {
+            val layer = modelData[layerOf[it]]
+            clamp(it, ln(if (isPower[it]) layer.power else layer.resistance))
+        }
+
+        fun clamp(i: Int, value: Double): Double = value.coerceIn(lower[i], upper[i])
+
+        private fun fill(p: DoubleArray, resistance: DoubleArray, power: DoubleArray) {
+            for (i in modelData.indices) {
+                resistance[i] = modelData[i].resistance
+                power[i] = if (i == modelData.lastIndex) 0.0 else modelData[i].power
+            }
+            for (i in p.indices) {
+                if (isPower[i]) {
+                    power[layerOf[i]] = exp(p[i])
+                } else {
+                    resistance[layerOf[i]] = exp(p[i])
+                }
+            }
+        }
+
+        /**
+         * Записывает невязки в [out], возвращает сумму их квадратов
+         */
+        fun residual(p: DoubleArray, out: DoubleArray): Double {
+            val resistance = DoubleArray(modelData.size)
+            val power = DoubleArray(modelData.size)
+            fill(p, resistance, power)
+            val start = System.nanoTime()
+            forwardSolver.get().solveInto(resistance, power, geometry, out)
+            forwardTimeNanos.addAndGet(System.nanoTime() - start)
+            forwardCalls.incrementAndGet()
+            var sum = 0.0
+            for (k in out.indices) {
+                out[k] -= experimentalResistance[k]
+                sum += out[k] * out[k]
+            }
+            return sum
+        }
+
+        /**
+         * Значение целевой функции в масштабе [ru.nucodelabs.geo.ves.calc.inverse.inverse_functions.SquaresDiff]
+         */
+        fun objective(cost: Double): Double = sqrt(cost) / pointsCnt
+
+        fun jacobian(p: DoubleArray, residual: DoubleArray, jacobian: Array<DoubleArray>) {
+            val column = { i: Int ->
+                val shifted = p.copyOf()
+                // шаг внутрь области, если параметр на верхней границе
+                val h = if (p[i] + FD_STEP <= upper[i]) FD_STEP else -FD_STEP
+                shifted[i] = p[i] + h
+                val out = jacobian[i]
+                residual(shifted, out)
+                for (k in out.indices) {
+                    out[k] = (out[k] - residual[k]) / h
+                }
+            }
+            val tasksCnt = min(parallelism, p.size)
+            if (tasksCnt <= 1) {
+                for (i in p.indices) {
+                    column(i)
+                }
+            } else {
+                val tasks = List(tasksCnt) { task ->
+                    Callable {
+                        for (i in task until p.size step tasksCnt) {
+                            column(i)
+                        }
+                    }
+                }
+                JACOBIAN_POOL.invokeAll(tasks).forEach { it.get() }
+            }
+        }
+
+        fun toModel(p: DoubleArray): List<ModelLayer> {
+            val resistance = DoubleArray(modelData.size)
+            val power = DoubleArray(modelData.size)
+            fill(p, resistance, power)
+            return modelData.mapIndexed { i, layer ->
+                ModelLayer(power[i], resistance[i], layer.isFixedPower, layer.isFixedResistance)
+            }
+        }
+    }
+
+    companion object {
+        const val MAX_ITERATIONS_DEFAULT = 200
+        const val RELATIVE_THRESHOLD_DEFAULT = 1e-10
+
+        private const val MIN_RESISTANCE = 0.1
+        private const val MAX_RESISTANCE = 1e5
+        private const val MIN_POWER = 0.1
+
+        private const val FD_STEP = 1e-5
+        private const val STEP_THRESHOLD = 1e-10
+
+        private const val LAMBDA_START = 1e-3
+        private const val LAMBDA_MIN = 1e-12
+        private const val LAMBDA_MAX = 1e12
+        private const val LAMBDA_UP = 4.0
+        private const val LAMBDA_DOWN = 3.0
+        private const val DIAGONAL_MIN = 1e-12
+
+        /**
+         * Общий пул для столбцов якобиана, потоки — демоны и не мешают завершению приложения
+         */
+        private val JACOBIAN_POOL: ForkJoinPool by lazy {
+            ForkJoinPool(Runtime.getRuntime().availableProcessors(), { pool ->
+                ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool).apply {
+                    name = "lm-jacobian-$poolIndex"
+                    isDaemon = true
+                }
+            }, null, false)
+        }
+    }
+}
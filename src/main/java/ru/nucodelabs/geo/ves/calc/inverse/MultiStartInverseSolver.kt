@@ -0,0 +1,210 @@
+package ru.nucodelabs.geo.ves.calc.inverse
+
+import ru.nucodelabs.geo.ves.ModelLayer
+import ru.nucodelabs.geo.ves.Picket
+import ru.nucodelabs.geo.ves.calc.forward.ForwardSolver
+import ru.nucodelabs.geo.ves.calc.inverse.inverse_functions.SquaresDiff
+import ru.nucodelabs.geo.ves.calc.primarymodel.PrimaryModel
+import java.util.*
+import java.util.concurrent.Callable
+import java.util.concurrent.ExecutionException
+import java.util.concurrent.ForkJoinPool
+import java.util.function.Supplier
+import kotlin.math.abs
+import kotlin.math.exp
+import kotlin.math.ln
+
+/**
+ * Обратная задача из нескольких стартовых моделей, чтобы не застревать в локальном минимуме.
+ *
+ * Стартовые модели: текущая, первичная трехслойная, текущая с разделенным самым мощным слоем,
+ * текущая с объединенными соседними слоями близкого сопротивления и случайные возмущения
+ * незакрепленных параметров в логарифмическом масштабе. Слои с закрепленными параметрами не делятся
+ * и не объединяются. Все старты решаются параллельно, у каждого потока свой [InverseSolver].
+ *
+ * @param startsCnt число стартовых моделей, включая текущую
+ * @param keepCnt сколько лучших различных результатов возвращать
+ * @param jitter стандартное отклонение возмущения логарифмов параметров
+ * @param seed начальное значение генератора, при одном и том же `seed` старты одинаковые
+ */
+class MultiStartInverseSolver @JvmOverloads constructor(
+    private val forwardSolverFactory: Supplier<ForwardSolver>,
+    private val mode: InversionMode = InversionMode.SIMPLEX,
+    private val parallelism: Int = Runtime.getRuntime().availableProcessors(),
+    private val startsCnt: Int = STARTS_CNT_DEFAULT,
+    private val keepCnt: Int = KEEP_CNT_DEFAULT,
+    private val jitter: Double = JITTER_DEFAULT,
+    private val seed: Long = 0
+) {
+
+    init {
+        require(parallelism > 0) { "parallelism должен быть положительным, было $parallelism" }
+        require(startsCnt > 0) { "startsCnt должен быть положительным, было $startsCnt" }
+        require(keepCnt > 0) { "keepCnt должен быть положительным, было $keepCnt" }
+    }
+
+    /**
+     * Откуда взята стартовая модель
+     */
+    enum class StartKind {
+        CURRENT, PRIMARY, SPLIT_LAYER, MERGED_LAYERS, JITTER
+    }
+
+    /**
+     * Один из результатов
+     * @property misfit значение [SquaresDiff] для [modelData]
+     * @property start стартовая модель, из которой получен результат
+     */
+    class Alternative(
+        val modelData: List<ModelLayer>,
+        val misfit: Double,
+        val start: StartKind,
+        val telemetry: InversionTelemetry
+    )
+
+    private val pool: ForkJoinPool by lazy { ForkJoinPool(parallelism) }
+
+    private val inverseSolver = ThreadLocal.withInitial { InverseSolver(forwardSolverFactory, mode, 1) }
+
+    private val forwardSolver = ThreadLocal.withInitial { forwardSolverFactory.get() }
+
+    /**
+     * Решает обратную задачу из всех стартов, возвращает до `keepCnt` различных моделей по возрастанию [SquaresDiff]
+     * @throws IllegalArgumentException если у пикета нет модели или экспериментальных данных
+     */
+    fun solve(picket: Picket): List<Alternative> {
+        require(picket.modelData.isNotEmpty()) { "Нет модели для пикета ${picket.name}" }
+        require(picket.effectiveExperimentalData.isNotEmpty()) { "Нет экспериментальных данных для пикета ${picket.name}" }
+
+        val tasks = startModels(picket).map { (kind, modelData) ->
+            Callable {
+                val result = inverseSolver.get().solve(picket.copy(modelData = modelData))
+                Alternative(result.modelData, misfit(picket, result.modelData), kind, result.telemetry)
+            }
+        }
+
+        val alternatives = ArrayList<Alternative>()
+        var firstError: Throwable? = null
+        for (future in pool.invokeAll(tasks)) {
+            try {
+                alternatives += future.get()
+            } catch (e: ExecutionException) {
+                firstError = firstError ?: e.cause
+            }
+        }
+        if (alternatives.isEmpty()) {
+            throw firstError ?: IllegalStateException("Ни один старт не решен")
+        }
+
+        val best = ArrayList<Alternative>(keepCnt)
+        for (alternative in alternatives.sortedBy { it.misfit }) {
+            if (best.none { isSameModel(it.modelData, alternative.modelData) }) {
+                best += alternative
+                if (best.size == keepCnt) {
+                    break
+                }
+            }
+        }
+        return best
+    }
+
+    private fun misfit(picket: Picket, modelData: List<ModelLayer>): Double {
+        val experimental = picket.effectiveExperimentalData
+        return SquaresDiff().apply(forwardSolver.get()(experimental, modelData), experimental.map { it.resistanceApparent })
+    }
+
+    /**
+     * Стартовые модели, не более `startsCnt`
+     */
+    internal fun startModels(picket: Picket): List<Pair<StartKind, List<ModelLayer>>> {
+        val current = picket.modelData
+        val starts = ArrayList<Pair<StartKind, List<ModelLayer>>>()
+        starts += StartKind.CURRENT to current
+        try {
+            starts += StartKind.PRIMARY to PrimaryModel(picket.sortedExperimentalData).get3LayersPrimaryModel()
+        } catch (e: IllegalStateException) {
+            // мало измерений, обходимся без первичной модели
+        }
+        val random = Random(seed)
+        splitThickestLayer(current, random)?.let { starts += StartKind.SPLIT_LAYER to it }
+        mergeClosestLayers(current)?.let { starts += StartKind.MERGED_LAYERS to it }
+        while (starts.size < startsCnt) {
+            starts += StartKind.JITTER to jittered(current, random)
+        }
+        return starts.take(startsCnt)
+    }
+
+    private fun jittered(modelData: List<ModelLayer>, random: Random): List<ModelLayer> =
+        modelData.mapIndexed { i, layer ->
+            layer.copy(
+                resistance = if (layer.isFixedResistance) {
+                    layer.resistance
+                } else {
+                    layer.resistance * exp(jitter * random.nextGaussian())
+                },
+                power = if (layer.isFixedPower || i == modelData.lastIndex) {
+                    layer.power
+                } else {
+                    layer.power * exp(jitter * random.nextGaussian())
+                }
+            )
+        }
+
+    private fun splitThickestLayer(modelData: List<ModelLayer>, random: Random): List<ModelLayer>? {
+        if (modelData.size >= MAX_LAYERS_CNT) {
+            return null
+        }
+        val i = (0 until modelData.lastIndex)
+            .filter { isFree(modelData[it]) }
+            .maxByOrNull { modelData[it].power } ?: return null
+        val layer = modelData[i]
+        // половины с разным сопротивлением, иначе кривая не отличается от исходной
+        val delta = exp(jitter * abs(random.nextGaussian()))
+        val upper = layer.copy(power = layer.power / 2, resistance = layer.resistance * delta)
+        val lower = layer.copy(power = layer.power / 2, resistance = layer.resistance / delta)
+        return modelData.subList(0, i) + upper + lower + modelData.subList(i + 1, modelData.size)
+    }
+
+    private fun mergeClosestLayers(modelData: List<ModelLayer>): List<ModelLayer>? {
+        // подстилающее полупространство не объединяется
+        val i = (0 until modelData.lastIndex - 1)
+            .filter { isFree(modelData[it]) && isFree(modelData[it + 1]) }
+            .minByOrNull { abs(ln(modelData[it].resistance) - ln(modelData[it + 1].resistance)) } ?: return null
+        val first = modelData[i]
+        val second = modelData[i + 1]
+        val power = first.power + second.power
+        // среднее геометрическое, взвешенное по мощности
+        val resistance = exp((first.power * ln(first.resistance) + second.power * ln(second.resistance)) / power)
+        return modelData.subList(0, i) + first.copy(power = power, resistance = resistance) +
+                modelData.subList(i + 2, modelData.size)
+    }
+
+    private fun isFree(layer: ModelLayer) = !layer.isFixedPower && !layer.isFixedResistance
+
+    private fun isSameModel(a: List<ModelLayer>, b: List<ModelLayer>): Boolean {
+        if (a.size != b.size) {
+            return false
+        }
+        for (i in a.indices) {
+            if (abs(ln(a[i].resistance / b[i].resistance)) > SAME_MODEL_TOLERANCE) {
+                return false
+            }
+            if (i < a.lastIndex && abs(ln(a[i].power / b[i].power)) > SAME_MODEL_TOLERANCE) {
+                return false
+            }
+        }
+        return true
+    }
+
+    companion object {
+        const val STARTS_CNT_DEFAULT = 16
+        const val KEEP_CNT_DEFAULT = 3
+        const val JITTER_DEFAULT = 0.5
+
+        // Как ограничение @Size у Picket.modelData
+        private const val MAX_LAYERS_CNT = 40
+
+        // Модели, все параметры которых отличаются менее чем на 1%, считаются одинаковыми
+        private const val SAME_MODEL_TOLERANCE = 0.01
+    }
+}
@@ -0,0 +1,131 @@
+package ru.nucodelabs.geo.ves.calc.inverse
+
+import ru.nucodelabs.geo.ves.Picket
+import ru.nucodelabs.geo.ves.calc.forward.ForwardSolver
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.Executors
+import java.util.concurrent.atomic.AtomicBoolean
+import java.util.concurrent.atomic.AtomicInteger
+import java.util.function.Supplier
+
+/**
+ * Решение обратной задачи для всех пикетов разреза на ограниченном пуле потоков.
+ * У каждого потока свой экземпляр [InverseSolver] и прямой задачи.
+ *
+ * @param forwardSolverFactory создает прямую задачу для нового потока
+ * @param threadsCnt максимальное число потоков
+ * @param mode метод минимизации, якобиан в режиме Левенберга-Марквардта считается в том же потоке
+ */
+class SectionInverseSolver @JvmOverloads constructor(
+    private val forwardSolverFactory: Supplier<ForwardSolver>,
+    private val threadsCnt: Int = Runtime.getRuntime().availableProcessors(),
+    private val mode: InversionMode = InversionMode.SIMPLEX
+) {
+
+    init {
+        require(threadsCnt > 0) { "Число потоков должно быть положительным, было $threadsCnt" }
+    }
+
+    /**
+     * Получает результаты по мере готовности, вызывается из рабочих потоков
+     */
+    interface Listener {
+        fun onPicketSolved(index: Int, picket: Picket, result: InversionResult)
+
+        fun onPicketFailed(index: Int, picket: Picket, e: Exception)
+    }
+
+    /**
+     * Итог инверсии разреза
+     * @property solvedCnt число пикетов, для которых получена модель
+     * @property errors ошибки по индексам пикетов
+     * @property isCancelled была ли инверсия отменена
+     */
+    class Result(
+        val solvedCnt: Int,
+        val errors: Map<Int, Exception>,
+        val isCancelled: Boolean
+    )
+
+    /**
+     * Запущенная инверсия разреза
+     * @property totalCnt число пикетов, поставленных в очередь
+     */
+    class Job internal constructor(
+        val totalCnt: Int,
+        private val cancelled: AtomicBoolean
+    ) {
+        /**
+         * Завершается после обработки или отмены всех пикетов
+         */
+        val completion: CompletableFuture<Result> = CompletableFuture()
+
+        /**
+         * Пикеты, которые еще не начали решаться, пропускаются,
+         * результаты уже запущенных не передаются слушателю
+         */
+        fun cancel() = cancelled.set(true)
+
+        val isCancelled: Boolean
+            get() = cancelled.get()
+    }
+
+    /**
+     * Пикет можно решить, если у него есть модель и экспериментальные данные
+     */
+    fun isSolvable(picket: Picket): Boolean =
+        picket.modelData.isNotEmpty() && picket.effectiveExperimentalData.isNotEmpty()
+
+    /**
+     * Запускает инверсию всех решаемых пикетов [pickets] и сразу возвращает управление
+     */
+    fun solveAsync(pickets: List<Picket>, listener: Listener): Job {
+        val indices = pickets.indices.filter { isSolvable(pickets[it]) }
+        val cancelled = AtomicBoolean(false)
+        val job = Job(indices.size, cancelled)
+        if (indices.isEmpty()) {
+            job.completion.complete(Result(0, emptyMap(), false))
+            return job
+        }
+
+        val executor = Executors.newFixedThreadPool(threadsCnt.coerceAtMost(indices.size)) { r ->
+            Thread(r, "section-inverse").apply { isDaemon = true }
+        }
+        val inverseSolver = ThreadLocal.withInitial { InverseSolver(forwardSolverFactory, mode, 1) }
+        val solvedCnt = AtomicInteger(0)
+        val remainingCnt = AtomicInteger(indices.size)
+        val errors = ConcurrentHashMap<Int, Exception>()
+
+        fun onTaskDone() {
+            if (remainingCnt.decrementAndGet() == 0) {
+                executor.shutdown()
+                job.completion.complete(Result(solvedCnt.get(), errors.toMap(), cancelled.get()))
+            }
+        }
+
+        for (index in indices) {
+            val picket = pickets[index]
+            val task = Runnable {
+                try {
+                    if (!cancelled.get()) {
+                        val result = inverseSolver.get().solve(picket)
+                        if (!cancelled.get()) {
+                            solvedCnt.incrementAndGet()
+                            listener.onPicketSolved(index, picket, result)
+                        }
+                    }
+                } catch (e: Exception) {
+                    if (!cancelled.get()) {
+                        errors[index] = e
+                        listener.onPicketFailed(index, picket, e)
+                    }
+                } finally {
+                    onTaskDone()
+                }
+            }
+            executor.execute(task)
+        }
+        return job
+    }
+}
@@ -0,0 +1,38 @@
+package ru.nucodelabs.geo.ves.calc.inverse
+
+import ru.nucodelabs.geo.ves.calc.forward.ForwardSolver
+import java.util.concurrent.atomic.AtomicInteger
+import java.util.concurrent.atomic.AtomicLong
+
+/**
+ * Считает число вызовов и время прямой задачи
+ */
+internal class TimedForwardSolver(private val delegate: ForwardSolver) : ForwardSolver {
+    private val calls = AtomicInteger(0)
+    private val nanos = AtomicLong(0)
+
+    val callsCnt: Int
+        get() = calls.get()
+
+    val timeNanos: Long
+        get() = nanos.get()
+
+    override val isNative: Boolean
+        get() = delegate.isNative
+
+    override fun solveInto(
+        resistance: DoubleArray,
+        power: DoubleArray,
+        ab2: DoubleArray,
+        mn2: DoubleArray,
+        out: DoubleArray
+    ) {
+        val start = System.nanoTime()
+        try {
+            delegate.solveInto(resistance, power, ab2, mn2, out)
+        } finally {
+            nanos.addAndGet(System.nanoTime() - start)
+            calls.incrementAndGet()
+        }
+    }
+}
@@ -1,104 +1,136 @@
 package ru.nucodelabs.geo.ves.calc.inverse.inverse_functions;
 
 import org.apache.commons.math3.analysis.MultivariateFunction;
-import ru.nucodelabs.geo.ves.calc.forward.ForwardSolver;
 import ru.nucodelabs.geo.ves.ExperimentalData;
 import ru.nucodelabs.geo.ves.ModelLayer;
+import ru.nucodelabs.geo.ves.calc.forward.ForwardGeometry;
+import ru.nucodelabs.geo.ves.calc.forward.ForwardSolver;
 
-import java.util.ArrayList;
 import java.util.List;
-import java.util.function.BiFunction;
-import java.util.stream.Collectors;
-
+import java.util.SplittableRandom;
+
+/**
+ * Целевая функция обратной задачи от вектора {@code res_1, ..., res_k, power_1, ..., power_l}
+ * логарифмов незакрепленных параметров.
+ * Соответствие параметров слоям считается в конструкторе, вычисление значения не выделяет память
+ * (если не выделяет прямая задача).
+ * Экземпляр не потокобезопасен.
+ */
 public class FunctionValue implements MultivariateFunction {
-    //Экспериментальные точки для FS
-    private final List<ExperimentalData> experimentalData;
+
+    private static final double MIN_RESISTANCE = 0.1;
+    private static final double MAX_RESISTANCE = 1e5;
+    private static final double MIN_POWER = 0.1;
+
+    //Начальное значение генератора для штрафа по умолчанию
+    private static final long SEED_DEFAULT = 0;
+
+    //Разносы экспериментальных точек для FS
+    private final ForwardGeometry geometry;
+    //Экспериментальные сопротивления
+    private final double[] experimentalResistance;
     //Функция для вычисления разности между exp и theoretical точками
-    private final BiFunction<List<Double>, List<Double>, Double> inverseFunction;
-    //Исходная модель
-    private final List<ModelLayer> modelLayers;
+    private final TargetFunction inverseFunction;
     private final ForwardSolver forwardSolver;
 
+    private final double maxAb2;
+
+    //Номер параметра для сопротивления и мощности каждого слоя, -1 если значение закреплено
+    private final int[] resistanceParam;
+    private final int[] powerParam;
+
+    //Буферы, переиспользуемые между вызовами, закрепленные значения записаны заранее
+    private final double[] newModelResistance;
+    private final double[] newModelPower;
+    private final double[] solvedResistance;
+
+    //Штраф за выход за ограничения: случайное превышение лучшего значения внутри ограничений
+    private final SplittableRandom random;
     private double diffMinValue = Double.MAX_VALUE;
 
     public FunctionValue(List<ExperimentalData> experimentalData,
-                         BiFunction<List<Double>, List<Double>, Double> inverseFunction,
+                         TargetFunction inverseFunction,
                          List<ModelLayer> modelLayers,
                          ForwardSolver forwardSolver) {
-        this.experimentalData = experimentalData;
+        this(experimentalData, inverseFunction, modelLayers, forwardSolver, SEED_DEFAULT);
+    }
+
+    /**
+     * @param seed начальное значение генератора для штрафа, при одном и том же {@code seed}
+     *             последовательность значений воспроизводима
+     */
+    public FunctionValue(List<ExperimentalData> experimentalData,
+                         TargetFunction inverseFunction,
+                         List<ModelLayer> modelLayers,
+                         ForwardSolver forwardSolver,
+                         long seed) {
+        this.geometry = new ForwardGeometry(experimentalData);
+        this.experimentalResistance = experimentalData.stream()
+                .mapToDouble(ExperimentalData::getResistanceApparent)
+                .toArray();
         this.inverseFunction = inverseFunction;
-        this.modelLayers = modelLayers;
         this.forwardSolver = forwardSolver;
+        this.maxAb2 = experimentalData.get(experimentalData.size() - 1).getAb2();
+        this.random = new SplittableRandom(seed);
+
+        int layersCnt = modelLayers.size();
+        this.resistanceParam = new int[layersCnt];
+        this.powerParam = new int[layersCnt];
+        this.newModelResistance = new double[layersCnt];
+        this.newModelPower = new double[layersCnt];
+        this.solvedResistance = new double[experimentalData.size()];
+
+        int paramsCnt = 0;
+        for (int i = 0; i < layersCnt; i++) {
+            ModelLayer modelLayer = modelLayers.get(i);
+            resistanceParam[i] = modelLayer.isFixedResistance() ? -1 : paramsCnt++;
+            newModelResistance[i] = modelLayer.getResistance();
+        }
+        for (int i = 0; i < layersCnt; i++) {
+            ModelLayer modelLayer = modelLayers.get(i);
+            if (i == layersCnt - 1) {
+                //Мощность последнего слоя не передается как параметр
+                powerParam[i] = -1;
+                newModelPower[i] = modelLayer.isFixedPower() ? modelLayer.getPower() : 0.0;
+            } else {
+                powerParam[i] = modelLayer.isFixedPower() ? -1 : paramsCnt++;
+                newModelPower[i] = modelLayer.getPower();
+            }
+        }
     }
 
     @Override
     public double value(double[] variables) {
-        //Изменяемые сопротивления и мощности
-        List<Double> currentModelResistance = new ArrayList<>();
-        List<Double> currentModelPower = new ArrayList<>();
-
-        int unfixedResistancesCnt = (int) modelLayers.stream()
-                .filter(modelLayer -> !modelLayer.isFixedResistance()).count();
-
-        //Восстановление изменяемых слоев до нормальной формы
-        for (int i = 0; i < unfixedResistancesCnt; i++) {
-            currentModelResistance.add(Math.exp(variables[i]));
-        }
-        for (int i = unfixedResistancesCnt; i < variables.length; i++) {
-            currentModelPower.add(Math.exp(variables[i]));
-        }
-        currentModelPower.add(0.0);
-
         //Объединение изменяемых и неизменяемых слоев (в нормальной форме)
-        List<Double> newModelResistance = new ArrayList<>();
-        List<Double> newModelPower = new ArrayList<>();
-
-        int cntUnfixedResistances = 0;
-        for (ModelLayer modelLayer : modelLayers) {
-            if (modelLayer.isFixedResistance()) {
-                newModelResistance.add(modelLayer.getResistance());
-            } else {
-                newModelResistance.add(currentModelResistance.get(cntUnfixedResistances));
-                cntUnfixedResistances++;
+        for (int i = 0; i < resistanceParam.length; i++) {
+            if (resistanceParam[i] >= 0) {
+                newModelResistance[i] = Math.exp(variables[resistanceParam[i]]);
             }
-        }
-
-        int cntUnfixedPowers = 0;
-        for (ModelLayer modelLayer : modelLayers) {
-            if (modelLayer.isFixedPower()) {
-                newModelPower.add(modelLayer.getPower());
-            } else {
-                newModelPower.add(currentModelPower.get(cntUnfixedPowers));
-                cntUnfixedPowers++;
+            if (powerParam[i] >= 0) {
+                newModelPower[i] = Math.exp(variables[powerParam[i]]);
             }
         }
 
-        List<ModelLayer> newModelLayers = new ArrayList<>();
-        for (int i = 0; i < modelLayers.size(); i++) {
-            newModelLayers.add(new ModelLayer(newModelPower.get(i), newModelResistance.get(i), false, false));
-        }
-
-        List<Double> solvedResistance = forwardSolver.invoke(experimentalData, newModelLayers);
+        forwardSolver.solveInto(newModelResistance, newModelPower, geometry, solvedResistance);
 
-        double diffValue = inverseFunction.apply(solvedResistance,
-                experimentalData.stream().map(ExperimentalData::getResistanceApparent).collect(Collectors.toList()));
+        double diffValue = inverseFunction.apply(solvedResistance, experimentalResistance);
 
-        boolean flag = false;
+        if (isOutOfBounds()) {
+            return Math.max(diffMinValue * (1.1 + 0.1 * random.nextDouble()), diffValue);
+        }
+        diffMinValue = Math.min(diffValue, diffMinValue);
+        return diffValue;
+    }
 
-        for (ModelLayer modelLayer : newModelLayers) {
-            if (modelLayer.getResistance() < 0.1 ||
-                    modelLayer.getResistance() > 1e5 ||
-                    (modelLayer.getPower() != 0.0 && modelLayer.getPower() < 0.1) ||
-                    modelLayer.getPower() > experimentalData.get(experimentalData.size() - 1).getAb2()) {
-                diffValue = Math.max(diffMinValue * (1.1 + 0.1 * Math.random()), diffValue);
-                flag = true;
-                break;
+    private boolean isOutOfBounds() {
+        for (int i = 0; i < newModelResistance.length; i++) {
+            if (newModelResistance[i] < MIN_RESISTANCE ||
+                    newModelResistance[i] > MAX_RESISTANCE ||
+                    (newModelPower[i] != 0.0 && newModelPower[i] < MIN_POWER) ||
+                    newModelPower[i] > maxAb2) {
+                return true;
             }
         }
-
-        if (!flag)
-            diffMinValue = Math.min(diffValue, diffMinValue);
-
-        return diffValue;
+        return false;
     }
 }
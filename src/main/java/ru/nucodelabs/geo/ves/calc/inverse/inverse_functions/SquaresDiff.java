@@ -5,7 +5,7 @@ import java.util.function.BiFunction;
 
 import static java.lang.StrictMath.sqrt;
 
-public class SquaresDiff implements BiFunction<List<Double>, List<Double>, Double> {
+public class SquaresDiff implements BiFunction<List<Double>, List<Double>, Double>, TargetFunction {
     @Override
     public Double apply(List<Double> solvedResistance, List<Double> experimentalResistance) {
         double functionValue = 0;
@@ -14,4 +14,14 @@ public class SquaresDiff implements BiFunction<List<Double>, List<Double>, Doubl
         }
         return sqrt(functionValue) / solvedResistance.size();
     }
+
+    @Override
+    public double apply(double[] solvedResistance, double[] experimentalResistance) {
+        double functionValue = 0;
+        for (int i = 0; i < solvedResistance.length; i++) {
+            double diff = solvedResistance[i] - experimentalResistance[i];
+            functionValue += diff * diff;
+        }
+        return sqrt(functionValue) / solvedResistance.length;
+    }
 }
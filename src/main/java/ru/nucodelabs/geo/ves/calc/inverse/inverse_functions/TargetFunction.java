@@ -0,0 +1,9 @@
+package ru.nucodelabs.geo.ves.calc.inverse.inverse_functions;
+
+/**
+ * Разность между теоретическими и экспериментальными сопротивлениями на примитивных массивах
+ */
+@FunctionalInterface
+public interface TargetFunction {
+    double apply(double[] solvedResistance, double[] experimentalResistance);
+}
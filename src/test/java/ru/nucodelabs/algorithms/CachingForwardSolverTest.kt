@@ -0,0 +1,48 @@
+package ru.nucodelabs.algorithms
+
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Test
+import ru.nucodelabs.gem.app.io.SonetImportManager
+import ru.nucodelabs.geo.ves.calc.forward.ForwardSolver
+import java.io.File
+
+internal class CachingForwardSolverTest {
+
+    private val importManager = SonetImportManager.create()
+
+    @Test
+    fun sameModelSolvedOnce() {
+        val picket = importManager.fromEXPFile(File("data/SHIRA.EXP"))
+        picket.modelData = importManager.fromMODFile(File("data/SHIRA.MOD"))
+        val solver = ForwardSolver.createCaching(ForwardSolver.createJvm())
+
+        val first = solver(picket.effectiveExperimentalData, picket.modelData)
+        val second = solver(picket.effectiveExperimentalData, picket.modelData.map { it.copy() })
+
+        assertEquals(ForwardSolver.createJvm()(picket.effectiveExperimentalData, picket.modelData), first)
+        assertEquals(first, second)
+        assertEquals(1, solver.missesCnt)
+        assertEquals(1, solver.hitsCnt)
+
+        solver(picket.effectiveExperimentalData, picket.modelData.map { it.copy(resistance = it.resistance * 2) })
+        assertEquals(2, solver.missesCnt)
+    }
+
+    @Test
+    fun evictsLeastRecentlyUsed() {
+        val picket = importManager.fromEXPFile(File("data/SHIRA.EXP"))
+        val models = (1..3).map { k -> importManager.fromMODFile(File("data/SHIRA.MOD")).map { it.copy(resistance = it.resistance * k) } }
+        val solver = ForwardSolver.createCaching(ForwardSolver.createJvm(), 2)
+
+        solver(picket.effectiveExperimentalData, models[0])
+        solver(picket.effectiveExperimentalData, models[1])
+        solver(picket.effectiveExperimentalData, models[0])
+        solver(picket.effectiveExperimentalData, models[2])
+        assertEquals(2, solver.size)
+
+        solver(picket.effectiveExperimentalData, models[0])
+        assertEquals(2, solver.hitsCnt)
+        solver(picket.effectiveExperimentalData, models[1])
+        assertEquals(4, solver.missesCnt)
+    }
+}
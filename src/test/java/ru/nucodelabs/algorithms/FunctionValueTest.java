@@ -0,0 +1,112 @@
+package ru.nucodelabs.algorithms;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import ru.nucodelabs.gem.app.io.SonetImportManager;
+import ru.nucodelabs.geo.ves.ExperimentalData;
+import ru.nucodelabs.geo.ves.ModelLayer;
+import ru.nucodelabs.geo.ves.Picket;
+import ru.nucodelabs.geo.ves.calc.forward.ForwardSolver;
+import ru.nucodelabs.geo.ves.calc.inverse.inverse_functions.FunctionValue;
+import ru.nucodelabs.geo.ves.calc.inverse.inverse_functions.SquaresDiff;
+
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+public class FunctionValueTest {
+
+    private static Picket shira() throws Exception {
+        SonetImportManager importManager = SonetImportManager.create();
+        Picket picket = importManager.fromEXPFile(new File("data/SHIRA.EXP"));
+        picket.setModelData(importManager.fromMODFile(new File("data/SHIRA.MOD")));
+        return picket;
+    }
+
+    @Test
+    void unpacksFixedAndFreeParameters() throws Exception {
+        Picket picket = shira();
+        List<ExperimentalData> experimentalData = picket.getEffectiveExperimentalData();
+        List<ModelLayer> modelData = new ArrayList<>(picket.getModelData());
+        // закреплены сопротивление второго слоя и мощность первого
+        modelData.set(0, new ModelLayer(modelData.get(0).getPower(), modelData.get(0).getResistance(), true, false));
+        modelData.set(1, new ModelLayer(modelData.get(1).getPower(), modelData.get(1).getResistance(), false, true));
+
+        FunctionValue functionValue = new FunctionValue(
+                experimentalData, new SquaresDiff(), modelData, ForwardSolver.createJvm()
+        );
+
+        // res_1, res_3, res_4, power_2, power_3
+        double[] variables = {
+                Math.log(120.0), Math.log(40.0), Math.log(300.0), Math.log(2.0), Math.log(15.0)
+        };
+        List<ModelLayer> expectedModel = List.of(
+                new ModelLayer(modelData.get(0).getPower(), 120.0, true, false),
+                new ModelLayer(2.0, modelData.get(1).getResistance(), false, true),
+                new ModelLayer(15.0, 40.0, false, false),
+                new ModelLayer(0.0, 300.0, false, false)
+        );
+        double expected = new SquaresDiff().apply(
+                ForwardSolver.createJvm().invoke(experimentalData, expectedModel),
+                experimentalData.stream().map(ExperimentalData::getResistanceApparent).toList()
+        );
+
+        Assertions.assertEquals(expected, functionValue.value(variables), expected * 1e-8);
+    }
+
+    @Test
+    void penaltyIsReproducible() throws Exception {
+        Picket picket = shira();
+        List<ExperimentalData> experimentalData = picket.getEffectiveExperimentalData();
+        List<ModelLayer> modelData = picket.getModelData();
+        double[] inside = new double[2 * modelData.size() - 1];
+        for (int i = 0; i < modelData.size(); i++) {
+            inside[i] = Math.log(modelData.get(i).getResistance());
+        }
+        for (int i = 0; i < modelData.size() - 1; i++) {
+            inside[modelData.size() + i] = Math.log(modelData.get(i).getPower());
+        }
+        double[] outside = inside.clone();
+        outside[0] = Math.log(1e6);
+
+        FunctionValue first = new FunctionValue(experimentalData, new SquaresDiff(), modelData, ForwardSolver.createJvm(), 42);
+        FunctionValue second = new FunctionValue(experimentalData, new SquaresDiff(), modelData, ForwardSolver.createJvm(), 42);
+        double insideValue = first.value(inside);
+        Assertions.assertEquals(insideValue, second.value(inside));
+        for (int i = 0; i < 10; i++) {
+            double penalty = first.value(outside);
+            Assertions.assertEquals(penalty, second.value(outside));
+            Assertions.assertTrue(penalty >= insideValue * 1.1);
+        }
+    }
+
+    @Test
+    void noAllocationsPerEvaluation() throws Exception {
+        Picket picket = shira();
+        List<ModelLayer> modelData = picket.getModelData();
+        FunctionValue functionValue = new FunctionValue(
+                picket.getEffectiveExperimentalData(), new SquaresDiff(), modelData, ForwardSolver.createJvm()
+        );
+        double[] variables = new double[2 * modelData.size() - 1];
+        for (int i = 0; i < variables.length; i++) {
+            variables[i] = Math.log(5.0 + i);
+        }
+        var threadBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+
+        double sum = 0;
+        for (int i = 0; i < 3_000; i++) {
+            sum += functionValue.value(variables);
+        }
+        int evaluationsCnt = 3_000;
+        long before = threadBean.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < evaluationsCnt; i++) {
+            sum += functionValue.value(variables);
+        }
+        long allocated = threadBean.getThreadAllocatedBytes(threadId) - before;
+
+        Assertions.assertTrue(sum > 0);
+        Assertions.assertTrue(allocated < evaluationsCnt, "allocated " + allocated + " bytes");
+    }
+}
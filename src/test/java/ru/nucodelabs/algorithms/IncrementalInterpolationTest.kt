@@ -0,0 +1,98 @@
+package ru.nucodelabs.algorithms
+
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Assertions.assertNull
+import org.junit.jupiter.api.Assertions.assertSame
+import org.junit.jupiter.api.Test
+import ru.nucodelabs.geo.ves.calc.interpolation.BicubicGrid
+import ru.nucodelabs.geo.ves.calc.interpolation.InterpolationGrid
+import ru.nucodelabs.geo.ves.calc.interpolation.Interpolator
+import ru.nucodelabs.geo.ves.calc.interpolation.SpatialInterpolation
+import kotlin.math.sin
+
+internal class IncrementalInterpolationTest {
+
+    private val x = DoubleArray(8) { it * 10.0 }
+    private val y = DoubleArray(6) { 1.0 + it * 0.5 }
+
+    private fun values(shift: (Int) -> Double = { 0.0 }) =
+        Array(x.size) { i -> DoubleArray(y.size) { j -> sin(x[i] / 20) + y[j] + shift(i) } }
+
+    private fun grid(f: Array<DoubleArray>, ab2: DoubleArray = y) = InterpolationGrid.of(
+        x,
+        Array(x.size) { ab2 },
+        Array(x.size) { i -> DoubleArray(y.size) { j -> Math.pow(10.0, f[i][j]) } }
+    )
+
+    // Пропущенные разносы: пикет -> индексы разносов
+    private fun gridWithMissed(f: Array<DoubleArray>, missed: Map<Int, Set<Int>>): InterpolationGrid {
+        val rows = Array(x.size) { i -> y.indices.filter { it !in missed[i].orEmpty() } }
+        return InterpolationGrid.of(
+            x,
+            Array(x.size) { i -> DoubleArray(rows[i].size) { y[rows[i][it]] } },
+            Array(x.size) { i -> DoubleArray(rows[i].size) { Math.pow(10.0, f[i][rows[i][it]]) } }
+        )
+    }
+
+    @Test
+    fun withColumnsSameAsNewGrid() {
+        val changed = values { if (it == 4) 0.3 else 0.0 }
+        val updated = BicubicGrid(x, y, values()).withColumns(4, arrayOf(changed[4]))
+        val full = BicubicGrid(x, y, changed)
+
+        var px = 0.0
+        while (px <= x.last()) {
+            for (py in listOf(1.0, 1.3, 2.2, 3.5)) {
+                assertEquals(full.value(px, py), updated.value(px, py), 0.0)
+            }
+            px += 1.5
+        }
+    }
+
+    @Test
+    fun linearInInteriorCells() {
+        val grid = BicubicGrid(x, y, Array(x.size) { i -> DoubleArray(y.size) { j -> 2 * x[i] + 3 * y[j] } })
+        assertEquals(2 * 25.0 + 3 * 2.25, grid.value(25.0, 2.25), 1e-9)
+        assertEquals(2 * 42.0 + 3 * 1.75, grid.value(42.0, 1.75), 1e-9)
+    }
+
+    @Test
+    fun updateSameAsRebuild() {
+        val interpolator = Interpolator(grid(values()))
+        val changedGrid = grid(values { if (it == 3) -0.2 else 0.0 })
+        val updated = interpolator.update(changedGrid)!!
+        val full = Interpolator(changedGrid)
+
+        for (px in listOf(5.0, 27.0, 33.0, 61.0)) {
+            for (py in listOf(1.2, 2.0, 3.1)) {
+                assertEquals(full.getValue(px, py), updated.getValue(px, py), 1e-12)
+            }
+        }
+    }
+
+    @Test
+    fun updateWithMissedSameAsRebuild() {
+        val missed = mapOf(2 to setOf(1, 4), 3 to setOf(2), 4 to setOf(0, 3))
+        for (method in listOf(SpatialInterpolation.TIN, SpatialInterpolation.LOCAL_RBF)) {
+            val interpolator = Interpolator(gridWithMissed(values(), missed), method)
+            val changedGrid = gridWithMissed(values { if (it == 3) -0.2 else 0.0 }, missed)
+            val updated = interpolator.update(changedGrid)!!
+            val full = Interpolator(changedGrid, method)
+
+            for (px in listOf(5.0, 20.0, 27.0, 33.0, 40.0, 61.0)) {
+                for (py in listOf(1.0, 1.5, 2.0, 2.6, 3.1)) {
+                    assertEquals(full.getValue(px, py), updated.getValue(px, py), 1e-12, "$method ($px, $py)")
+                }
+            }
+        }
+    }
+
+    @Test
+    fun updateDetectsStructureChange() {
+        val f = values()
+        val interpolator = Interpolator(grid(f))
+
+        assertSame(interpolator, interpolator.update(grid(f)))
+        assertNull(interpolator.update(grid(f, DoubleArray(y.size) { y[it] * 2 })))
+    }
+}
@@ -0,0 +1,31 @@
+package ru.nucodelabs.algorithms
+
+import org.junit.jupiter.api.Assertions.assertArrayEquals
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Assertions.assertFalse
+import org.junit.jupiter.api.Assertions.assertTrue
+import org.junit.jupiter.api.Test
+import ru.nucodelabs.geo.ves.calc.interpolation.InterpolationGrid
+
+internal class InterpolationGridTest {
+
+    @Test
+    fun missedCellsOfUnitedSpacings() {
+        val grid = InterpolationGrid.of(
+            doubleArrayOf(0.0, 10.0, 20.0),
+            arrayOf(doubleArrayOf(3.0, 1.0), doubleArrayOf(1.0, 2.0, 1.0), doubleArrayOf(2.0)),
+            arrayOf(doubleArrayOf(1000.0, 10.0), doubleArrayOf(100.0, 1.0, 5.0), doubleArrayOf(10.0))
+        )
+
+        assertArrayEquals(doubleArrayOf(1.0, 2.0, 3.0), grid.y)
+        assertEquals(4, grid.missedCnt)
+        assertTrue(grid.isMissed(0, 1))
+        assertFalse(grid.isMissed(0, 2))
+        assertTrue(grid.hasMissed(1))
+
+        assertArrayEquals(doubleArrayOf(1.0, Double.NaN, 3.0), grid.logValues(0), 1e-12)
+        // для повторяющегося разноса берется первое значение
+        assertArrayEquals(doubleArrayOf(100.0, 1.0, Double.NaN), grid.values(1), 0.0)
+        assertArrayEquals(doubleArrayOf(Double.NaN, 10.0, Double.NaN), grid.values(2), 0.0)
+    }
+}
@@ -1,12 +1,18 @@
 package ru.nucodelabs.algorithms;
 
+import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 import ru.nucodelabs.ShiraPicket;
+import ru.nucodelabs.gem.app.io.SonetImportManager;
+import ru.nucodelabs.geo.ves.calc.forward.ForwardSolver;
 import ru.nucodelabs.geo.ves.calc.forward.ForwardSolverKt;
 import ru.nucodelabs.geo.ves.calc.inverse.InverseSolver;
 import ru.nucodelabs.geo.ves.ModelLayer;
 import ru.nucodelabs.geo.ves.Picket;
+import ru.nucodelabs.geo.ves.calc.inverse.InversionTelemetry;
+import ru.nucodelabs.geo.ves.calc.inverse.TerminationReason;
 
+import java.io.File;
 import java.util.List;
 
 public class InverseSolverTest {
@@ -21,4 +27,21 @@ public class InverseSolverTest {
         List<ModelLayer> modelData = inverseSolver.getOptimizedModelData(picket);
         modelData.forEach(System.out::println);
     }
+
+    @Test
+    void simplexTelemetryRecordsIterations() throws Exception {
+        SonetImportManager importManager = SonetImportManager.create();
+        Picket picket = importManager.fromEXPFile(new File("data/CHITA.EXP"));
+        picket.setModelData(importManager.fromMODFile(new File("data/CHITA.MOD")));
+
+        InversionTelemetry telemetry = new InverseSolver(ForwardSolver.createJvm()).solve(picket).getTelemetry();
+
+        Assertions.assertEquals(TerminationReason.CONVERGED, telemetry.getTerminationReason());
+        Assertions.assertTrue(telemetry.getIterations() > 0);
+        List<Double> objective = telemetry.getObjectivePerIteration();
+        for (int i = 1; i < objective.size(); i++) {
+            //Лучшая вершина симплекса не ухудшается
+            Assertions.assertTrue(objective.get(i) <= objective.get(i - 1));
+        }
+    }
 }
@@ -0,0 +1,119 @@
+package ru.nucodelabs.algorithms;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.Test;
+import ru.nucodelabs.gem.app.io.SonetImportManager;
+import ru.nucodelabs.geo.ves.ModelLayer;
+import ru.nucodelabs.geo.ves.Picket;
+import ru.nucodelabs.geo.ves.calc.forward.ForwardSolver;
+
+import java.io.File;
+import java.util.List;
+
+public class JvmForwardSolverTest {
+
+    /**
+     * Допустимое относительное расхождение с нативным решателем.
+     * Оценка, а не измерение: {@link #jvmMatchesNative()} еще не запускался там, где MathVES доступна
+     * (Windows, macOS), совпадение с нативным решателем не проверено
+     */
+    private static final double NATIVE_TOLERANCE = 1e-2;
+
+    /**
+     * Относительное расхождение с точным решением для двух слоев
+     */
+    private static final double ANALYTIC_TOLERANCE = 1e-6;
+
+    private static final String[][] EXP_MOD = {
+            {"data/BURM1.EXP", "data/BURM1.MOD"},
+            {"data/BURM2.EXP", "data/BURM2.MOD"},
+            {"data/BURM3.EXP", "data/BURM3.MOD"},
+            {"data/BURM4.EXP", "data/BURM4.MOD"},
+            {"data/CHITA.EXP", "data/CHITA.MOD"},
+            {"data/KAZAN.EXP", "data/KAZAN.MOD"},
+            {"data/SHIRA.EXP", "data/SHIRA.MOD"},
+            {"data/SHIRA.EXP", "data/SHIRA_M1.mod"},
+            {"data/SHIRA.EXP", "data/SHIRA_M2.mod"},
+            {"data/SHIRA.EXP", "data/SHIRA_M4.mod"},
+    };
+
+    /**
+     * Потенциал точечного источника над двумя слоями, ряд отражений
+     */
+    private static double twoLayerPotential(double r, double rho1, double rho2, double h) {
+        double k = (rho2 - rho1) / (rho2 + rho1);
+        double sum = 1 / r;
+        double kn = 1;
+        for (int n = 1; n < 1_000_000 && Math.abs(kn) > 1e-17; n++) {
+            kn *= k;
+            sum += 2 * kn / Math.sqrt(r * r + 4.0 * n * n * h * h);
+        }
+        return rho1 * sum;
+    }
+
+    @Test
+    void twoLayerMatchesImageSeries() {
+        ForwardSolver solver = ForwardSolver.createJvm();
+        double[][] models = {{10, 100, 5}, {100, 10, 5}, {1, 1000, 1}, {1000, 1, 1}, {200, 20, 40}};
+        int cnt = 41;
+        double[] ab2 = new double[cnt];
+        double[] mn2 = new double[cnt];
+        double[] out = new double[cnt];
+        for (int i = 0; i < cnt; i++) {
+            ab2[i] = 1.5 * Math.pow(10, i * 0.1);
+            mn2[i] = ab2[i] / 10;
+        }
+        for (double[] m : models) {
+            solver.solveInto(new double[]{m[0], m[1]}, new double[]{m[2], 0}, ab2, mn2, out);
+            for (int i = 0; i < cnt; i++) {
+                double am = ab2[i] - mn2[i];
+                double an = ab2[i] + mn2[i];
+                double expected = (twoLayerPotential(am, m[0], m[1], m[2]) - twoLayerPotential(an, m[0], m[1], m[2]))
+                        / (1 / am - 1 / an);
+                Assertions.assertEquals(expected, out[i], expected * ANALYTIC_TOLERANCE);
+            }
+        }
+    }
+
+    /**
+     * Нативный решатель, {@code null} если библиотеки нет для текущей платформы
+     */
+    private static ForwardSolver nativeSolverOrNull() {
+        try {
+            ForwardSolver solver = ForwardSolver.createDefault();
+            solver.solveInto(new double[]{1.0}, new double[]{0.0}, new double[]{1.0}, new double[]{0.1}, new double[1]);
+            return solver;
+        } catch (LinkageError e) {
+            return null;
+        }
+    }
+
+    /**
+     * Печатает наибольшее относительное расхождение по каждой паре файлов, в Linux пропускается
+     */
+    @Test
+    void jvmMatchesNative() throws Exception {
+        ForwardSolver nativeSolver = nativeSolverOrNull();
+        Assumptions.assumeTrue(nativeSolver != null, "MathVES недоступна на этой платформе");
+        SonetImportManager importManager = SonetImportManager.create();
+        ForwardSolver jvmSolver = ForwardSolver.createJvm();
+        for (String[] pair : EXP_MOD) {
+            Picket picket = importManager.fromEXPFile(new File(pair[0]));
+            List<ModelLayer> model = importManager.fromMODFile(new File(pair[1]));
+            List<Double> expected = nativeSolver.invoke(picket.getSortedExperimentalData(), model);
+            List<Double> actual = jvmSolver.invoke(picket.getSortedExperimentalData(), model);
+            double maxRelativeError = 0;
+            for (int i = 0; i < expected.size(); i++) {
+                maxRelativeError = Math.max(maxRelativeError, Math.abs(actual.get(i) - expected.get(i)) / expected.get(i));
+            }
+            System.out.println(pair[0] + " + " + pair[1] + ": max relative error " + maxRelativeError);
+            for (int i = 0; i < expected.size(); i++) {
+                Assertions.assertEquals(
+                        expected.get(i), actual.get(i), expected.get(i) * NATIVE_TOLERANCE,
+                        pair[0] + " + " + pair[1] + ", point " + i
+                );
+            }
+        }
+    }
+}
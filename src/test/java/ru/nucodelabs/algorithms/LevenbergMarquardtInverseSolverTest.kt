@@ -0,0 +1,90 @@
+package ru.nucodelabs.algorithms
+
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Assertions.assertTrue
+import org.junit.jupiter.api.Test
+import ru.nucodelabs.gem.app.io.SonetImportManager
+import ru.nucodelabs.geo.ves.ExperimentalData
+import ru.nucodelabs.geo.ves.ModelLayer
+import ru.nucodelabs.geo.ves.Picket
+import ru.nucodelabs.geo.ves.calc.forward.ForwardSolver
+import ru.nucodelabs.geo.ves.calc.inverse.InverseSolver
+import ru.nucodelabs.geo.ves.calc.inverse.LevenbergMarquardtInverseSolver
+import ru.nucodelabs.geo.ves.calc.inverse.TerminationReason
+import ru.nucodelabs.geo.ves.calc.inverse.inverse_functions.SquaresDiff
+import java.io.File
+import java.util.function.Supplier
+
+internal class LevenbergMarquardtInverseSolverTest {
+
+    private fun misfit(picket: Picket, modelData: List<ModelLayer>): Double {
+        val experimental = picket.effectiveExperimentalData
+        return SquaresDiff().apply(
+            ForwardSolver.createJvm()(experimental, modelData),
+            experimental.map { it.resistanceApparent }
+        )
+    }
+
+    @Test
+    fun recoversSyntheticModel() {
+        val trueModel = listOf(ModelLayer(5.0, 100.0), ModelLayer(20.0, 10.0), ModelLayer(0.0, 500.0))
+        val geometry = (0 until 25).map { ExperimentalData(1.5 * Math.pow(1.35, it.toDouble()), 0.5, 1.0, 1.0) }
+        val solved = ForwardSolver.createJvm()(geometry, trueModel)
+        val picket = Picket(
+            experimentalData = geometry.mapIndexed { i, data -> data.copy(resistanceApparent = solved[i]) },
+            modelData = listOf(ModelLayer(3.0, 50.0), ModelLayer(30.0, 30.0), ModelLayer(0.0, 300.0))
+        )
+
+        val result = LevenbergMarquardtInverseSolver(Supplier { ForwardSolver.createJvm() }, 2).solve(picket)
+
+        for (i in trueModel.indices) {
+            assertEquals(trueModel[i].resistance, result.modelData[i].resistance, trueModel[i].resistance * 1e-3)
+        }
+        for (i in 0 until trueModel.lastIndex) {
+            assertEquals(trueModel[i].power, result.modelData[i].power, trueModel[i].power * 1e-3)
+        }
+    }
+
+    @Test
+    fun keepsFixedParameters() {
+        val picket = SonetImportManager.create().fromEXPFile(File("data/SHIRA.EXP"))
+        picket.modelData = SonetImportManager.create().fromMODFile(File("data/SHIRA.MOD")).mapIndexed { i, layer ->
+            if (i == 0) layer.copy(isFixedResistance = true, isFixedPower = true) else layer
+        }
+
+        val result = LevenbergMarquardtInverseSolver(Supplier { ForwardSolver.createJvm() }).solve(picket)
+
+        assertEquals(picket.modelData[0].resistance, result.modelData[0].resistance)
+        assertEquals(picket.modelData[0].power, result.modelData[0].power)
+        assertTrue(misfit(picket, result.modelData) <= misfit(picket, picket.modelData))
+    }
+
+    /**
+     * Сравнение с симплексом по числу итераций, решений прямой задачи и времени на файлах из data/.
+     * Проверяется только Левенберг-Марквардт: симплекс на KAZAN не сходится за MaxEval
+     * и возвращает лучшую точку с [TerminationReason.MAX_EVALUATIONS]
+     */
+    @Test
+    fun compareWithSimplex() {
+        val importManager = SonetImportManager.create()
+        for (name in listOf("BURM1", "CHITA", "KAZAN", "SHIRA")) {
+            val picket = importManager.fromEXPFile(File("data/$name.EXP"))
+            picket.modelData = importManager.fromMODFile(File("data/$name.MOD"))
+
+            val simplex = InverseSolver(ForwardSolver.createJvm()).solve(picket)
+            val lm = LevenbergMarquardtInverseSolver(Supplier { ForwardSolver.createJvm() }).solve(picket)
+
+            for ((mode, result) in listOf("simplex" to simplex, "LM" to lm)) {
+                val telemetry = result.telemetry
+                println(
+                    "$name $mode: ${telemetry.iterations} iterations, ${telemetry.forwardCalls} forward calls, " +
+                            "${telemetry.wallTimeNanos / 1_000_000} ms " +
+                            "(forward ${telemetry.forwardTimeNanos / 1_000_000} ms), " +
+                            "misfit ${misfit(picket, result.modelData)}, ${telemetry.terminationReason}"
+                )
+            }
+            assertTrue(misfit(picket, lm.modelData) <= misfit(picket, picket.modelData), name)
+            assertTrue(lm.telemetry.iterations > 0, name)
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package ru.nucodelabs.algorithms
+
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Test
+import ru.nucodelabs.geo.ves.calc.interpolation.KdTree2D
+import ru.nucodelabs.geo.ves.calc.interpolation.LocalRBFSpatialInterpolator
+import java.util.*
+import kotlin.math.sin
+
+internal class LocalRBFTest {
+
+    @Test
+    fun nearestSameAsBruteForce() {
+        val random = Random(1)
+        val x = DoubleArray(2000) { random.nextInt(50) * 10.0 }
+        val y = DoubleArray(2000) { random.nextDouble() * 100 }
+        val tree = KdTree2D(x, y)
+        val neighbours = KdTree2D.Neighbours(8)
+
+        repeat(200) {
+            val qx = random.nextDouble() * 500
+            val qy = random.nextDouble() * 100
+            tree.nearest(qx, qy, neighbours)
+
+            val expected = x.indices
+                .map { (x[it] - qx) * (x[it] - qx) + (y[it] - qy) * (y[it] - qy) }
+                .sorted()
+                .take(8)
+            assertEquals(8, neighbours.size)
+            for (i in expected.indices) {
+                assertEquals(expected[i], neighbours.distancesSquared[i], 1e-9)
+            }
+        }
+    }
+
+    @Test
+    fun exactAtDataPoints() {
+        val x = doubleArrayOf(0.0, 0.0, 0.0, 10.0, 10.0, 10.0, 20.0, 20.0, 0.0)
+        val y = doubleArrayOf(1.0, 2.0, 3.0, 1.0, 2.0, 3.0, 1.0, 3.0, 1.0)
+        val f = doubleArrayOf(1.0, 2.0, 3.0, 4.0, 5.0, 6.0, 7.0, 8.0, 3.0)
+        val interpolator = LocalRBFSpatialInterpolator(x, y, f, neighboursCnt = 4)
+
+        // одинаковые точки усредняются
+        assertEquals(2.0, interpolator.interpolate(0.0, 1.0), 1e-12)
+        for (i in 1 until 8) {
+            assertEquals(f[i], interpolator.interpolate(x[i], y[i]), 1e-12)
+        }
+    }
+
+    @Test
+    fun smoothFunctionBetweenPickets() {
+        // пикеты через 10 м, разносы в логарифмическом масштабе
+        val x = ArrayList<Double>()
+        val y = ArrayList<Double>()
+        for (picket in 0 until 30) {
+            for (ab2 in 0 until 20) {
+                x += picket * 10.0
+                y += ab2 * 0.1
+            }
+        }
+        val function = { px: Double, py: Double -> 2.0 + sin(px / 100) + 0.5 * py }
+        val interpolator = LocalRBFSpatialInterpolator(
+            x.toDoubleArray(),
+            y.toDoubleArray(),
+            DoubleArray(x.size) { function(x[it], y[it]) }
+        )
+
+        for (px in listOf(15.0, 123.0, 201.0)) {
+            for (py in listOf(0.35, 1.05, 1.55)) {
+                assertEquals(function(px, py), interpolator.interpolate(px, py), 0.02)
+            }
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package ru.nucodelabs.algorithms
+
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Assertions.assertTrue
+import org.junit.jupiter.api.Test
+import ru.nucodelabs.gem.app.io.SonetImportManager
+import ru.nucodelabs.geo.ves.calc.forward.ForwardSolver
+import ru.nucodelabs.geo.ves.calc.inverse.InverseSolver
+import ru.nucodelabs.geo.ves.calc.inverse.InversionMode
+import ru.nucodelabs.geo.ves.calc.inverse.MultiStartInverseSolver
+import ru.nucodelabs.geo.ves.calc.inverse.inverse_functions.SquaresDiff
+import java.io.File
+import java.util.function.Supplier
+
+internal class MultiStartInverseSolverTest {
+
+    @Test
+    fun bestAlternativeNotWorseThanSingleStart() {
+        val importManager = SonetImportManager.create()
+        val picket = importManager.fromEXPFile(File("data/BURM3.EXP"))
+        picket.modelData = importManager.fromMODFile(File("data/BURM3.MOD"))
+        val factory = Supplier { ForwardSolver.createJvm() }
+
+        val single = InverseSolver(factory, InversionMode.LEVENBERG_MARQUARDT, 1).solve(picket)
+        val alternatives = MultiStartInverseSolver(
+            factory, InversionMode.LEVENBERG_MARQUARDT, parallelism = 4, startsCnt = 8, keepCnt = 3
+        ).solve(picket)
+
+        val experimental = picket.effectiveExperimentalData
+        val singleMisfit = SquaresDiff().apply(
+            ForwardSolver.createJvm()(experimental, single.modelData),
+            experimental.map { it.resistanceApparent }
+        )
+        assertTrue(alternatives.size in 1..3)
+        assertEquals(alternatives.sortedBy { it.misfit }.map { it.misfit }, alternatives.map { it.misfit })
+        assertTrue(alternatives.first().misfit <= singleMisfit * (1 + 1e-9))
+        for (alternative in alternatives) {
+            println("${alternative.start}: ${alternative.modelData.size} layers, misfit ${alternative.misfit}")
+        }
+    }
+}
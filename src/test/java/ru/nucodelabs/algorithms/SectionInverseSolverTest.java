@@ -0,0 +1,75 @@
+package ru.nucodelabs.algorithms;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import ru.nucodelabs.gem.app.io.SonetImportManager;
+import ru.nucodelabs.geo.ves.ModelLayer;
+import ru.nucodelabs.geo.ves.Picket;
+import ru.nucodelabs.geo.ves.calc.forward.ForwardSolver;
+import ru.nucodelabs.geo.ves.calc.inverse.InversionResult;
+import ru.nucodelabs.geo.ves.calc.inverse.SectionInverseSolver;
+
+import java.io.File;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+public class SectionInverseSolverTest {
+
+    private static class CollectingListener implements SectionInverseSolver.Listener {
+        final Map<Integer, List<ModelLayer>> results = new ConcurrentHashMap<>();
+
+        @Override
+        public void onPicketSolved(int index, Picket picket, InversionResult result) {
+            results.put(index, result.getModelData());
+        }
+
+        @Override
+        public void onPicketFailed(int index, Picket picket, Exception e) {
+            e.printStackTrace();
+        }
+    }
+
+    private static List<Picket> pickets() throws Exception {
+        SonetImportManager importManager = SonetImportManager.create();
+        Picket shira = importManager.fromEXPFile(new File("data/SHIRA.EXP"));
+        shira.setModelData(importManager.fromMODFile(new File("data/SHIRA.MOD")));
+        Picket chita = importManager.fromEXPFile(new File("data/CHITA.EXP"));
+        chita.setModelData(importManager.fromMODFile(new File("data/CHITA.MOD")));
+        // KAZAN симплексом с JVM-решателем не сходится за MaxEval, здесь он только как пикет без модели
+        Picket noModel = importManager.fromEXPFile(new File("data/KAZAN.EXP"));
+        return List.of(shira, noModel, chita);
+    }
+
+    @Test
+    void solvesAllPicketsWithModel() throws Exception {
+        List<Picket> pickets = pickets();
+        CollectingListener listener = new CollectingListener();
+        SectionInverseSolver solver = new SectionInverseSolver(ForwardSolver::createJvm, 2);
+
+        SectionInverseSolver.Job job = solver.solveAsync(pickets, listener);
+        SectionInverseSolver.Result result = job.getCompletion().get(5, TimeUnit.MINUTES);
+
+        Assertions.assertEquals(2, job.getTotalCnt());
+        Assertions.assertEquals(2, result.getSolvedCnt());
+        Assertions.assertFalse(result.isCancelled());
+        Assertions.assertEquals(Map.of(), result.getErrors());
+        Assertions.assertEquals(2, listener.results.size());
+        Assertions.assertEquals(pickets.get(0).getModelData().size(), listener.results.get(0).size());
+        Assertions.assertEquals(pickets.get(2).getModelData().size(), listener.results.get(2).size());
+    }
+
+    @Test
+    void cancelledBeforeStartSolvesNothing() throws Exception {
+        SectionInverseSolver solver = new SectionInverseSolver(ForwardSolver::createJvm, 1);
+        CollectingListener listener = new CollectingListener();
+
+        SectionInverseSolver.Job job = solver.solveAsync(pickets(), listener);
+        job.cancel();
+        SectionInverseSolver.Result result = job.getCompletion().get(5, TimeUnit.MINUTES);
+
+        Assertions.assertTrue(result.isCancelled());
+        Assertions.assertTrue(listener.results.size() <= 1);
+    }
+}
@@ -4,6 +4,7 @@ import javafx.scene.paint.Color;
 import org.junit.jupiter.api.Test;
 import ru.nucodelabs.files.clr.ClrParser;
 import ru.nucodelabs.files.clr.ColorNode;
+import ru.nucodelabs.gem.view.color.ColorMapper;
 import ru.nucodelabs.gem.view.color.ColorPalette;
 
 import java.io.File;
@@ -12,6 +13,8 @@ import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
 public class ClrTest {
 
     @Test
@@ -48,4 +51,38 @@ public class ClrTest {
         ColorPalette colorPalette = new ColorPalette(valueColorList, 0, 1500, 10);
         Color color = colorPalette.colorFor(1200);
     }
+
+    @Test
+    public void argbFor_matchesColorFor() throws FileNotFoundException {
+        ClrParser clrParser = new ClrParser(new File("colormap/default.clr"));
+        ColorPalette colorPalette = new ColorPalette(clrParser.getColorNodes(), 0, 1500, 10);
+
+        for (boolean logScale : new boolean[]{false, true}) {
+            colorPalette.setLogScale(logScale);
+            for (double value = 0.5; value < 2000; value *= 1.1) {
+                Color color = colorPalette.colorFor(value);
+                int argb = colorPalette.argbFor(value);
+                assertEquals(Math.round(color.getOpacity() * 255), argb >>> 24);
+                assertEquals(Math.round(color.getRed() * 255), (argb >> 16) & 0xFF);
+                assertEquals(Math.round(color.getGreen() * 255), (argb >> 8) & 0xFF);
+                assertEquals(Math.round(color.getBlue() * 255), argb & 0xFF);
+            }
+        }
+    }
+
+    @Test
+    public void colorFor_followsSegments() throws FileNotFoundException {
+        ClrParser clrParser = new ClrParser(new File("colormap/default.clr"));
+        ColorPalette colorPalette = new ColorPalette(clrParser.getColorNodes(), 0, 1500, 10);
+        colorPalette.setNumberOfSegments(5);
+        colorPalette.setMaxValue(1000);
+
+        List<ColorMapper.Segment> segments = colorPalette.getSegments();
+        assertEquals(5, segments.size());
+        for (ColorMapper.Segment segment : segments) {
+            assertEquals(segment.getColor(), colorPalette.colorFor((segment.getFrom() + segment.getTo()) / 2));
+        }
+        assertEquals(segments.get(0).getColor(), colorPalette.colorFor(-100));
+        assertEquals(segments.get(4).getColor(), colorPalette.colorFor(5000));
+    }
 }
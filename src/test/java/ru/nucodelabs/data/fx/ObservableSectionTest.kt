@@ -1,9 +1,12 @@
 package ru.nucodelabs.data.fx
 
 import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Assertions.assertFalse
+import org.junit.jupiter.api.Assertions.assertTrue
 import org.junit.jupiter.api.Test
 import ru.nucodelabs.gem.fxmodel.ObservableSection
 import ru.nucodelabs.geo.ves.Picket
+import ru.nucodelabs.geo.ves.Section
 
 internal class ObservableSectionTest {
     @Test
@@ -21,4 +24,23 @@ internal class ObservableSectionTest {
 
         assertEquals(2, section.pickets.size)
     }
-}
\ No newline at end of file
+
+    @Test
+    fun hasSamePickets() {
+        val saved = Section(listOf(Picket(name = "1"), Picket(name = "2")))
+        val observableSection = ObservableSection(saved)
+        assertTrue(observableSection.hasSamePickets(saved))
+
+        val version = observableSection.version
+        observableSection.pickets[0] = saved.pickets[0].copy(name = "3")
+        assertTrue(observableSection.version > version)
+        assertFalse(observableSection.hasSamePickets(saved))
+
+        // равный по содержимому, но другой экземпляр
+        observableSection.pickets[0] = saved.pickets[0].copy()
+        assertTrue(observableSection.hasSamePickets(saved))
+
+        observableSection.pickets.reverse()
+        assertFalse(observableSection.hasSamePickets(saved))
+    }
+}
@@ -1,9 +1,13 @@
 package ru.nucodelabs.data.ves
 
+import org.junit.jupiter.api.Assertions.assertArrayEquals
+import org.junit.jupiter.api.Assertions.assertEquals
 import org.junit.jupiter.api.Test
 import ru.nucodelabs.geo.ves.ExperimentalData
 import ru.nucodelabs.geo.ves.ModelLayer
 import ru.nucodelabs.geo.ves.Picket
+import ru.nucodelabs.geo.ves.calc.orderByDistances
+import kotlin.random.Random
 
 internal class PicketTest {
     @Test
@@ -18,4 +22,51 @@ internal class PicketTest {
         )
         println(picket.copy(modelData = listOf(ModelLayer(1.0, 1.0))))
     }
-}
\ No newline at end of file
+
+    // Прежняя сортировка с отключением дубликатов по AB/2
+    private fun expectedSorted(experimentalData: List<ExperimentalData>): List<ExperimentalData> {
+        val acc = mutableListOf<ExperimentalData>()
+        for ((_, group) in experimentalData.groupBy { it.ab2 }) {
+            acc += if (group.filter { !it.isHidden }.size > 1) {
+                val sortedGroup = group.sortedWith(orderByDistances())
+                List(sortedGroup.size) { sortedGroup[it].copy(isHidden = it < sortedGroup.lastIndex) }
+            } else {
+                group
+            }
+        }
+        return acc.sortedWith(orderByDistances())
+    }
+
+    @Test
+    fun sortedEffectiveAndColumns() {
+        val random = Random(7)
+        repeat(200) {
+            val experimentalData = List(random.nextInt(0, 12)) {
+                ExperimentalData(
+                    ab2 = random.nextInt(1, 5).toDouble(),
+                    mn2 = random.nextInt(1, 3).toDouble(),
+                    amperage = random.nextDouble(1.0, 100.0),
+                    voltage = random.nextDouble(1.0, 100.0),
+                    isHidden = random.nextInt(4) == 0
+                )
+            }
+            val picket = Picket(experimentalData = experimentalData)
+
+            val expected = expectedSorted(experimentalData)
+            assertEquals(expected, picket.sortedExperimentalData)
+            assertEquals(expected.filter { !it.isHidden }, picket.effectiveExperimentalData)
+
+            val mapping = picket.effectiveToSortedIndices
+            assertEquals(picket.effectiveExperimentalData, mapping.map { picket.sortedExperimentalData[it] })
+
+            val sorted = picket.sortedColumns
+            assertArrayEquals(expected.map { it.ab2 }.toDoubleArray(), sorted.ab2)
+            assertArrayEquals(expected.map { it.voltage }.toDoubleArray(), sorted.voltage)
+            assertEquals(expected.map { it.isHidden }, List(sorted.size) { sorted.isHidden(it) })
+
+            val effective = picket.effectiveColumns
+            assertArrayEquals(mapping.map { sorted.resistanceApparent[it] }.toDoubleArray(), effective.resistanceApparent)
+            assertArrayEquals(mapping.map { sorted.mn2[it] }.toDoubleArray(), effective.mn2)
+        }
+    }
+}
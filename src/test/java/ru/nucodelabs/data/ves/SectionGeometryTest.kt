@@ -0,0 +1,68 @@
+package ru.nucodelabs.data.ves
+
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Assertions.assertNotSame
+import org.junit.jupiter.api.Assertions.assertSame
+import org.junit.jupiter.api.Test
+import ru.nucodelabs.geo.ves.ExperimentalData
+import ru.nucodelabs.geo.ves.Picket
+import ru.nucodelabs.geo.ves.Section
+import ru.nucodelabs.geo.ves.calc.Bounds
+import ru.nucodelabs.geo.ves.calc.picketsBounds
+import ru.nucodelabs.geo.ves.calc.xOfPicket
+import kotlin.random.Random
+
+internal class SectionGeometryTest {
+
+    private val random = Random(42)
+
+    private fun randomPicket() = Picket(
+        experimentalData = List(random.nextInt(0, 5)) {
+            ExperimentalData(ab2 = random.nextDouble(1.0, 500.0), mn2 = 0.5, amperage = 1.0, voltage = 1.0)
+        },
+        offsetX = random.nextDouble(0.0, 200.0)
+    )
+
+    // Прежний расчет: координата — сумма смещений, границы — по соседним пикетам
+    private fun expectedBounds(pickets: List<Picket>): List<Bounds> {
+        fun x(index: Int) = (1..index).sumOf { pickets[it].offsetX }
+        fun maxAb2(picket: Picket) = picket.sortedExperimentalData.maxOfOrNull { it.ab2 } ?: 0.0
+        var leftX = -maxAb2(pickets[0])
+        return pickets.indices.map { i ->
+            val rightX = if (i != pickets.lastIndex) x(i) + pickets[i + 1].offsetX / 2 else x(i) + maxAb2(pickets[i])
+            Bounds(leftX, rightX).also { leftX = rightX }
+        }
+    }
+
+    @Test
+    fun sameAsDirectComputation() {
+        for (n in 1..30) {
+            val section = Section(List(n) { randomPicket() })
+            val bounds = section.picketsBounds()
+            val expected = expectedBounds(section.pickets)
+            for (i in 0 until n) {
+                assertEquals(expected[i].leftX, bounds[i].leftX, 1e-9)
+                assertEquals(expected[i].rightX, bounds[i].rightX, 1e-9)
+                assertEquals((1..i).sumOf { section.pickets[it].offsetX }, section.xOfPicket(i), 1e-9)
+            }
+            assertEquals(section.xOfPicket(n - 1), section.xOfPicket(section.pickets.last()))
+        }
+        assertEquals(emptyList<Bounds>(), Section().picketsBounds())
+    }
+
+    @Test
+    fun rebuiltOnlyWhenPicketsChange() {
+        val pickets = MutableList(10) { randomPicket() }
+        val section = Section(pickets)
+        val geometry = section.geometry()
+        assertSame(geometry, section.geometry())
+
+        pickets[3] = pickets[3].copy(offsetX = pickets[3].offsetX + 10)
+        val changed = section.geometry()
+        assertNotSame(geometry, changed)
+        assertEquals(geometry.xOfPicket(9) + 10, changed.xOfPicket(9), 1e-9)
+
+        pickets.removeAt(0)
+        assertEquals(9, section.geometry().size)
+    }
+}
@@ -84,4 +84,26 @@ public class SonetImportUtilsTest {
         EXPFile exp = SonetImportUtils.readEXP(file);
         System.out.println("SonetTest.readEXP_test");
     }
+
+    @Test
+    void readEXP_passportAndColumns() throws Exception {
+        EXPFile exp = SonetImportUtils.readEXP(new File("data/BURM1.EXP"));
+        Assertions.assertEquals("BURM651.STT", exp.getSTTFileName());
+        Assertions.assertEquals("02.06.99", exp.getDate().trim());
+        // паспорт заканчивается перед пустыми строками, за которыми идет $
+        Assertions.assertEquals("", exp.getInterpreter());
+        Assertions.assertEquals(100d, exp.getAmperage().get(0));
+        Assertions.assertEquals(2148.8, exp.getVoltage().get(0));
+        Assertions.assertEquals(135.01, exp.getResistanceApparent().get(0));
+        Assertions.assertEquals(0.01, exp.getErrorPolarizationApparent().get(0));
+    }
+
+    @Test
+    void readMOD_shortRowsFilledWithZeros() throws Exception {
+        MODFile mod = SonetImportUtils.readMOD(new File("data/KAZAN.MOD"));
+        Assertions.assertEquals(3, mod.getResistance().size());
+        Assertions.assertEquals(29.07, mod.getResistance().get(1));
+        Assertions.assertEquals(0d, mod.getPolarization().get(1));
+        Assertions.assertEquals(0d, mod.getPower().get(2));
+    }
 }
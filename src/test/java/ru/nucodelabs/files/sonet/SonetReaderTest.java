@@ -0,0 +1,32 @@
+package ru.nucodelabs.files.sonet;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+public class SonetReaderTest {
+
+    private static SonetReader readerOf(String text) {
+        return new SonetReader(text.getBytes(StandardCharsets.US_ASCII), StandardCharsets.US_ASCII);
+    }
+
+    @Test
+    void numbersSameAsParseDouble() {
+        String[] numbers = {"1", "-2.5", "1e+002", "3.3e-2", ".5", "7.", "0.1", "123456.789",
+                "12345678901234567890", "2.2250738585072014E-308", "1.7976931348623157e308", "9007199254740993"};
+        SonetReader.Columns columns = readerOf(String.join("\n", numbers)).readColumns(1);
+        Assertions.assertEquals(numbers.length, columns.size());
+        for (int i = 0; i < numbers.length; i++) {
+            Assertions.assertEquals(Double.parseDouble(numbers[i]), columns.get(0, i));
+        }
+    }
+
+    @Test
+    void linesUntilEndMark() {
+        SonetReader.Columns columns = readerOf("1 2\r\n\r\n3\t4 5\r-1.0\n6 7").readColumns(2);
+        Assertions.assertEquals(2, columns.size());
+        Assertions.assertEquals(3d, columns.get(0, 1));
+        Assertions.assertEquals(4d, columns.get(1, 1));
+    }
+}
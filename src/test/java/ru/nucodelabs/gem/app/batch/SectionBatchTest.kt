@@ -0,0 +1,43 @@
+package ru.nucodelabs.gem.app.batch
+
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Assertions.assertFalse
+import org.junit.jupiter.api.Assertions.assertThrows
+import org.junit.jupiter.api.Assertions.assertTrue
+import org.junit.jupiter.api.Test
+import ru.nucodelabs.geo.ves.calc.inverse.InversionMode
+import java.io.File
+import java.nio.file.Files
+
+internal class SectionBatchTest {
+
+    @Test
+    fun parsesOptions() {
+        val options = BatchOptions.parse(arrayOf("--invert", "--mode", "levenberg_marquardt", "--threads", "2", "data"))
+        assertTrue(options.invert)
+        assertFalse(options.primaryModel)
+        assertEquals(InversionMode.LEVENBERG_MARQUARDT, options.mode)
+        assertEquals(2, options.threadsCnt)
+        assertEquals(File("data", "data.json"), options.jsonFile)
+
+        assertThrows(IllegalArgumentException::class.java) { BatchOptions.parse(arrayOf("--threads", "0", "data")) }
+        assertThrows(IllegalArgumentException::class.java) { BatchOptions.parse(arrayOf("--unknown", "data")) }
+    }
+
+    @Test
+    fun importsDirectoryWithModels() {
+        val outDir = Files.createTempDirectory("gem-batch").toFile()
+        val options = BatchOptions(
+            inputDir = File("data"),
+            jsonFile = File(outDir, "section.json"),
+            misfitsFile = File(outDir, "misfits.csv")
+        )
+        val section = SectionBatch(options).use { it.run() }
+
+        assertEquals(listOf("BURM1", "BURM2", "BURM3", "BURM4", "CHITA", "KAZAN", "SHIRA"), section.pickets.map { it.name })
+        assertTrue(section.pickets.all { it.modelData.isNotEmpty() })
+        assertTrue(options.jsonFile.length() > 0)
+        assertEquals(section.pickets.size + 1, options.misfitsFile.readLines().size)
+        outDir.deleteRecursively()
+    }
+}
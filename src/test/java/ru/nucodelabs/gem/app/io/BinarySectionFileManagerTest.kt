@@ -0,0 +1,100 @@
+package ru.nucodelabs.gem.app.io
+
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Assertions.assertThrows
+import org.junit.jupiter.api.Test
+import ru.nucodelabs.geo.ves.ExperimentalData
+import ru.nucodelabs.geo.ves.ModelLayer
+import ru.nucodelabs.geo.ves.Picket
+import ru.nucodelabs.geo.ves.Section
+import java.io.File
+import java.io.IOException
+import java.nio.file.Files
+import java.util.*
+
+internal class BinarySectionFileManagerTest {
+
+    private val binaryFileManager = BinarySectionFileManager.create()
+
+    // id не сохраняется ни в JSON, ни в двоичном файле
+    private fun withoutIds(section: Section): List<Picket> {
+        val id = UUID(0, 0)
+        return section.pickets.map { it.copy(id = id) }
+    }
+
+    private fun roundTrip(section: Section): Section {
+        val file = Files.createTempFile("section", ".section.bin").toFile()
+        try {
+            binaryFileManager.saveSection(file, section)
+            return binaryFileManager.loadSection(file)
+        } finally {
+            file.delete()
+        }
+    }
+
+    @Test
+    fun dataFilesRoundTrip() {
+        val importManager = SonetImportManager.create()
+        val pickets = File("data").listFiles()!!
+            .filter { it.extension.equals("exp", ignoreCase = true) }
+            .sortedBy { it.name }
+            .map { exp ->
+                val mod = File(exp.parentFile, exp.nameWithoutExtension + ".MOD")
+                val picket = importManager.fromEXPFile(exp)
+                if (mod.exists()) picket.copy(modelData = importManager.fromMODFile(mod)) else picket
+            }
+        val section = Section(pickets)
+
+        assertEquals(withoutIds(section), withoutIds(roundTrip(section)))
+    }
+
+    @Test
+    fun unusualValuesRoundTrip() {
+        val data = ExperimentalData(ab2 = 1.5, mn2 = 0.5, amperage = 10.0, voltage = 0.1, errorResistanceApparent = 7.25)
+        val section = Section(
+            listOf(
+                Picket(),
+                Picket(
+                    name = "Пикет №1 ✓",
+                    experimentalData = listOf(data, data.copy(mn2 = 1.0), data.copy(ab2 = 3.0, isHidden = true)),
+                    modelData = listOf(
+                        ModelLayer(10.0, 100.0, isFixedPower = true),
+                        ModelLayer(Double.NaN, 1e-300, isFixedResistance = true)
+                    ),
+                    offsetX = 0.1 + 0.2,
+                    z = -12.5,
+                    comment = "многострочный\nкомментарий"
+                )
+            )
+        )
+
+        assertEquals(withoutIds(section), withoutIds(roundTrip(section)))
+        assertEquals(emptyList<Picket>(), roundTrip(Section()).pickets)
+    }
+
+    @Test
+    fun overwriteLoadedFile() {
+        val file = Files.createTempFile("section", ".section.bin").toFile()
+        try {
+            binaryFileManager.saveSection(file, Section(List(5) { Picket(name = "$it") }))
+            val loaded = binaryFileManager.loadSection(file)
+            binaryFileManager.saveSection(file, Section(loaded.pickets.drop(2)))
+
+            assertEquals(listOf("2", "3", "4"), binaryFileManager.loadSection(file).pickets.map { it.name })
+            assertEquals(listOf(file.name), file.parentFile.list()!!.filter { it.startsWith(file.name) })
+        } finally {
+            file.delete()
+        }
+    }
+
+    @Test
+    fun notSectionFile() {
+        val file = Files.createTempFile("section", ".bin").toFile()
+        try {
+            file.writeText("{\"pickets\": []}")
+            assertThrows(IOException::class.java) { binaryFileManager.loadSection(file) }
+        } finally {
+            file.delete()
+        }
+    }
+}
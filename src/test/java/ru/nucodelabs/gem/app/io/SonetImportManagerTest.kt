@@ -0,0 +1,48 @@
+package ru.nucodelabs.gem.app.io
+
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Assertions.assertTrue
+import org.junit.jupiter.api.Test
+import java.io.File
+import java.nio.file.Files
+
+internal class SonetImportManagerTest {
+
+    private val importManager = SonetImportManager.create()
+
+    @Test
+    fun bulkSameAsOneByOne() {
+        val expFiles = File("data").listFiles()!!
+            .filter { it.extension.equals("exp", ignoreCase = true) }
+            .sortedBy { it.name }
+        val missing = File("data/MISSING.EXP")
+
+        val imported = importManager.fromEXPFiles(expFiles + missing)
+
+        assertEquals(listOf(missing), imported.errors.keys.toList())
+        assertEquals(
+            expFiles.map { importManager.fromEXPFile(it).sortedExperimentalData },
+            imported.pickets.map { it.sortedExperimentalData }
+        )
+        assertEquals(expFiles.map { it.nameWithoutExtension }, imported.pickets.map { it.name })
+    }
+
+    @Test
+    fun changedSttParsedAgain() {
+        val dir = Files.createTempDirectory("sonet").toFile()
+        try {
+            val exp = File("data/BURM1.EXP").copyTo(File(dir, "BURM1.EXP"))
+            val stt = File("data/BURM651.STT").copyTo(File(dir, "BURM651.STT"))
+            val before = importManager.fromEXPFile(exp).sortedExperimentalData.minOf { it.ab2 }
+
+            stt.writeText(stt.readText().replaceFirst(Regex("\\S+"), "0.7"))
+            stt.setLastModified(stt.lastModified() + 2000)
+
+            val after = importManager.fromEXPFile(exp).sortedExperimentalData.minOf { it.ab2 }
+            assertTrue(before != after)
+            assertEquals(0.7, after)
+        } finally {
+            dir.deleteRecursively()
+        }
+    }
+}
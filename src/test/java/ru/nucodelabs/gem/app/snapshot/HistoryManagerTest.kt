@@ -0,0 +1,98 @@
+package ru.nucodelabs.gem.app.snapshot
+
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Test
+
+internal class HistoryManagerTest {
+
+    private class ListOriginator : Snapshot.Originator<List<Int>> {
+        var value: List<Int> = listOf()
+            set(value) {
+                field = value
+                version++
+            }
+
+        override var version = 0L
+
+        var snapshotsCnt = 0
+
+        override fun snapshot(): Snapshot<List<Int>> {
+            snapshotsCnt++
+            return Snapshot.of(value)
+        }
+
+        override fun restoreFromSnapshot(snapshot: Snapshot<List<Int>>) {
+            value = snapshot.value
+        }
+    }
+
+    @Test
+    fun unchangedVersionSkipped() {
+        val originator = ListOriginator()
+        val historyManager = HistoryManager(originator)
+        historyManager.snapshot()
+        historyManager.snapshot()
+        assertEquals(1, historyManager.size)
+        assertEquals(1, originator.snapshotsCnt)
+
+        historyManager.snapshotAfter { originator.value = listOf(1) }
+        historyManager.undo()
+        // восстановленное состояние уже есть в истории
+        historyManager.snapshot()
+        assertEquals(2, historyManager.size)
+        historyManager.redo()
+        assertEquals(listOf(1), originator.value)
+    }
+
+    @Test
+    fun oldestEvictedByEntriesAndWeight() {
+        val originator = ListOriginator()
+        val byEntries = HistoryManager(originator, 3, Long.MAX_VALUE) { _, current -> current.size.toLong() }
+        for (i in 0 until 10) {
+            byEntries.snapshotAfter { originator.value = listOf(i) }
+        }
+        assertEquals(3, byEntries.size)
+        byEntries.undo()
+        byEntries.undo()
+        byEntries.undo()
+        assertEquals(listOf(7), originator.value)
+
+        val byWeight = HistoryManager(originator, 100, 6) { previous, current ->
+            current.count { it !in previous.orEmpty() }.toLong()
+        }
+        byWeight.snapshotAfter { originator.value = listOf(0, 1, 2, 3) }
+        byWeight.snapshotAfter { originator.value = listOf(9, 1, 2, 3) }
+        byWeight.snapshotAfter { originator.value = listOf(9, 8, 2, 3) }
+        assertEquals(3, byWeight.size)
+        // 4 + 1 + 1 + 1 > 6, первый удаляется, второй теперь весит 4
+        byWeight.snapshotAfter { originator.value = listOf(9, 8, 7, 3) }
+        assertEquals(3, byWeight.size)
+
+        // последний снимок не удаляется, даже если один превышает объем
+        byWeight.snapshotAfter { originator.value = List(12) { 100 + it } }
+        assertEquals(1, byWeight.size)
+    }
+
+    @Test
+    fun gestureIsOneStep() {
+        val originator = ListOriginator()
+        val historyManager = HistoryManager(originator)
+        historyManager.snapshotAfter { originator.value = listOf(0) }
+
+        historyManager.beginGesture()
+        for (i in 1..20) {
+            historyManager.snapshotAfter { originator.value = listOf(i) }
+        }
+        originator.value = listOf(21)
+        historyManager.endGesture()
+        assertEquals(2, historyManager.size)
+
+        historyManager.snapshotAfter { originator.value = listOf(22) }
+        assertEquals(3, historyManager.size)
+
+        historyManager.undo()
+        assertEquals(listOf(21), originator.value)
+        historyManager.undo()
+        assertEquals(listOf(0), originator.value)
+    }
+}
@@ -0,0 +1,42 @@
+package ru.nucodelabs.gem.view.control.chart
+
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Test
+import java.util.*
+
+internal class RectIndexTest {
+
+    private val random = Random(7)
+
+    // Столбцы слоев, как в разрезе модели
+    private val minX = DoubleArray(400) { (it / 20) * 10.0 }
+    private val maxX = DoubleArray(400) { minX[it] + 10.0 }
+    private val minY = DoubleArray(400) { -(it % 20 + 1) * 5.0 }
+    private val maxY = DoubleArray(400) { minY[it] + 5.0 }
+    private val index = RectIndex(minX, minY, maxX, maxY)
+
+    @Test
+    fun atSameAsBruteForce() {
+        repeat(500) {
+            val x = random.nextDouble() * 220 - 10
+            val y = random.nextDouble() * -110 + 5
+            val expected = minX.indices.lastOrNull { x in minX[it]..maxX[it] && y in minY[it]..maxY[it] } ?: -1
+            assertEquals(expected, index.at(x, y))
+        }
+    }
+
+    @Test
+    fun intersectingSameAsBruteForce() {
+        repeat(200) {
+            val x1 = random.nextDouble() * 200
+            val y1 = random.nextDouble() * -100
+            val x2 = x1 + random.nextDouble() * 30
+            val y2 = y1 + random.nextDouble() * 30
+            val expected = BitSet()
+            for (i in minX.indices) {
+                if (minX[i] <= x2 && maxX[i] >= x1 && minY[i] <= y2 && maxY[i] >= y1) expected.set(i)
+            }
+            assertEquals(expected, index.intersecting(x1, y1, x2, y2))
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package ru.nucodelabs.gem.view.control.chart
+
+import org.junit.jupiter.api.Assertions.assertArrayEquals
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Assertions.assertNull
+import org.junit.jupiter.api.Test
+import java.util.concurrent.ForkJoinPool
+
+internal class TiledRasterTest {
+
+    private val raster = TiledRaster(ForkJoinPool(4), tileSize = 16)
+
+    @Test
+    fun fullPassComputesEveryPixel() {
+        val width = 37
+        val height = 23
+        val values = raster.compute(width, height, 1, { false }) { x, y -> x * 1000f + y }!!
+
+        val expected = FloatArray(width * height) { (it % width) * 1000f + it / width }
+        assertArrayEquals(expected, values)
+    }
+
+    @Test
+    fun coarsePassFillsBlocks() {
+        val width = 37
+        val height = 23
+        val step = 4
+        val values = raster.compute(width, height, step, { false }) { x, y -> x * 1000f + y }!!
+
+        for (y in 0 until height) {
+            for (x in 0 until width) {
+                assertEquals((x - x % step) * 1000f + (y - y % step), values[y * width + x])
+            }
+        }
+    }
+
+    @Test
+    fun staleComputationReturnsNull() {
+        assertNull(raster.compute(100, 100, 1, { true }) { _, _ -> 0f })
+    }
+}
@@ -0,0 +1,50 @@
+package ru.nucodelabs.gem.view.control.chart
+
+import org.junit.jupiter.api.Assertions.assertArrayEquals
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Assertions.assertTrue
+import org.junit.jupiter.api.Test
+
+internal class ValueRasterTest {
+
+    // 3 × 2, значение = x + 10 * y
+    private val raster = ValueRaster(
+        xValues = doubleArrayOf(0.0, 1.0, 2.0),
+        yValues = doubleArrayOf(10.0, 0.0),
+        values = floatArrayOf(
+            0f, 1f, 2f,
+            10f, 11f, 12f
+        )
+    )
+
+    @Test
+    fun sameViewResamplesToSameValues() {
+        assertTrue(raster.isSameView(raster.xValues, raster.yValues.copyOf()))
+        assertArrayEquals(raster.values, raster.resample(raster.xValues, raster.yValues))
+    }
+
+    @Test
+    fun bilinearBetweenCells() {
+        val values = raster.resample(doubleArrayOf(0.5, 1.5), doubleArrayOf(5.0))
+        assertArrayEquals(floatArrayOf(5.5f, 6.5f), values)
+    }
+
+    @Test
+    fun outsideIsNaN() {
+        val values = raster.resample(doubleArrayOf(-1.0, 1.0, 3.0), doubleArrayOf(11.0, 0.0))
+        assertTrue(values.take(4).all { it.isNaN() })
+        assertEquals(11f, values[4])
+        assertTrue(values[5].isNaN())
+    }
+
+    @Test
+    fun nearestNextToUndefined() {
+        val withUndefined = ValueRaster(
+            raster.xValues,
+            raster.yValues,
+            raster.values.copyOf().also { it[1] = ValueRaster.UNDEFINED }
+        )
+        val values = withUndefined.resample(doubleArrayOf(0.25, 0.75), doubleArrayOf(10.0))
+        assertArrayEquals(floatArrayOf(0f, ValueRaster.UNDEFINED), values)
+    }
+}